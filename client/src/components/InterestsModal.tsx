@@ -111,6 +111,10 @@ export default function InterestsModal({
       const config = {
         headers: {
           "Content-Type": "application/json",
+          // only save if nobody has changed the profile since it was read
+          ...(profile.version != null
+            ? { "If-Match": `"${profile.version}"` }
+            : {}),
         },
         withCredentials: true,
       };
@@ -118,6 +122,12 @@ export default function InterestsModal({
 
       const res = await axios.put(url, updatedUser, config);
 
+      // the ETag is the profile's new version, for the next update
+      const etag = res.headers["etag"];
+      if (etag) {
+        updatedUser.version = Number(etag.replace(/"/g, ""));
+      }
+
       // Set the user profile in state
       setProfile(updatedUser);
       setLocalProfile({});
@@ -125,7 +135,18 @@ export default function InterestsModal({
       onClose();
       return Promise.resolve(res.data.data);
     } catch (error) {
-      if (axios.isAxiosError(error) && error.response) {
+      if (axios.isAxiosError(error) && error.response?.status === 409) {
+        // changed somewhere else: reload it so the next save is based on it
+        const latest = await fetch(BACKEND + "users/" + profile.id);
+        if (latest.ok) {
+          const user = await latest.json();
+          setProfile(user.data);
+          localStorage.setItem("userProfile", JSON.stringify(user.data));
+        }
+        console.error(
+          Promise.resolve(`Error in fetch: ${error.response.data.message}`)
+        );
+      } else if (axios.isAxiosError(error) && error.response) {
         console.error(
           Promise.resolve(`Error in fetch: ${error.response.data.message}`)
         );
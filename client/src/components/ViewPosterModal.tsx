@@ -60,6 +60,8 @@ export default function ViewPosterModal({
 }: viewProps) {
   const [name, setName] = useState<string>("");
   const [picture, setPicture] = useState<string>("");
+  // feeds only send a summary of each poster, so the description comes from the full poster
+  const [fullDescription, setFullDescription] = useState<string>(description);
   const [profile] = useRecoilState(profileState);
   const [refresh, setRefresh] = useRecoilState(refreshState);
   const [, setEditModal] = useRecoilState(modalOpenState);
@@ -72,8 +74,9 @@ export default function ViewPosterModal({
   }, [popModalOpen]);
 
   useEffect(() => {
+    // loads the author and the full description, which feeds leave out
+    getUser();
     if (profile) {
-      getUser();
       const fetchSaved = async () => {
         try {
           //fetch savedposters
@@ -112,6 +115,9 @@ export default function ViewPosterModal({
       if (posterRes.ok) {
         const poster = await posterRes.json();
         // console.log(poster);
+        if (poster.data) {
+          setFullDescription(poster.data.description);
+        }
         if (poster.data.userId) {
           const userRes = await fetch(
             BACKEND + "users/" + poster.data.userId
@@ -246,7 +252,7 @@ export default function ViewPosterModal({
         : " ",
       location: location,
       link: link,
-      description: description,
+      description: fullDescription,
       tags: tags,
       isRecurring: recurs,
       id: id,
@@ -409,9 +415,9 @@ export default function ViewPosterModal({
                   )}
                 </div>
                 <div id="description">
-                  {description && <p id="description-field">Description</p>}
-                  {description && (
-                    <div id="description-text">{description}</div>
+                  {fullDescription && <p id="description-field">Description</p>}
+                  {fullDescription && (
+                    <div id="description-text">{fullDescription}</div>
                   )}
                 </div>
               </div>
@@ -13,6 +13,7 @@ export interface IUser {
   interests?: Set<string>;
   createdPosters?: IPoster[];
   savedPosters?: IPoster[];
+  version?: number; // sent back in If-Match so a stale profile edit is refused
 }
 
 export async function fetchTags() {
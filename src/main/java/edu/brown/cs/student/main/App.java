@@ -2,16 +2,30 @@ package edu.brown.cs.student.main;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableAsync
-@SpringBootApplication
+@EnableScheduling
+// the reactive mongo client is only created when posters.stack=reactive, see ReactiveConfig
+@SpringBootApplication(
+    exclude = {
+      MongoReactiveAutoConfiguration.class,
+      MongoReactiveDataAutoConfiguration.class,
+      MongoReactiveRepositoriesAutoConfiguration.class
+    })
 @ComponentScan(basePackages = "edu.brown.cs.student.main.ocr")
 @ComponentScan(basePackages = "edu.brown.cs.student.main.user")
 @ComponentScan(basePackages = "edu.brown.cs.student.main.imgur")
 @ComponentScan(basePackages = "edu.brown.cs.student.main.types")
 @ComponentScan(basePackages = "edu.brown.cs.student.main.responses")
+@ComponentScan(basePackages = "edu.brown.cs.student.main.cache")
+@ComponentScan(basePackages = "edu.brown.cs.student.main.index")
+@ComponentScan(basePackages = "edu.brown.cs.student.main.reactive")
 public class App {
   public static void main(String[] args) throws Exception {
     SpringApplication.run(App.class, args);
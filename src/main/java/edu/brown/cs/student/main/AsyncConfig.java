@@ -0,0 +1,173 @@
+package edu.brown.cs.student.main;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The executors behind the services' @Async methods, one per kind of work so a burst of one can't
+ * starve the others: mongo reads, mongo writes, OCR calls to Cloud Vision and Imgur uploads.
+ *
+ * <p>With posters.async.mode=platform (the default) each is a fixed pool of platform threads with
+ * a bounded queue; once the queue is full the submitting thread runs the task itself, which slows
+ * callers down instead of starting more threads. With posters.async.mode=virtual on JDK 21+ every
+ * task gets its own virtual thread, and a concurrency limit keeps the number of tasks in flight
+ * (and so mongo connections or external calls) bounded; on older JDKs it falls back to the pools.
+ *
+ * <p>Each executor reports posters.executor.queued and posters.executor.active, tagged by name.
+ */
+@Configuration
+public class AsyncConfig implements AsyncConfigurer {
+  /** Executor for methods that only read */
+  public static final String READS = "readExecutor";
+
+  /** Executor for methods that write to mongo */
+  public static final String WRITES = "writeExecutor";
+
+  /** Executor for text detection on poster images */
+  public static final String OCR = "ocrExecutor";
+
+  /** Executor for image uploads to Imgur */
+  public static final String UPLOADS = "uploadExecutor";
+
+  private final MeterRegistry meterRegistry;
+  private final boolean virtual;
+  private final int virtualLimit;
+  private AsyncTaskExecutor writeExecutor;
+
+  public AsyncConfig(
+      MeterRegistry meterRegistry,
+      @Value("${posters.async.mode:platform}") String mode,
+      @Value("${posters.async.virtual-limit:100}") int virtualLimit) {
+    this.meterRegistry = meterRegistry;
+    this.virtualLimit = virtualLimit;
+    boolean virtual = "virtual".equalsIgnoreCase(mode);
+    if (virtual && virtualThreadFactory("probe-") == null) {
+      System.err.println(
+          "Virtual threads need JDK 21+, running on "
+              + Runtime.version()
+              + ": using thread pools instead");
+      virtual = false;
+    }
+    this.virtual = virtual;
+  }
+
+  @Bean(name = READS)
+  public AsyncTaskExecutor readExecutor(
+      @Value("${posters.async.reads.threads:16}") int threads,
+      @Value("${posters.async.reads.queue:500}") int queue) {
+    return this.executor("reads", threads, queue, this.virtualLimit);
+  }
+
+  @Bean(name = WRITES)
+  public AsyncTaskExecutor writeExecutor(
+      @Value("${posters.async.writes.threads:8}") int threads,
+      @Value("${posters.async.writes.queue:200}") int queue) {
+    this.writeExecutor = this.executor("writes", threads, queue, this.virtualLimit);
+    return this.writeExecutor;
+  }
+
+  // OCR and uploads are limited by the external APIs, not by threads, so virtual threads get the
+  // same limit as the pools
+  @Bean(name = OCR)
+  public AsyncTaskExecutor ocrExecutor(
+      @Value("${posters.async.ocr.threads:4}") int threads,
+      @Value("${posters.async.ocr.queue:50}") int queue) {
+    return this.executor("ocr", threads, queue, threads);
+  }
+
+  @Bean(name = UPLOADS)
+  public AsyncTaskExecutor uploadExecutor(
+      @Value("${posters.async.uploads.threads:4}") int threads,
+      @Value("${posters.async.uploads.queue:50}") int queue) {
+    return this.executor("uploads", threads, queue, threads);
+  }
+
+  /** For @Async methods that don't name an executor */
+  @Override
+  public Executor getAsyncExecutor() {
+    return this.writeExecutor;
+  }
+
+  @Override
+  public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+    return (e, method, params) ->
+        System.err.println("Error in " + method.getName() + ": " + e.getMessage());
+  }
+
+  private AsyncTaskExecutor executor(String name, int threads, int queue, int virtualLimit) {
+    AtomicInteger queued = new AtomicInteger();
+    AtomicInteger active = new AtomicInteger();
+    Gauge.builder("posters.executor.queued", queued, AtomicInteger::get)
+        .tag("name", name)
+        .description("Tasks submitted but not yet started")
+        .register(this.meterRegistry);
+    Gauge.builder("posters.executor.active", active, AtomicInteger::get)
+        .tag("name", name)
+        .description("Tasks running")
+        .register(this.meterRegistry);
+    // decorate() runs when a task is submitted, the returned runnable when it starts
+    TaskDecorator counting =
+        task -> {
+          queued.incrementAndGet();
+          return () -> {
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+              task.run();
+            } finally {
+              active.decrementAndGet();
+            }
+          };
+        };
+
+    if (this.virtual) {
+      SimpleAsyncTaskExecutor executor =
+          new SimpleAsyncTaskExecutor(virtualThreadFactory(name + "-"));
+      executor.setConcurrencyLimit(virtualLimit);
+      executor.setTaskDecorator(counting);
+      return executor;
+    }
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix(name + "-");
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queue);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setTaskDecorator(counting);
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(30);
+    return executor;
+  }
+
+  /**
+   * Thread.ofVirtual().name(prefix, 0).factory(), looked up reflectively so this still compiles for
+   * JDK 17
+   *
+   * @return the factory, or null if this JDK has no virtual threads
+   */
+  private static ThreadFactory virtualThreadFactory(String prefix) {
+    try {
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Method name = builderType.getMethod("name", String.class, long.class);
+      builder = name.invoke(builder, prefix, 0L);
+      return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
@@ -1,22 +1,35 @@
 package edu.brown.cs.student.main;
 
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
 /**
  * Boyer-Moore algorithm for string-searching, which should take O(m+n) time instead of O(mn) time
  * for brute-force searching
  */
 public class BMSearch {
-  private char[] needle;
-  private char[] haystack;
 
+  /**
+   * Returns whether needle occurs in haystack, ignoring case. Compiles the needle on every call;
+   * callers searching many haystacks for the same needle should use {@link #compile(String)}.
+   */
   public boolean getSearchResult(String needle, String haystack) {
-    this.needle = needle.toLowerCase().toCharArray();
-    this.haystack = haystack.toLowerCase().toCharArray();
-    int index = BMSearch.indexOf(this.haystack, this.needle);
-    if (index >= 0) {
-      return true;
-    } else {
-      return false;
+    return BMSearch.compile(needle).matches(haystack);
+  }
+
+  /**
+   * Builds the jump tables for a needle once so it can be searched for in any number of
+   * haystacks. Matching ignores case without lowercasing (copying) the haystack.
+   *
+   * @param needle The target string to search
+   * @return a compiled pattern, safe to share between threads
+   */
+  public static Pattern compile(String needle) {
+    char[] lowered = needle.toCharArray();
+    for (int i = 0; i < lowered.length; i++) {
+      lowered[i] = Character.toLowerCase(lowered[i]);
     }
+    return new Pattern(lowered, true);
   }
 
   /**
@@ -28,34 +41,101 @@ public class BMSearch {
    * @return The start index of the substring
    */
   public static int indexOf(char[] haystack, char[] needle) {
-    if (needle.length == 0) {
-      return -1;
+    return new Pattern(needle.clone(), false).indexIn(CharBuffer.wrap(haystack));
+  }
+
+  /**
+   * A needle with its Boyer-Moore tables built. Immutable: the bad-character table is a flat array
+   * for ASCII plus a small sorted table for any other characters in the needle, instead of one
+   * 65,536-entry array per search.
+   */
+  public static final class Pattern {
+    private static final int ASCII_SIZE = 128;
+
+    private final char[] needle;
+    private final boolean ignoreCase;
+    private final int[] asciiTable;
+    private final char[] otherChars; // sorted
+    private final int[] otherShifts; // otherShifts[i] is the shift for otherChars[i]
+    private final int[] offsetTable;
+
+    private Pattern(char[] needle, boolean ignoreCase) {
+      this.needle = needle;
+      this.ignoreCase = ignoreCase;
+      this.asciiTable = new int[ASCII_SIZE];
+      Arrays.fill(this.asciiTable, needle.length);
+
+      char[] others = new char[needle.length];
+      int otherCount = 0;
+      for (int i = 0; i < needle.length; ++i) {
+        if (needle[i] < ASCII_SIZE) {
+          this.asciiTable[needle[i]] = needle.length - 1 - i;
+        } else {
+          others[otherCount++] = needle[i];
+        }
+      }
+      others = Arrays.copyOf(others, otherCount);
+      Arrays.sort(others);
+      int distinct = 0;
+      for (int i = 0; i < others.length; i++) {
+        if (distinct == 0 || others[distinct - 1] != others[i]) {
+          others[distinct++] = others[i];
+        }
+      }
+      this.otherChars = Arrays.copyOf(others, distinct);
+      this.otherShifts = new int[distinct];
+      for (int i = 0; i < needle.length; ++i) {
+        if (needle[i] >= ASCII_SIZE) {
+          // later occurrences overwrite earlier ones, same as the full table did
+          this.otherShifts[Arrays.binarySearch(this.otherChars, needle[i])] =
+              needle.length - 1 - i;
+        }
+      }
+      this.offsetTable = makeOffsetTable(needle);
+    }
+
+    /** Returns whether the needle occurs anywhere in the haystack */
+    public boolean matches(CharSequence haystack) {
+      return this.indexIn(haystack) >= 0;
     }
-    int charTable[] = makeCharTable(needle);
-    int offsetTable[] = makeOffsetTable(needle);
-    for (int i = needle.length - 1, j; i < haystack.length; ) {
-      for (j = needle.length - 1; needle[j] == haystack[i]; --i, --j) {
-        if (j == 0) {
-          return i;
+
+    /**
+     * Returns the index within the haystack of the first occurrence of the needle, or -1 if it is
+     * not a substring (or the needle is empty)
+     */
+    public int indexIn(CharSequence haystack) {
+      char[] needle = this.needle;
+      if (needle.length == 0) {
+        return -1;
+      }
+      for (int i = needle.length - 1, j; i < haystack.length(); ) {
+        for (j = needle.length - 1; needle[j] == this.charAt(haystack, i); --i, --j) {
+          if (j == 0) {
+            return i;
+          }
         }
+        // i += needle.length - j; // For naive method
+        i +=
+            Math.max(
+                this.offsetTable[needle.length - 1 - j],
+                this.charShift(this.charAt(haystack, i)));
       }
-      // i += needle.length - j; // For naive method
-      i += Math.max(offsetTable[needle.length - 1 - j], charTable[haystack[i]]);
+      return -1;
     }
-    return -1;
-  }
 
-  /** Makes the jump table based on the mismatched character information. */
-  private static int[] makeCharTable(char[] needle) {
-    final int ALPHABET_SIZE = Character.MAX_VALUE + 1; // 65536
-    int[] table = new int[ALPHABET_SIZE];
-    for (int i = 0; i < table.length; ++i) {
-      table[i] = needle.length;
+    private char charAt(CharSequence haystack, int i) {
+      char c = haystack.charAt(i);
+      return this.ignoreCase ? Character.toLowerCase(c) : c;
     }
-    for (int i = 0; i < needle.length; ++i) {
-      table[needle[i]] = needle.length - 1 - i;
+
+    /** Jump based on the mismatched character information. */
+    private int charShift(char c) {
+      if (c < ASCII_SIZE) {
+        return this.asciiTable[c];
+      }
+      int index = Arrays.binarySearch(this.otherChars, c);
+      return index >= 0 ? this.otherShifts[index] : this.needle.length;
     }
-    return table;
   }
 
   /** Makes the jump table based on the scan offset which mismatch occurs. (bad-character rule). */
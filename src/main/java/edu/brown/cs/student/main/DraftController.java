@@ -1,33 +1,46 @@
 package edu.brown.cs.student.main;
 
 import edu.brown.cs.student.main.imgur.ImgurService;
+import edu.brown.cs.student.main.reactive.ReactivePosterService;
 import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.responses.VersionTags;
+import edu.brown.cs.student.main.responses.WriteFailures;
 import edu.brown.cs.student.main.types.Draft;
 import edu.brown.cs.student.main.types.Poster;
 import edu.brown.cs.student.main.user.UserService;
 import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
 
 /** This class defines the mappings and endpoints for poster management */
 @RestController
 @RequestMapping(value = "/drafts") // maps the controller to the "/posters" endpoint.
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 public class DraftController {
 
   private final DraftService draftService; // instance of the class that does all the dirty work
   private final ImgurService imgurService;
   private final UserService userService;
+  // only there with posters.stack=reactive
+  private final ReactivePosterService reactivePosterService;
 
   public DraftController(
-      DraftService draftService, ImgurService imgurService, UserService userService) {
+      DraftService draftService,
+      ImgurService imgurService,
+      UserService userService,
+      ObjectProvider<ReactivePosterService> reactivePosterService) {
     this.draftService = draftService;
     this.imgurService = imgurService;
     this.userService = userService;
+    this.reactivePosterService = reactivePosterService.getIfAvailable();
   }
 
   /**
@@ -41,8 +54,11 @@ public class DraftController {
   @GetMapping("/{id}") // params like id should be enclosed in squiggly brackets
   public CompletionStage<ResponseEntity<ServiceResponse<Poster>>> getPosterById(
       @PathVariable String id) {
-    return draftService
-        .getDraftById(id)
+    CompletableFuture<ServiceResponse<Poster>> lookup =
+        this.reactivePosterService != null
+            ? this.reactivePosterService.getDraftById(id).toFuture()
+            : draftService.getDraftById(id);
+    return lookup
         .thenApply(ResponseEntity::ok)
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
@@ -58,18 +74,27 @@ public class DraftController {
     poster.setStartDate(LocalDateTime.parse(startDate));
     poster.setUserId(userId);
     System.out.println("Start date: " + startDate);
-    this.draftService.createDraft(poster, userId);
-    return CompletableFuture.completedFuture(
-        new ServiceResponse<Draft>(poster, "created new draft using existing link"));
+    if (this.reactivePosterService != null) {
+      return this.reactivePosterService
+          .createDraft(poster, userId)
+          // same answers as DraftService.createDraft gives
+          .map(draft -> new ServiceResponse<Draft>(draft, "added to database"))
+          .onErrorResume(
+              DataRetrievalFailureException.class,
+              e -> Mono.just(new ServiceResponse<Draft>(poster, "Invalid user ID provided")))
+          .toFuture();
+    }
+    return this.draftService.createDraft(poster, userId);
   }
 
   @PostMapping(value = "/uploadToImgur")
   public CompletableFuture<ServiceResponse<String>> uploadToImgur(
       @RequestBody MultipartFile content, @RequestParam(required = false) String userId) {
-    ServiceResponse<String> imgurResponse = imgurService.uploadToImgur(content);
-
-    return CompletableFuture.completedFuture(
-        new ServiceResponse<String>(imgurResponse.getData(), "uploaded to imgur"));
+    return imgurService
+        .upload(content)
+        .thenApply(
+            imgurResponse ->
+                new ServiceResponse<String>(imgurResponse.getData(), "uploaded to imgur"));
   }
 
   /**
@@ -84,13 +109,17 @@ public class DraftController {
       @RequestParam(required = true) String userId,
       @RequestParam(required = true) String startDate) {
     Draft poster = new Draft();
-    ServiceResponse<String> imgurResponse = imgurService.uploadToImgur(content);
-    poster.setContent(imgurResponse.getData());
     poster.setStartDate(LocalDateTime.parse(startDate));
     poster.setUserId(userId);
-    this.draftService.createDraft(poster, userId);
-    return CompletableFuture.completedFuture(
-        new ServiceResponse<Draft>(poster, "created new draft using imgur"));
+    return imgurService
+        .upload(content)
+        .thenCompose(
+            imgurResponse -> {
+              poster.setContent(imgurResponse.getData());
+              // the draft is created as the user update and OCR call complete, not by a thread
+              // waiting on them
+              return this.draftService.createDraft(poster, userId);
+            });
   }
 
   /**
@@ -151,24 +180,35 @@ public class DraftController {
    * @param updatedPoster the new poster filled in with fields that you want (see fields expected in
    *     Poster class) expected in JSON format in the request body
    * @return instance that contains a "message" (string) field and, if successful (the id is found),
-   *     a "data" (JSON) field that contains the data of the poster that was just deleted
+   *     a "data" (JSON) field that contains the data of the poster that was just deleted. The ETag
+   *     is the draft's new version; if it is sent back in If-Match and the draft has been saved
+   *     since, nothing is changed and the response is a 409. A version in the body is ignored
    */
   @PutMapping("/update/{id}")
   public CompletableFuture<ResponseEntity<ServiceResponse<Poster>>> updatePoster(
-      @PathVariable String id, @RequestBody Draft updatedPoster) {
+      @PathVariable String id,
+      @RequestBody Draft updatedPoster,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    Long expectedVersion;
+    try {
+      expectedVersion = VersionTags.fromIfMatch(ifMatch);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
     return draftService
         .getDraftById(id)
         .thenCompose(
             existingPoster -> {
               if (existingPoster.getData() != null) {
                 updatedPoster.setID(id); // Ensure ID consistency
-                return draftService.updateDraft(existingPoster.getData(), updatedPoster);
+                return draftService.updateDraft(
+                    existingPoster.getData(), updatedPoster, expectedVersion);
               } else {
                 return CompletableFuture.completedFuture(
                     new ServiceResponse<>("Poster with id " + id + " not found"));
               }
             })
-        .thenApply(response -> ResponseEntity.ok(response))
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+        .thenApply(response -> VersionTags.ok(response, Poster::getVersion))
+        .exceptionally(WriteFailures::toResponse);
   }
 }
@@ -1,7 +1,10 @@
 package edu.brown.cs.student.main;
 
 import edu.brown.cs.student.main.types.Draft;
+import java.util.List;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -10,4 +13,12 @@ public interface DraftRepository extends MongoRepository<Draft, String> {
   // For instance:
   // List<Poster> findByTitleContaining(String title);
   // Check mongorepo documentation for all the methods it comes with!!
+
+  /** All drafts that don't have their author's name stored yet */
+  List<Draft> findByAuthorNameIsNull();
+
+  /** Sets the stored author name on every draft created by the given user */
+  @Query("{ 'userId': ?0 }")
+  @Update("{ $set: { 'authorName': ?1 }, $inc: { 'version': 1 } }")
+  long updateAuthorNameByUserId(String userId, String authorName);
 }
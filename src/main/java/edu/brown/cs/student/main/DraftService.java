@@ -1,16 +1,17 @@
 package edu.brown.cs.student.main;
 
+import edu.brown.cs.student.main.cache.CollectionVersions;
 import edu.brown.cs.student.main.ocr.OCRAsyncTask;
 import edu.brown.cs.student.main.responses.ServiceResponse;
 import edu.brown.cs.student.main.types.Draft;
 import edu.brown.cs.student.main.types.Poster;
-import edu.brown.cs.student.main.user.User;
+import edu.brown.cs.student.main.types.PosterEdit;
 import edu.brown.cs.student.main.user.UserService;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -21,139 +22,167 @@ public class DraftService {
 
   private final UserService userService;
 
+  private final CollectionVersions versions;
+
   @Autowired private OCRAsyncTask task;
 
   @Autowired
-  public DraftService(DraftRepository draftRepository, UserService userService) {
+  public DraftService(
+      DraftRepository draftRepository, UserService userService, CollectionVersions versions) {
     this.draftRepository = draftRepository;
     this.userService = userService;
+    this.versions = versions;
   }
 
+  /**
+   * Looks up a single draft by its id with a keyed read against the drafts collection
+   *
+   * @param id the id of the draft
+   * @return a ServiceResponse holding the draft, or a "not found" message
+   */
   public CompletableFuture<ServiceResponse<Poster>> getDraftById(String id) {
-    return this.getDrafts()
-        .thenCompose(
-            posters ->
-                posters.stream()
-                    .filter(poster -> id.equals(poster.getID()))
-                    .findFirst()
-                    .map(
-                        poster ->
-                            CompletableFuture.completedFuture(
-                                new ServiceResponse<Poster>(poster, "poster found")))
-                    .orElseGet(
-                        () ->
-                            CompletableFuture.completedFuture(
-                                new ServiceResponse<Poster>("Poster with id " + id + " not found"))));
+    if (id == null) {
+      return CompletableFuture.completedFuture(new ServiceResponse<>("Poster with id null not found"));
+    }
+    return CompletableFuture.completedFuture(
+        draftRepository
+            .findById(id)
+            .map(draft -> new ServiceResponse<Poster>(draft, "poster found"))
+            .orElseGet(() -> new ServiceResponse<>("Poster with id " + id + " not found")));
   }
 
-  @Async
+  @Async(AsyncConfig.READS)
   public CompletableFuture<List<Draft>> getDrafts() {
     return CompletableFuture.completedFuture(draftRepository.findAll());
   }
 
-  public ServiceResponse<Draft> createDraft(Draft poster, String userID) {
-    ServiceResponse<Draft> response;
+  /**
+   * Associates a new draft with its user, fills in the fields suggested by text detection on its
+   * image and saves it. Each step starts when the previous one completes, so no thread is held
+   * waiting on the user update or on the (slow) OCR call.
+   *
+   * @param poster the new draft, with its image in content
+   * @param userID the user creating it
+   * @return the response, which says so if the user doesn't exist; the draft is then neither read
+   *     nor saved. Fails if the user update or the save fails
+   */
+  public CompletableFuture<ServiceResponse<Draft>> createDraft(Draft poster, String userID) {
     // Associate the poster with the user
-    CompletableFuture<ServiceResponse<User>> associateResponse =
-        userService.associatePosterWithUser(userID, poster, true);
+    return userService
+        .associatePosterWithUser(userID, poster, true)
+        .thenCompose(
+            associated -> {
+              if (associated.getData() == null) {
+                return CompletableFuture.completedFuture(
+                    new ServiceResponse<>(poster, "Invalid user ID provided"));
+              }
+              return this.suggestFields(poster).thenApply(suggested -> this.saveDraft(poster));
+            });
+  }
 
+  /** Fills in the title, description, link and tags read off the draft's image, if any */
+  private CompletableFuture<Void> suggestFields(Draft poster) {
+    CompletableFuture<HashMap<String, Object>> detected;
     try {
-      associateResponse.get(); // Wait for the completion of the asynchronous task
-    } catch (InterruptedException | ExecutionException e) {
-      System.err.println("Error: " + e.getMessage());
+      detected = task.detect(poster.getContent());
+    } catch (Exception e) {
+      detected = CompletableFuture.failedFuture(e);
     }
+    return detected.handle(
+        (suggestedFields, ex) -> {
+          if (ex != null) {
+            System.err.println("Error reading text on image file: " + ex.getMessage());
+            return null;
+          }
+          if (suggestedFields.get("title") == null) {
+            poster.setTitle("Untitled");
+          } else {
+            poster.setTitle((String) suggestedFields.get("title"));
+          }
+          poster.setDescription((String) suggestedFields.get("description"));
+          poster.setLink((String) suggestedFields.get("link"));
+          poster.setTags((HashSet<String>) suggestedFields.get("tags"));
+          return null;
+        });
+  }
 
-    if (!associateResponse.isCompletedExceptionally()) {
-      System.out.println(associateResponse);
-      System.out.println("associateResponse.isCompletedExceptionally() == false");
-      // Save the Poster object to the database
-      try {
-        HashMap suggestedFields = task.sendPost(poster.getContent());
-        if (suggestedFields.get("title") == null) {
-          poster.setTitle("Untitled");
-        } else {
-          poster.setTitle((String) suggestedFields.get("title"));
-        }
-        poster.setDescription((String) suggestedFields.get("description"));
-        poster.setLink((String) suggestedFields.get("link"));
-        poster.setTags((HashSet<String>) suggestedFields.get("tags"));
-
-      } catch (Exception e) {
-        System.err.println("Error reading text on image file: " + e.getMessage());
-      }
-
-      if (poster.isPoster()) {
-        if (draftRepository
-            .findById(poster.getID())
-            .isEmpty()) { // check if already exists in database
-          System.out.println("Saving to mongo now");
-          Draft savedPoster = draftRepository.insert(poster);
-          // Create a response object
-          response = new ServiceResponse<>(savedPoster, "added to database");
-        } else {
-          System.out.println("Saving to mongo now");
-          Draft savedPoster = draftRepository.save(poster);
-          // Create a response object
-          response = new ServiceResponse<>(savedPoster, "saved to database");
-        }
+  private ServiceResponse<Draft> saveDraft(Draft poster) {
+    ServiceResponse<Draft> response;
+    // Save the Poster object to the database
+    if (poster.isPoster()) {
+      Optional<Draft> existing = draftRepository.findById(poster.getID());
+      if (existing.isEmpty()) { // check if already exists in database
+        System.out.println("Saving to mongo now");
+        Draft savedPoster = draftRepository.insert(poster);
+        versions.bumpDrafts();
+        // Create a response object
+        response = new ServiceResponse<>(savedPoster, "added to database");
       } else {
-        response = new ServiceResponse<>(poster, "not added to database");
+        System.out.println("Saving to mongo now");
+        // replaces the stored draft, as long as nobody saves it first
+        poster.setVersion(existing.get().getVersion());
+        Draft savedPoster = draftRepository.save(poster);
+        versions.bumpDrafts();
+        // Create a response object
+        response = new ServiceResponse<>(savedPoster, "saved to database");
       }
-      //  }
+    } else {
       response = new ServiceResponse<>(poster, "not added to database");
-      // CompletableFuture is basically a Promise
-      return (response);
     }
-
-    return (new ServiceResponse<>(poster, "Invalid user ID provided"));
+    return response;
   }
 
-  @Async
+  @Async(AsyncConfig.WRITES)
   public void deleteAll() {
     this.draftRepository.deleteAll();
+    this.versions.bumpDrafts();
   }
 
-  @Async
-  public CompletableFuture<ServiceResponse<Poster>> updateDraft(Poster existingDraft, Poster updatedDraft) {
-    if (existingDraft != null) {
-      return this.getDraftById(existingDraft.getID())
-              .thenApply(
-                      oldPosterResponse -> {
-                        Draft oldPoster = (Draft) oldPosterResponse.getData();
-                        if (oldPoster != null) {
-                          if (updatedDraft.getStartDate() != null)
-                            oldPoster.setStartDate(updatedDraft.getStartDate());
-                          if (updatedDraft.getEndDate() != null)
-                            oldPoster.setEndDate(updatedDraft.getEndDate());
-                          if (updatedDraft.getContent() != null)
-                            oldPoster.setContent(updatedDraft.getContent());
-                          oldPoster.setIsRecurring(updatedDraft.getIsRecurring());
-                          if (updatedDraft.getTitle() != null)
-                            oldPoster.setTitle((updatedDraft.getTitle()));
-                          if (updatedDraft.getDescription() != null)
-                            oldPoster.setDescription(updatedDraft.getDescription());
-                          if (updatedDraft.getLocation() != null)
-                            oldPoster.setLocation(updatedDraft.getLocation());
-                          if (updatedDraft.getLink() != null) oldPoster.setLink(updatedDraft.getLink());
-                          if (updatedDraft.getTags() != null) oldPoster.setTags(updatedDraft.getTags());
-                          draftRepository.save(oldPoster);
-                          return new ServiceResponse<>(oldPoster, "Poster updated");
-                        } else {
-                          return new ServiceResponse<>("Failed to update poster - Poster not found");
-                        }
-                      });
-    } else {
+  /** Applies an edit to a draft, the same way PosterService.updatePoster does to posters */
+  @Async(AsyncConfig.WRITES)
+  public CompletableFuture<ServiceResponse<Poster>> updateDraft(
+      Poster existingDraft, Poster updatedDraft, Long expectedVersion) {
+    if (existingDraft == null) {
       return CompletableFuture.completedFuture(
-              new ServiceResponse<>("Failed to update poster - existing draft with provided ID does not exist"));
+          new ServiceResponse<>("Failed to update poster - existing draft with provided ID does not exist"));
+    }
+    String id = existingDraft.getID();
+    Set<String> baseTags = null;
+    for (int attempt = 0; attempt < PosterService.MAX_WRITE_ATTEMPTS; attempt++) {
+      Draft oldPoster = draftRepository.findById(id).orElse(null);
+      if (oldPoster == null) {
+        return CompletableFuture.completedFuture(
+            new ServiceResponse<>("Failed to update poster - Poster not found"));
+      }
+      if (expectedVersion != null && !expectedVersion.equals(oldPoster.getVersion())) {
+        return CompletableFuture.failedFuture(
+            new OptimisticLockingFailureException(
+                "Draft " + id + " has changed since version " + expectedVersion));
+      }
+      if (baseTags == null) {
+        baseTags = PosterEdit.tagsOf(oldPoster);
+      }
+      PosterEdit.apply(oldPoster, updatedDraft, baseTags);
+      try {
+        Draft saved = draftRepository.save(oldPoster);
+        versions.bumpDrafts();
+        return CompletableFuture.completedFuture(new ServiceResponse<>(saved, "Poster updated"));
+      } catch (OptimisticLockingFailureException e) {
+        // saved by someone else since it was read: read it again
+      }
     }
+    return CompletableFuture.failedFuture(
+        new OptimisticLockingFailureException(
+            "Draft " + id + " kept changing while being updated"));
   }
 
-  @Async
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<String>> removeDraftFromDatabase(String id) {
     Optional<Draft> draftToDelete = draftRepository.findById(id);
 
     if (draftToDelete.isPresent()) {
       draftRepository.deleteById(id);
+      versions.bumpDrafts();
       return CompletableFuture.completedFuture(
           new ServiceResponse<>(
               "Draft with ID " + id + " has been removed from the drafts collection"));
@@ -162,44 +191,13 @@ public class DraftService {
     }
   }
 
-  @Async
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<String>> deleteById(String id, String userId, Poster posterToDelete){
 
     if (posterToDelete.getID().equals(id)
             && posterToDelete.getUserId().equals(userId)) {
-      // remove from user's createdposters
-      userService
-              .getUserById(userId)
-              .thenCompose(
-                      user -> {
-                        if (user.getData() != null) {
-                          Set<Poster> userDrafts = user.getData().getDrafts();
-                          userDrafts.removeIf(poster -> poster.getID().equals(id));
-                          user.getData().setDrafts(userDrafts);
-                          // Update the user entity in the database
-                          return userService
-                                  .updateUser(user.getData())
-                                  .thenApply(
-                                          updatedUser -> {
-                                            System.out.println(updatedUser);
-                                            if (updatedUser.getData() != null) {
-                                              return new ServiceResponse<>(
-                                                      "Draft with id "
-                                                              + id
-                                                              + " removed from user's created drafts");
-                                            } else {
-                                              return new ServiceResponse<>(
-                                                      "Failed to remove draft from user's created drafts");
-                                            }
-                                          });
-                        } else {
-                          return CompletableFuture.completedFuture(
-                                  new ServiceResponse<>(
-                                          "Draft with id "
-                                                  + id
-                                                  + " not removed from users created drafts"));
-                        }
-                      });
+      // remove from user's drafts
+      userService.removeFromDrafts(userId, posterToDelete);
       return this
               .removeDraftFromDatabase(id)
               .thenApply(
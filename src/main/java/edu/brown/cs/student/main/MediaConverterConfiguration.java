@@ -1,10 +1,12 @@
 package edu.brown.cs.student.main;
 
+import edu.brown.cs.student.main.responses.FieldSet;
 import java.util.ArrayList;
 import java.util.List;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
@@ -16,6 +18,9 @@ public class MediaConverterConfiguration implements WebMvcConfigurer {
   @Bean
   public MappingJackson2HttpMessageConverter jacksonConverter() {
     MappingJackson2HttpMessageConverter mc = new MappingJackson2HttpMessageConverter();
+    // posters and users carry a fields filter, which serializes everything unless a request
+    // selects a field set
+    mc.getObjectMapper().setFilterProvider(FieldSet.ALL_FIELDS);
     List<MediaType> supportedMediaTypes = new ArrayList<>(mc.getSupportedMediaTypes());
     supportedMediaTypes.add(MediaType.valueOf(MediaType.APPLICATION_JSON_VALUE));
     supportedMediaTypes.add(MediaType.valueOf("application/vnd.spring-boot.actuator.v2+json"));
@@ -26,5 +31,7 @@ public class MediaConverterConfiguration implements WebMvcConfigurer {
   @Override
   public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
     converters.add(jacksonConverter());
+    // bodies that are already encoded, e.g. the lines of the NDJSON export
+    converters.add(new ByteArrayHttpMessageConverter());
   }
 }
@@ -0,0 +1,90 @@
+package edu.brown.cs.student.main;
+
+import edu.brown.cs.student.main.cache.PosterCache;
+import edu.brown.cs.student.main.responses.PosterBatch;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.types.PosterRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Looks up many posters or drafts by id at once, e.g. a user's saved posters, so a list of any
+ * length costs at most one query: posters come from the in-memory snapshot once it has loaded
+ * (it has every poster, so nothing is read from mongo), and otherwise from one $in query, as do
+ * drafts.
+ */
+@Service
+public class PosterBatchService {
+  /** The most ids one batch can ask for */
+  public static final int MAX_IDS = 500;
+
+  private final PosterRepository posterRepository;
+  private final DraftRepository draftRepository;
+  private final PosterCache posterCache;
+
+  public PosterBatchService(
+      PosterRepository posterRepository, DraftRepository draftRepository, PosterCache posterCache) {
+    this.posterRepository = posterRepository;
+    this.draftRepository = draftRepository;
+    this.posterCache = posterCache;
+  }
+
+  /**
+   * Gets posters by id
+   *
+   * @param ids the ids, in the order the posters should be returned in (repeats are ignored)
+   * @return the posters found and the ids that weren't
+   */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<PosterBatch> getPosters(List<String> ids) {
+    Map<String, Poster> found = new HashMap<>();
+    if (posterCache.isReady()) {
+      for (String id : ids) {
+        Optional<Poster> poster = posterCache.get(id);
+        poster.ifPresent(cached -> found.put(id, cached));
+      }
+    } else {
+      for (Poster poster : posterRepository.findAllById(new LinkedHashSet<>(ids))) {
+        found.put(poster.getID(), poster);
+      }
+    }
+    return CompletableFuture.completedFuture(inOrder(ids, found, "Retrieved posters"));
+  }
+
+  /**
+   * Gets drafts by id with one query
+   *
+   * @param ids the ids, in the order the drafts should be returned in (repeats are ignored)
+   * @return the drafts found and the ids that weren't
+   */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<PosterBatch> getDrafts(List<String> ids) {
+    Map<String, Poster> found = new HashMap<>();
+    for (Poster draft : draftRepository.findAllById(new LinkedHashSet<>(ids))) {
+      found.put(draft.getID(), draft);
+    }
+    return CompletableFuture.completedFuture(inOrder(ids, found, "Retrieved drafts"));
+  }
+
+  /** Lists what was found in the order asked for, each id once even if it was asked for twice */
+  private static PosterBatch inOrder(List<String> ids, Map<String, Poster> found, String message) {
+    List<Poster> posters = new ArrayList<>(found.size());
+    List<String> missing = new ArrayList<>();
+    for (String id : new LinkedHashSet<>(ids)) {
+      Poster poster = found.get(id);
+      if (poster != null) {
+        posters.add(poster);
+      } else {
+        missing.add(id);
+      }
+    }
+    return new PosterBatch(posters, missing, message);
+  }
+}
@@ -1,199 +1,315 @@
 package edu.brown.cs.student.main;
 
+import com.fasterxml.jackson.databind.ObjectWriter;
 import edu.brown.cs.student.main.imgur.ImgurService;
+import edu.brown.cs.student.main.reactive.ReactivePosterService;
+import edu.brown.cs.student.main.responses.FeedPage;
+import edu.brown.cs.student.main.responses.FieldSet;
 import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.responses.VersionTags;
+import edu.brown.cs.student.main.responses.WriteFailures;
+import edu.brown.cs.student.main.types.Draft;
+import edu.brown.cs.student.main.types.FeedCursor;
+import edu.brown.cs.student.main.types.FeedOrder;
 import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.types.PosterView;
 import edu.brown.cs.student.main.user.User;
 import edu.brown.cs.student.main.user.UserService;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.function.BiFunction;
 
 import org.checkerframework.checker.units.qual.C;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 /** This class defines the mappings and endpoints for poster management */
 @RestController
 @RequestMapping(value = "/posters") // maps the controller to the "/posters" endpoint.
-@CrossOrigin(origins = "*")
+@CrossOrigin(
+    origins = "*",
+    exposedHeaders = {PosterController.NEXT_CURSOR, HttpHeaders.ETAG})
 public class PosterController {
 
+  public static final String NEXT_CURSOR = "X-Next-Cursor";
+  static final String NDJSON = "application/x-ndjson";
+  // posters created this recently are never taken for invalid ones
+  private static final Duration INVALID_POSTER_GRACE = Duration.ofMinutes(10);
+
   private final PosterService posterService; // instance of the class that does all the dirty work
   private final ImgurService imgurService;
   private final UserService userService;
   private final DraftService draftService;
+  private final PosterBatchService batchService;
+  private final ObjectWriter ndjsonWriter;
+  private final long exportTimeoutMs;
+  // only there with posters.stack=reactive
+  private final ReactivePosterService reactivePosterService;
 
   public PosterController(
       PosterService posterService,
       ImgurService imgurService,
       UserService userService,
-      DraftService draftService) {
+      DraftService draftService,
+      PosterBatchService batchService,
+      MappingJackson2HttpMessageConverter jacksonConverter,
+      ObjectProvider<ReactivePosterService> reactivePosterService,
+      @Value("${posters.export.timeout-ms:600000}") long exportTimeoutMs) {
     this.posterService = posterService;
     this.imgurService = imgurService;
     this.userService = userService;
     this.draftService = draftService;
+    this.batchService = batchService;
+    this.reactivePosterService = reactivePosterService.getIfAvailable();
+    // same mapper as the JSON endpoints
+    this.ndjsonWriter = jacksonConverter.getObjectMapper().writer();
+    this.exportTimeoutMs = exportTimeoutMs;
   }
 
   /**
-   * Sends a GET request for all posters (sorted by start date)
+   * Sends a GET request for all posters (sorted by start date). Every listing endpoint can be paged
+   * by passing a limit; the cursor for the next page comes back in the X-Next-Cursor header (which
+   * is missing on the last page) and is passed back as cursor. Listings return poster summaries
+   * (everything a card shows, without the description) unless view=full is passed, or just the
+   * properties listed in fields, e.g. fields=id,startDate,endDate.
    *
+   * @param cursor optional, the X-Next-Cursor of the previous page
+   * @param limit optional, the page size (all posters if missing)
+   * @param view optional, "full" for whole posters instead of summaries
+   * @param fields optional, comma separated poster properties to return (overrides view)
    * @return all posters (JSONified)
    */
   @GetMapping("/")
-  public CompletableFuture<ResponseEntity<List<Poster>>> getAllPosters() {
-    return this.sortBySoonest(posterService.getPosters())
-        .thenApply(ResponseEntity::ok)
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+  public CompletableFuture<ResponseEntity<?>> getAllPosters(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "0") int limit,
+      @RequestParam(required = false) String view,
+      @RequestParam(required = false) String fields) {
+    return this.page(
+        cursor,
+        FeedOrder.SOONEST,
+        PosterView.of(view),
+        fields,
+        (after, projection) -> posterService.getSoonest(after, limit, projection));
+  }
+
+  /**
+   * Streams all posters (sorted by start date) as newline-delimited JSON, one poster per line, when
+   * requested with "Accept: application/x-ndjson". Posters are read from a mongo cursor and written
+   * as they arrive, so large exports use constant memory; a slow client just slows the cursor down
+   * and a disconnected one ends the export. Exports get posters.export.timeout-ms (10 minutes by
+   * default) instead of the much shorter timeout of the other async requests.
+   *
+   * @param cursor optional, an X-Next-Cursor from the paged feed to resume from
+   * @param limit optional, the most posters to export (all posters if missing)
+   * @return the posters, one JSON object per line
+   */
+  @GetMapping(value = "/", produces = NDJSON)
+  public ResponseEntity<ResponseBodyEmitter> exportPosters(
+      @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "0") int limit) {
+    FeedCursor after;
+    try {
+      after =
+          cursor == null || cursor.isEmpty() ? null : FeedCursor.decode(cursor, FeedOrder.SOONEST);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    MediaType ndjson = MediaType.parseMediaType(NDJSON);
+    ResponseBodyEmitter emitter = new ResponseBodyEmitter(this.exportTimeoutMs);
+    posterService
+        .exportSoonest(
+            after,
+            limit,
+            poster -> {
+              ByteArrayOutputStream line = new ByteArrayOutputStream();
+              ndjsonWriter.writeValue(line, poster);
+              line.write('\n');
+              // fails once the client has gone or the export timed out, which ends the export
+              emitter.send(line.toByteArray(), ndjson);
+            })
+        .whenComplete(
+            (done, ex) -> {
+              if (ex == null) {
+                emitter.complete();
+              } else {
+                emitter.completeWithError(ex);
+              }
+            });
+    return ResponseEntity.ok().contentType(ndjson).body(emitter);
   }
 
   /**
    * Sends a GET request for all upcoming posters (start date in the future)
    *
+   * @param cursor optional, the X-Next-Cursor of the previous page
+   * @param limit optional, the page size (all posters if missing)
+   * @param view optional, "full" for whole posters instead of summaries
+   * @param fields optional, comma separated poster properties to return (overrides view)
    * @return all posters (JSONified)
    */
   @GetMapping("/upcoming")
-  public CompletableFuture<ResponseEntity<List<Poster>>> getUpcoming() {
-    return posterService
-        .getPosters()
-        .thenApply(
-            posters ->
-                posters.stream()
-                    .filter(poster -> poster.getStartDate().isAfter(LocalDateTime.now()))
-                    .sorted(Comparator.nullsLast(Comparator.comparing(Poster::getStartDate)))
-                    .collect(Collectors.toList()))
-        .thenApply(ResponseEntity::ok)
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+  public CompletableFuture<ResponseEntity<?>> getUpcoming(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "0") int limit,
+      @RequestParam(required = false) String view,
+      @RequestParam(required = false) String fields) {
+    return this.page(
+        cursor,
+        FeedOrder.UPCOMING,
+        PosterView.of(view),
+        fields,
+        (after, projection) -> posterService.getUpcoming(after, limit, projection));
   }
 
   /**
    * Sends a GET request for all upcoming posters sorted by most recent data created
    *
+   * @param cursor optional, the X-Next-Cursor of the previous page
+   * @param limit optional, the page size (all posters if missing)
+   * @param view optional, "full" for whole posters instead of summaries
+   * @param fields optional, comma separated poster properties to return (overrides view)
    * @return all posters (JSONified)
    */
   @GetMapping("/upcomingnew")
-  public CompletableFuture<ResponseEntity<List<Poster>>> getUpcomingByNewest() {
-    return posterService
-        .getPosters()
-        .thenApply(
-            posters ->
-                posters.stream()
-                    .filter(poster -> poster.getStartDate().isAfter(LocalDateTime.now()))
-                    .sorted(
-                        Comparator.nullsLast(Comparator.comparing(Poster::getCreatedAt).reversed()))
-                    .collect(Collectors.toList()))
-        .thenApply(ResponseEntity::ok)
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+  public CompletableFuture<ResponseEntity<?>> getUpcomingByNewest(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "0") int limit,
+      @RequestParam(required = false) String view,
+      @RequestParam(required = false) String fields) {
+    return this.page(
+        cursor,
+        FeedOrder.UPCOMING_BY_NEWEST,
+        PosterView.of(view),
+        fields,
+        (after, projection) -> posterService.getUpcomingByNewest(after, limit, projection));
   }
 
   /**
    * Sends a GET request for upcoming posters (start date in future) sorted by relevance (user
    * interest)
    *
+   * @param userId the user whose interests to rank by
+   * @param limit optional, only return the most relevant limit posters
+   * @param view optional, "full" for whole posters instead of summaries
+   * @param fields optional, comma separated poster properties to return (overrides view)
    * @return all posters (JSONified)
    */
   @GetMapping("/relevant")
-  public CompletableFuture<ResponseEntity<List<Poster>>> getUpcomingByRelevance(
-      @RequestParam String userId) {
-    return this.userService
-        .getUserById(userId)
-        .thenApply(user -> user.getData().getInterests())
-        .thenApply(this.posterService::sortByRelevance)
-        .join()
-        .thenApply(ResponseEntity::ok)
+  public CompletableFuture<ResponseEntity<?>> getUpcomingByRelevance(
+      @RequestParam String userId,
+      @RequestParam(defaultValue = "0") int limit,
+      @RequestParam(required = false) String view,
+      @RequestParam(required = false) String fields) {
+    FieldSet fieldSet;
+    try {
+      fieldSet = FieldSet.parse(FieldSet.POSTER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    CompletableFuture<List<Poster>> relevant =
+        this.reactivePosterService != null
+            ? this.reactivePosterService.sortByRelevance(userId, limit).toFuture()
+            : this.userService
+                .getUserById(userId)
+                .thenCompose(
+                    user ->
+                        this.posterService.sortByRelevance(user.getData(), limit));
+    return relevant
+        .<ResponseEntity<?>>thenApply(
+            posters -> ResponseEntity.ok(render(posters, PosterView.of(view), fieldSet)))
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 
   /**
    * Sends a GET request for all posters that ended (or started if endDate not available)
    *
+   * @param cursor optional, the X-Next-Cursor of the previous page
+   * @param limit optional, the page size (all posters if missing)
+   * @param view optional, "full" for whole posters instead of summaries
+   * @param fields optional, comma separated poster properties to return (overrides view)
    * @return all posters (JSONified)
    */
   @GetMapping("/archive")
-  public CompletableFuture<ResponseEntity<List<Poster>>> getArchive() {
-    return posterService
-        .getPosters()
-        .thenApply(
-            posters ->
-                posters.stream()
-                    .filter(
-                        poster -> {
-                          LocalDateTime currentDate = LocalDateTime.now();
-                          if (poster.getEndDate() != null) {
-                            // Check if the endDate has passed
-                            return poster.getEndDate().isBefore(currentDate);
-                          }
-                          // Check if the startDate has passed
-                          return poster.getStartDate().isBefore(currentDate);
-                        })
-                    .sorted(
-                        Comparator.nullsLast(Comparator.comparing(Poster::getStartDate)).reversed())
-                    .collect(Collectors.toList()))
-        .thenApply(ResponseEntity::ok)
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+  public CompletableFuture<ResponseEntity<?>> getArchive(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "0") int limit,
+      @RequestParam(required = false) String view,
+      @RequestParam(required = false) String fields) {
+    return this.page(
+        cursor,
+        FeedOrder.ARCHIVE,
+        PosterView.of(view),
+        fields,
+        (after, projection) -> posterService.getArchive(after, limit, projection));
   }
 
   /**
-   * sends a GET request for one specific poster
+   * sends a GET request for one specific poster, always the whole poster
    *
    * @param id the id (string) for the poster
+   * @param fields optional, comma separated poster properties to return
    * @return a JSONified ServiceResponse instance that contains a "message" (string) field and, if
    *     poster with id exists, a "data" (JSON) field that contains the data associated with that
    *     poster
    */
   @GetMapping("/{id}") // params like id should be enclosed in squiggly brackets
-  public CompletableFuture<ServiceResponse<Poster>> getPosterById(@PathVariable String id) {
-    return posterService
-        .getPosterById(id)
-        .thenCompose(
-            poster -> {
-              if (poster.getData() == null) {
-                // Poster not found, look at drafts
-                return draftService.getDraftById(id);
-              } else {
-                // Poster found, wrap it in a completed future
-                return CompletableFuture.completedFuture(poster);
-              }
-            })
-        .exceptionally(ex -> new ServiceResponse<>("Poster with id " + id + " not found"));
+  public CompletableFuture<ResponseEntity<?>> getPosterById(
+      @PathVariable String id, @RequestParam(required = false) String fields) {
+    FieldSet fieldSet;
+    try {
+      fieldSet = FieldSet.parse(FieldSet.POSTER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    CompletableFuture<ServiceResponse<Poster>> lookup =
+        this.reactivePosterService != null
+            ? this.reactivePosterService.findPosterOrDraft(id).toFuture()
+            : posterService.findPosterOrDraft(id);
+    return lookup
+        .exceptionally(ex -> new ServiceResponse<>("Poster with id " + id + " not found"))
+        .thenApply(response -> ResponseEntity.ok(FieldSet.select(response, fieldSet)));
   }
 
   /**
    * sends a GET request to filter by tag(s)
    *
-   * @param tag an array of tags (strings)
+   * @param tag optional, an array of tags (strings); no tags matches every poster
    * @param date this is optional, should be "createdAt" to sort by create date
+   * @param cursor optional, the X-Next-Cursor of the previous page
+   * @param limit optional, the page size (all posters if missing)
+   * @param view optional, "full" for whole posters instead of summaries
+   * @param fields optional, comma separated poster properties to return (overrides view)
    * @return a list of all posters matching the requested tags
    */
   @GetMapping("/tag")
-  public CompletableFuture<ResponseEntity<List<Poster>>> getPosterByTag(
-      @RequestParam String[] tag, @RequestParam(required = false) String date) {
-    CompletableFuture<List<Poster>> postersFuture;
-    if (tag.length == 1) {
-      // If there is only one tag, use the searchByTag method
-      postersFuture = posterService.searchByTag(tag[0]);
-    } else {
-      // If there are multiple tags, use the searchByMultipleTags method
-      postersFuture = posterService.searchByMultipleTags(tag);
-    }
-
-    if (date != null && date.equals("createdAt")) {
-      return postersFuture
-          .thenApply(
-              posters ->
-                  posters.stream()
-                      .sorted(Comparator.comparing(Poster::getCreatedAt)) // Sort by createdAt date
-                      .collect(Collectors.toList()))
-          .thenApply(ResponseEntity::ok)
-          .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
-    }
-    // sort by start date by default
-    return this.sortBySoonest(postersFuture)
-        .thenApply(ResponseEntity::ok)
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+  public CompletableFuture<ResponseEntity<?>> getPosterByTag(
+      @RequestParam(required = false) String[] tag,
+      @RequestParam(required = false) String date,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "0") int limit,
+      @RequestParam(required = false) String view,
+      @RequestParam(required = false) String fields) {
+    // sort by start date by default, or by create date if requested
+    boolean byCreatedAt = "createdAt".equals(date);
+    return this.page(
+        cursor,
+        FeedOrder.forSearch(byCreatedAt),
+        PosterView.of(view),
+        fields,
+        (after, projection) ->
+            posterService.searchByMultipleTags(tag, byCreatedAt, after, limit, projection));
   }
 
   /**
@@ -203,28 +319,61 @@ public class PosterController {
    * @param tags required but it can be blank if there are no tags, e.g.
    *     http://localhost:8080/posters/term? term=[term]&tags=
    * @param date optional, should be "createdAt" to sort by create date
+   * @param cursor optional, the X-Next-Cursor of the previous page
+   * @param limit optional, the page size (all posters if missing)
+   * @param view optional, "full" for whole posters instead of summaries
+   * @param fields optional, comma separated poster properties to return (overrides view)
    * @return
    */
   @GetMapping("/term")
-  public CompletableFuture<ResponseEntity<List<Poster>>> getPosterByTerm(
+  public CompletableFuture<ResponseEntity<?>> getPosterByTerm(
       @RequestParam String term,
       @RequestParam(required = false) String[] tags,
-      @RequestParam(required = false) String date) {
-    if (date != null && date.equals("createdAt")) {
-      return posterService
-          .searchByTerm(term, tags)
-          .thenApply(
-              posters ->
-                  posters.stream()
-                      .sorted(Comparator.comparing(Poster::getCreatedAt))
-                      .collect(Collectors.toList()))
-          .thenApply(ResponseEntity::ok)
-          .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
-    }
+      @RequestParam(required = false) String date,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "0") int limit,
+      @RequestParam(required = false) String view,
+      @RequestParam(required = false) String fields) {
+    // sort by start date by default, or by create date if requested
+    boolean byCreatedAt = "createdAt".equals(date);
+    // term matching needs whole posters, so there's no projection to push down
+    return this.page(
+        cursor,
+        FeedOrder.forSearch(byCreatedAt),
+        PosterView.of(view),
+        fields,
+        (after, projection) -> posterService.searchByTerm(term, tags, byCreatedAt, after, limit));
+  }
 
-    // sort by start date by default
-    return this.sortBySoonest(posterService.searchByTerm(term, tags))
-        .thenApply(ResponseEntity::ok)
+  /**
+   * sends GET request to search by author name, ignoring case
+   *
+   * @param name the author's name (not blank), e.g. http://localhost:8080/posters/name?name=[name]
+   * @param prefix optional, "true" to match every author whose name starts with name
+   * @param view optional, "full" for whole posters instead of summaries
+   * @param fields optional, comma separated poster properties to return (overrides view)
+   * @return posters by the matching authors, soonest first
+   */
+  @GetMapping("/name")
+  public CompletableFuture<ResponseEntity<?>> getPosterByName(
+      @RequestParam String name,
+      @RequestParam(required = false) boolean prefix,
+      @RequestParam(required = false) String view,
+      @RequestParam(required = false) String fields) {
+    if (name.isBlank()) {
+      // a blank prefix would match every author
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    FieldSet fieldSet;
+    try {
+      fieldSet = FieldSet.parse(FieldSet.POSTER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    return posterService
+        .searchByName(name, prefix)
+        .<ResponseEntity<?>>thenApply(
+            posters -> ResponseEntity.ok(render(posters, PosterView.of(view), fieldSet)))
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 
@@ -244,6 +393,34 @@ public class PosterController {
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 
+  /**
+   * Gets many posters by id in one request, e.g. to refresh a list of posters the client already
+   * has ids for. Costs at most one database query however many ids are sent.
+   *
+   * @param ids a JSON array of poster ids, at most PosterBatchService.MAX_IDS of them
+   * @param fields optional, comma separated poster properties to return
+   * @return the posters in the order of the ids as "data", and the ids with no poster (e.g. deleted
+   *     ones) as "missing"
+   */
+  @PostMapping("/batch")
+  public CompletableFuture<ResponseEntity<?>> getPostersByIds(
+      @RequestBody List<String> ids, @RequestParam(required = false) String fields) {
+    FieldSet fieldSet;
+    try {
+      fieldSet = FieldSet.parse(FieldSet.POSTER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    if (ids.size() > PosterBatchService.MAX_IDS || ids.contains(null)) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    return batchService
+        .getPosters(ids)
+        .<ResponseEntity<?>>thenApply(
+            response -> ResponseEntity.ok(FieldSet.select(response, fieldSet)))
+        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+  }
+
   @GetMapping("/alltags")
   public ArrayList<String> getAllTags() {
     Tags tags = new Tags();
@@ -264,10 +441,11 @@ public class PosterController {
   @PostMapping(value = "/uploadToImgur")
   public CompletableFuture<ServiceResponse<String>> uploadToImgur(
       @RequestBody MultipartFile content, @RequestParam(required = false) String userId) {
-    ServiceResponse<String> imgurResponse = imgurService.uploadToImgur(content);
-
-    return CompletableFuture.completedFuture(
-        new ServiceResponse<String>(imgurResponse.getData(), "uploaded to imgur"));
+    return imgurService
+        .upload(content)
+        .thenApply(
+            imgurResponse ->
+                new ServiceResponse<String>(imgurResponse.getData(), "uploaded to imgur"));
   }
 
   /**
@@ -303,45 +481,36 @@ public class PosterController {
   /**
    * FOR DEVELOPERS TO CALL VIA POSTMAN ONLY. DO NOT CALL IN CODE
    *
+   * <p>Deletes the user's posters that aren't in their created posters, unless they were created in
+   * the last INVALID_POSTER_GRACE (the user read here may predate them). Ids in the list with no
+   * poster are only reported: a poster joins the list before it's saved and an id carries no date,
+   * so a missing one may be a poster that's still being created.
+   *
    * @param userId
+   * @return the ids in the user's created posters that have no poster
    */
   @DeleteMapping("/deleteInvalidPosters/{userId}")
-  public ServiceResponse<String> deleteInvalidPosters(@PathVariable String userId) {
-    CompletableFuture<List<Poster>> futurePosters = posterService.getPosters();
+  public ServiceResponse<List<String>> deleteInvalidPosters(@PathVariable String userId) {
+    CompletableFuture<List<Poster>> futurePosters = posterService.getPostersByUser(userId);
     List<Poster> allPosters = futurePosters.join();
     CompletableFuture<ServiceResponse<User>> futureUser = this.userService.getUserById(userId);
     User user = futureUser.join().getData();
     if (user == null) return new ServiceResponse<>("User not found");
 
+    Set<String> createdIds = new HashSet<>(user.getCreatedPosters());
+    LocalDateTime cutoff = LocalDateTime.now().minus(INVALID_POSTER_GRACE);
     for (Poster poster : allPosters) {
-      boolean userHasPoster = false;
-      for (Poster p : user.getCreatedPosters()){
-        if (p.getID().equals(poster.getID())){
-          userHasPoster = true;
-          break;
-        }
-      }
-      if (poster.getUserId().equals(user.getId()) && !userHasPoster) {
+      boolean recent = poster.getCreatedAt() != null && poster.getCreatedAt().isAfter(cutoff);
+      if (poster.getUserId().equals(user.getId())
+          && !createdIds.contains(poster.getID())
+          && !recent) {
         posterService.removePosterFromDatabase(poster.getID());
       }
     }
 
-    List<Poster> toDelete = new ArrayList<>();
-    for (Poster poster : user.getCreatedPosters()) {
-      CompletableFuture<ServiceResponse<Poster>> futureResponse =
-          posterService.getPosterById(poster.getID());
-      ServiceResponse<Poster> response = futureResponse.join();
-      if (response.getData() == null) {
-        toDelete.add(poster);
-      }
-    }
-
-    for (int i = 0; i < toDelete.size(); i++) {
-      user.getCreatedPosters().remove(toDelete.get(i));
-    }
-
-    userService.saveRepository(user);
-    return new ServiceResponse<>("Successfully deleted invalid posters");
+    List<String> missing = batchService.getPosters(user.getCreatedPosters()).join().getMissing();
+    return new ServiceResponse<>(
+        missing, "Successfully deleted invalid posters; ids with no poster were kept");
   }
 
   /**
@@ -354,19 +523,22 @@ public class PosterController {
   @DeleteMapping("/delete/{id}")
   public CompletableFuture<ResponseEntity<ServiceResponse<String>>> deletePoster(
       @PathVariable String id, @RequestParam(required = true) String userId) {
-    return this.posterService.getPosterById(id).thenCompose(existingPoster -> {
-      if (existingPoster.getData() == null){ // not found in poster collection
-        return this.draftService.getDraftById(id).thenCompose(existingDraft -> {
-          System.out.println("searched in drafts collection");
-          if (existingDraft.getData() == null)
-            return CompletableFuture.completedFuture(new ServiceResponse<>("No draft or poster with id " + id + " was found for user " + userId));
-          return this.draftService.deleteById(id, userId, existingDraft.getData());
-        });
-      }
-              System.out.println("did not search in drafts collection");
-      return this.posterService.deleteById(id, userId, existingPoster.getData());})
-    .thenApply(response -> ResponseEntity.ok(response))
-            .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    return this.posterService
+        .findPosterOrDraft(id)
+        .thenCompose(
+            existing -> {
+              if (existing.getData() == null) {
+                return CompletableFuture.completedFuture(
+                    new ServiceResponse<>(
+                        "No draft or poster with id " + id + " was found for user " + userId));
+              }
+              if (existing.getData() instanceof Draft) {
+                return this.draftService.deleteById(id, userId, existing.getData());
+              }
+              return this.posterService.deleteById(id, userId, existing.getData());
+            })
+        .thenApply(response -> ResponseEntity.ok(response))
+        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 
   /**
@@ -379,33 +551,58 @@ public class PosterController {
    * @param updatedPoster the new poster filled in with fields that you want (see fields expected in
    *     Poster class) expected in JSON format in the request body
    * @return instance that contains a "message" (string) field and, if successful (the id is found),
-   *     a "data" (JSON) field that contains the data of the poster that was just deleted
+   *     a "data" (JSON) field that contains the data of the poster that was just deleted. The ETag
+   *     is the poster's new version; if it is sent back in If-Match and the poster has been saved
+   *     since, nothing is changed and the response is a 409. A version in the body is ignored
    */
   @PutMapping("/update/{id}")
   public CompletableFuture<ResponseEntity<ServiceResponse<Poster>>> updatePoster(
-      @PathVariable String id, @RequestBody Poster updatedPoster) {
+      @PathVariable String id,
+      @RequestBody Poster updatedPoster,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     System.out.println("updated poster: " + updatedPoster);
+    Long expectedVersion;
+    try {
+      expectedVersion = VersionTags.fromIfMatch(ifMatch);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
     return posterService
-        .getPosterById(id)
+        .findPosterOrDraft(id)
         .thenCompose(
-            existingPoster -> {
-              if (existingPoster.getData() != null) {
-                //                updatedPoster.setID(id); // Ensure ID consistency
-                return posterService.updatePoster(existingPoster.getData(), updatedPoster);
+            existing -> {
+              if (existing.getData() instanceof Draft) {
+                return draftService.updateDraft(existing.getData(), updatedPoster, expectedVersion);
+              } else if (existing.getData() != null) {
+                return posterService.updatePoster(
+                    existing.getData(), updatedPoster, expectedVersion);
               } else {
-                return draftService.getDraftById(id).thenCompose(existingDraft -> {
-                  return draftService.updateDraft(existingDraft.getData(), updatedPoster);
-                });
-
+                return CompletableFuture.completedFuture(
+                    new ServiceResponse<>("Poster with id " + id + " not found"));
               }
             })
-        .thenApply(response -> ResponseEntity.ok(response))
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+        .thenApply(response -> VersionTags.ok(response, Poster::getVersion))
+        .exceptionally(WriteFailures::toResponse);
   }
 
+  /**
+   * Publishes a draft: saves it as a poster of its author and then deletes the draft
+   *
+   * @param draftId the draft
+   * @return a message saying whether it was published. 404 if its author doesn't exist (nothing is
+   *     written), 409 if the poster kept changing while the draft's fields were copied onto it; in
+   *     both cases the draft is kept
+   */
   @PostMapping("/create/{draftId}")
   public CompletableFuture<ResponseEntity<ServiceResponse<String>>> createPoster(
       @PathVariable String draftId) {
+    if (this.reactivePosterService != null) {
+      return this.reactivePosterService
+          .publishDraft(draftId)
+          .toFuture()
+          .thenApply(response -> ResponseEntity.ok(response))
+          .exceptionally(WriteFailures::toResponse);
+    }
     Poster poster = new Poster();
 
     return draftService
@@ -421,43 +618,73 @@ public class PosterController {
                               + " cannot be created because it does not have a start date")); // also check if existingDraft.getData().getStartDate() is null
                 }
                 poster.setID(draftId); // Ensure ID consistency
-                this.posterService.createPoster(poster, existingDraft.getData().getUserId());
-                this.posterService.updatePoster(poster, existingDraft.getData());
-                this.userService.removeFromDrafts(
-                    existingDraft.getData().getUserId(), existingDraft.getData());
-                return this.draftService.removeDraftFromDatabase(existingDraft.getData().getID());
+                Poster draft = existingDraft.getData();
+                String userId = draft.getUserId();
+                if (this.posterService.createPoster(poster, userId).getData() == null) {
+                  return CompletableFuture.failedFuture(
+                      new DataRetrievalFailureException("User " + userId + " not found"));
+                }
+                // each step starts once the previous one has succeeded, so the draft is only
+                // deleted once the poster holds its fields
+                return this.posterService
+                    .updatePoster(poster, draft, null)
+                    .thenCompose(
+                        updated -> {
+                          if (updated.getData() == null) {
+                            return CompletableFuture.completedFuture(
+                                new ServiceResponse<String>(updated.getMessage()));
+                          }
+                          return this.userService
+                              .removeFromDrafts(userId, draft)
+                              .thenCompose(
+                                  removed ->
+                                      this.draftService.removeDraftFromDatabase(draft.getID()));
+                        });
               } else {
                 return CompletableFuture.completedFuture(
                     new ServiceResponse<>("Poster with id " + draftId + " not found"));
               }
             })
         .thenApply(response -> ResponseEntity.ok(response))
+        .exceptionally(WriteFailures::toResponse);
+  }
+
+  /**
+   * Decodes the cursor and field set, fetches the page with the fields it needs, renders it and
+   * puts the next cursor in the X-Next-Cursor header. Cursors that are malformed or came from a
+   * different feed, and invalid field names, get a 400.
+   */
+  private CompletableFuture<ResponseEntity<?>> page(
+      String cursor,
+      FeedOrder order,
+      PosterView view,
+      String fields,
+      BiFunction<FeedCursor, String[], CompletableFuture<FeedPage>> fetch) {
+    FeedCursor after;
+    FieldSet fieldSet;
+    try {
+      after = cursor == null || cursor.isEmpty() ? null : FeedCursor.decode(cursor, order);
+      fieldSet = FieldSet.parse(FieldSet.POSTER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    // the orders' own fields are always read so positions and cursors can be worked out
+    String[] projection = fieldSet != null ? fieldSet.projection(FeedOrder.FIELDS) : view.fields();
+    return fetch
+        .apply(after, projection)
+        .<ResponseEntity<?>>thenApply(
+            page -> {
+              ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+              if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR, page.getNextCursor());
+              }
+              return response.body(render(page.getPosters(), view, fieldSet));
+            })
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 
-  public CompletableFuture<List<Poster>> sortBySoonest(CompletableFuture<List<Poster>> myPosters) {
-    CompletableFuture<List<Poster>> beforePosters =
-        myPosters.thenApply(
-            posters ->
-                posters.stream()
-                    .filter(poster -> poster.getStartDate().isBefore(LocalDateTime.now()))
-                    .sorted(
-                        Comparator.nullsLast(Comparator.comparing(Poster::getStartDate).reversed()))
-                    .collect(Collectors.toList()));
-    CompletableFuture<List<Poster>> afterPosters =
-        myPosters.thenApply(
-            posters ->
-                posters.stream()
-                    .filter(poster -> poster.getStartDate().isAfter(LocalDateTime.now()))
-                    .sorted(Comparator.nullsLast(Comparator.comparing(Poster::getStartDate)))
-                    .collect(Collectors.toList()));
-    CompletableFuture<List<Poster>> allPosters =
-        afterPosters.thenCombine(
-            beforePosters,
-            (list1, list2) -> {
-              list1.addAll(list2);
-              return list1;
-            });
-    return allPosters;
+  /** The requested fields of each poster if there is a field set, otherwise the view */
+  private static Object render(List<Poster> posters, PosterView view, FieldSet fields) {
+    return fields != null ? FieldSet.select(posters, fields) : view.render(posters);
   }
 }
@@ -1,18 +1,39 @@
 package edu.brown.cs.student.main;
 
+import edu.brown.cs.student.main.cache.CollectionVersions;
+import edu.brown.cs.student.main.cache.PosterCache;
+import edu.brown.cs.student.main.index.AuthorIndex;
+import edu.brown.cs.student.main.index.PosterTimeIndex;
+import edu.brown.cs.student.main.index.RelevanceRanker;
+import edu.brown.cs.student.main.index.TagIndex;
+import edu.brown.cs.student.main.index.TextIndex;
+import edu.brown.cs.student.main.index.TimeKey;
+import edu.brown.cs.student.main.responses.FeedPage;
 import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.types.FeedCursor;
+import edu.brown.cs.student.main.types.FeedOrder;
 import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.types.PosterEdit;
 import edu.brown.cs.student.main.types.PosterRepository;
+import edu.brown.cs.student.main.types.TagDictionary;
+import edu.brown.cs.student.main.types.TagMask;
 import edu.brown.cs.student.main.user.User;
+import edu.brown.cs.student.main.user.UserNameChangedEvent;
+import edu.brown.cs.student.main.user.UserNameIndex;
 import edu.brown.cs.student.main.user.UserService;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -22,61 +43,92 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class PosterService {
+  /** How many times updatePoster re-applies an edit to a poster that was saved in the meantime */
+  static final int MAX_WRITE_ATTEMPTS = 3;
 
   private final PosterRepository posterRepository;
 
+  private final DraftRepository draftRepository;
+
   private final UserService userService;
 
+  private final PosterCache posterCache;
+
+  private final PosterTimeIndex timeIndex;
+
+  private final TagIndex tagIndex;
+
+  private final TextIndex textIndex;
+
+  private final AuthorIndex authorIndex;
+
+  private final UserNameIndex nameIndex;
+
+  private final CollectionVersions versions;
+
   @Autowired // annotation so Spring will automatically wire (inject) into dependent objects, in
   // this case PosterController
-  public PosterService(PosterRepository posterRepository, UserService userService) {
+  public PosterService(
+      PosterRepository posterRepository,
+      DraftRepository draftRepository,
+      UserService userService,
+      PosterCache posterCache,
+      PosterTimeIndex timeIndex,
+      TagIndex tagIndex,
+      TextIndex textIndex,
+      AuthorIndex authorIndex,
+      UserNameIndex nameIndex,
+      CollectionVersions versions) {
     this.posterRepository = posterRepository;
+    this.draftRepository = draftRepository;
     this.userService = userService;
+    this.posterCache = posterCache;
+    this.timeIndex = timeIndex;
+    this.tagIndex = tagIndex;
+    this.textIndex = textIndex;
+    this.authorIndex = authorIndex;
+    this.nameIndex = nameIndex;
+    this.versions = versions;
   }
 
-  // @Async
+  /**
+   * Adds a new poster to its author's created posters and saves it
+   *
+   * @param poster the new poster
+   * @param userID its author
+   * @return the response; it has no poster if there is no such user, and then nothing is saved
+   */
   public ServiceResponse<Poster> createPoster(Poster poster, String userID) {
     ServiceResponse<Poster> response;
     // Associate the poster with the user
-    CompletableFuture<ServiceResponse<User>> associateResponse =
-        userService.associatePosterWithUser(userID, poster, false);
-
-    try {
-      associateResponse.get(); // Wait for the completion of associate to avoid race condition
-    } catch (InterruptedException | ExecutionException e) {
-      System.err.println("Error: " + e.getMessage());
+    ServiceResponse<User> associated =
+        userService.associatePosterWithUser(userID, poster, false).join();
+    if (associated.getData() == null) {
+      // saving it would leave a poster no user lists
+      return new ServiceResponse<>("Invalid user ID provided");
     }
-    userService.removeFromDrafts(userID, poster);
-
-    if (!associateResponse.isCompletedExceptionally()) {
-      System.out.println(associateResponse);
-      // Save the Poster object to the database
-
-
-      if (poster.isPoster()) {
-        if (posterRepository
-            .findById(poster.getID())
-            .isEmpty()) { // check if already exists in database
-          System.out.println("Saving to mongo now");
-          Poster savedPoster = posterRepository.insert(poster);
-          // Create a response object
-          response = new ServiceResponse<>(savedPoster, "added to database");
-        } else {
-          System.out.println("Saving to mongo now");
-          Poster savedPoster = posterRepository.save(poster);
-          // Create a response object
-          response = new ServiceResponse<>(savedPoster, "saved to database");
-        }
+    // Save the Poster object to the database
+    if (poster.isPoster()) {
+      Optional<Poster> existing = posterRepository.findById(poster.getID());
+      if (existing.isEmpty()) { // check if already exists in database
+        System.out.println("Saving to mongo now");
+        Poster savedPoster = posterRepository.insert(poster);
+        posterCache.put(savedPoster);
+        // Create a response object
+        response = new ServiceResponse<>(savedPoster, "added to database");
       } else {
-        response = new ServiceResponse<>(poster, "not added to database");
+        System.out.println("Saving to mongo now");
+        // replaces the stored poster, as long as nobody saves it first
+        poster.setVersion(existing.get().getVersion());
+        Poster savedPoster = posterRepository.save(poster);
+        posterCache.put(savedPoster);
+        // Create a response object
+        response = new ServiceResponse<>(savedPoster, "saved to database");
       }
-      //  }
+    } else {
       response = new ServiceResponse<>(poster, "not added to database");
-      // CompletableFuture is basically a Promise
-      return (response);
     }
-
-    return (new ServiceResponse<>(poster, "Invalid user ID provided"));
+    return response;
   }
 
   //  @Async
@@ -128,111 +180,276 @@ public class PosterService {
   //    }
   //  }
 
-  @Async
+  /**
+   * Applies an edit to a poster. The save only goes through if nobody else has saved the poster
+   * since it was read; if someone has, the poster is read again and the edit re-applied, up to
+   * MAX_WRITE_ATTEMPTS times, with its tag changes merged into the current tags (see PosterEdit).
+   * An edit based on a version the client read fails straight away instead, since the client
+   * hasn't seen the other change.
+   *
+   * @param existingPoster the poster to edit
+   * @param updatedPoster the edit: the fields to change
+   * @param expectedVersion the version the edit was based on, or null to edit the latest version
+   * @return the updated poster; fails with an OptimisticLockingFailureException on a conflict
+   */
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<Poster>> updatePoster(
-      Poster existingPoster, Poster updatedPoster) {
-    if (existingPoster != null) {
-      return this.getPosterById(existingPoster.getID())
-          .thenApply(
-              oldPosterResponse -> {
-                Poster oldPoster = oldPosterResponse.getData();
-                if (oldPoster != null) {
-                  if (updatedPoster.getStartDate() != null)
-                    oldPoster.setStartDate(updatedPoster.getStartDate());
-                  if (updatedPoster.getEndDate() != null)
-                    oldPoster.setEndDate(updatedPoster.getEndDate());
-                  if (updatedPoster.getContent() != null)
-                    oldPoster.setContent(updatedPoster.getContent());
-                  oldPoster.setIsRecurring(updatedPoster.getIsRecurring());
-                  if (updatedPoster.getTitle() != null)
-                    oldPoster.setTitle((updatedPoster.getTitle()));
-                  if (updatedPoster.getDescription() != null)
-                    oldPoster.setDescription(updatedPoster.getDescription());
-                  if (updatedPoster.getLocation() != null)
-                    oldPoster.setLocation(updatedPoster.getLocation());
-                  if (updatedPoster.getLink() != null) oldPoster.setLink(updatedPoster.getLink());
-                  if (updatedPoster.getTags() != null) oldPoster.setTags(updatedPoster.getTags());
-                  posterRepository.save(oldPoster);
-                  return new ServiceResponse<>(oldPoster, "Poster updated");
-                } else {
-                  return new ServiceResponse<>("Failed to update poster - Poster not found");
-                }
-              });
-    } else {
+      Poster existingPoster, Poster updatedPoster, Long expectedVersion) {
+    if (existingPoster == null) {
       return CompletableFuture.completedFuture(
           new ServiceResponse<>("Failed to update poster - existing poster with provided ID does not exist"));
     }
+    String id = existingPoster.getID();
+    Set<String> baseTags = null;
+    for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+      // load a private copy from mongo; cached posters are shared with readers and never mutated
+      Poster oldPoster = posterRepository.findById(id).orElse(null);
+      if (oldPoster == null) {
+        return CompletableFuture.completedFuture(
+            new ServiceResponse<>("Failed to update poster - Poster not found"));
+      }
+      if (expectedVersion != null && !expectedVersion.equals(oldPoster.getVersion())) {
+        return CompletableFuture.failedFuture(
+            new OptimisticLockingFailureException(
+                "Poster " + id + " has changed since version " + expectedVersion));
+      }
+      if (baseTags == null) {
+        baseTags = PosterEdit.tagsOf(oldPoster);
+      }
+      PosterEdit.apply(oldPoster, updatedPoster, baseTags);
+      try {
+        Poster saved = posterRepository.save(oldPoster);
+        posterCache.put(saved);
+        return CompletableFuture.completedFuture(new ServiceResponse<>(saved, "Poster updated"));
+      } catch (OptimisticLockingFailureException e) {
+        // saved by someone else since it was read: read it again
+      }
+    }
+    return CompletableFuture.failedFuture(
+        new OptimisticLockingFailureException(
+            "Poster " + id + " kept changing while being updated"));
   }
 
-  @Async
+  /** Gets every poster, from the in-memory snapshot once it has loaded */
+  @Async(AsyncConfig.READS)
   public CompletableFuture<List<Poster>> getPosters() {
+    if (posterCache.isReady()) {
+      return CompletableFuture.completedFuture(posterCache.getAll());
+    }
     return CompletableFuture.completedFuture(posterRepository.findAll());
   }
 
+  /**
+   * Looks up a single poster by its id with a keyed read against the poster collection
+   *
+   * @param id the id of the poster
+   * @return a ServiceResponse holding the poster, or a "not found" message
+   */
   public CompletableFuture<ServiceResponse<Poster>> getPosterById(String id) {
-    return this.getPosters()
-        .thenCompose(
-            posters ->
-                posters.stream()
-                    .filter(poster -> id.equals(poster.getID()))
-                    .findFirst()
-                    .map(
-                        poster ->
-                            CompletableFuture.completedFuture(
-                                new ServiceResponse<Poster>(poster, "poster with id found")))
-                    .orElseGet(
-                        () ->
-                            CompletableFuture.completedFuture(
-                                new ServiceResponse<Poster>("Poster not found"))));
-  }
-
-  @Async
+    if (id == null) {
+      return CompletableFuture.completedFuture(new ServiceResponse<>("Poster not found"));
+    }
+    return CompletableFuture.completedFuture(
+        this.lookupPoster(id)
+            .map(poster -> new ServiceResponse<>(poster, "poster with id found"))
+            .orElseGet(() -> new ServiceResponse<>("Poster not found")));
+  }
+
+  /**
+   * Shared lookup used by the controllers: checks the poster collection first and falls back to
+   * the drafts collection. Both are keyed reads, so this never loads a whole collection. Callers can
+   * tell the two apart with {@code instanceof Draft}.
+   *
+   * @param id the id of the poster or draft
+   * @return a ServiceResponse holding the poster or draft, or a "not found" message
+   */
+  public CompletableFuture<ServiceResponse<Poster>> findPosterOrDraft(String id) {
+    if (id == null) {
+      return CompletableFuture.completedFuture(new ServiceResponse<>("Poster not found"));
+    }
+    Optional<Poster> poster = this.lookupPoster(id);
+    if (poster.isPresent()) {
+      return CompletableFuture.completedFuture(
+          new ServiceResponse<>(poster.get(), "poster with id found"));
+    }
+    return CompletableFuture.completedFuture(
+        draftRepository
+            .findById(id)
+            .map(draft -> new ServiceResponse<Poster>(draft, "draft with id found"))
+            .orElseGet(() -> new ServiceResponse<>("Poster with id " + id + " not found")));
+  }
+
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<String>> removePosterFromDatabase(String id) {
     Optional<Poster> posterToDelete = posterRepository.findById(id);
 
     if (posterToDelete.isPresent()) {
       posterRepository.deleteById(id);
+      posterCache.remove(id);
       return CompletableFuture.completedFuture(new ServiceResponse<>("Poster deleted"));
     } else {
       return CompletableFuture.completedFuture(new ServiceResponse<>("Poster not found"));
     }
   }
 
-  @Async
+  /**
+   * Gets a page of posters in "soonest" order: upcoming posters by ascending start date, followed
+   * by past posters by descending start date
+   *
+   * @param cursor where the previous page ended, or null for the first page
+   * @param limit the page size, or 0 or less for every poster
+   * @param fields the fields mongo reads need to load, or null for whole posters
+   */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<FeedPage> getSoonest(FeedCursor cursor, int limit, String[] fields) {
+    return CompletableFuture.completedFuture(this.feed(FeedOrder.SOONEST, cursor, limit, fields));
+  }
+
+  /** Receives posters one at a time from an export */
+  public interface PosterWriter {
+    void write(Poster poster) throws IOException;
+  }
+
+  /**
+   * Exports posters in "soonest" order straight from mongo cursors, handing each one to the writer
+   * as it arrives, so memory use doesn't grow with the collection. Exports read mongo rather than
+   * the snapshot so syncs always see the latest writes. If the writer fails (e.g. the client went
+   * away) the cursors are closed and the export stops.
+   *
+   * @param cursor where to resume a previous export, or null to start from the beginning
+   * @param limit the most posters to export, or 0 or less for all of them
+   * @param writer receives the posters in order
+   * @return completes when every poster has been written, or fails with the writer's error
+   */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<Void> exportSoonest(FeedCursor cursor, int limit, PosterWriter writer) {
+    try {
+      this.writeSoonest(cursor, limit, writer);
+      return CompletableFuture.completedFuture(null);
+    } catch (IOException | RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private void writeSoonest(FeedCursor cursor, int limit, PosterWriter writer) throws IOException {
+    FeedOrder order = FeedOrder.SOONEST;
+    LocalDateTime asOf = asOf(cursor);
+    int written = 0;
+    int first = cursor == null ? 0 : cursor.getSegment();
+    for (int segment = first; segment < order.segmentCount(); segment++) {
+      Criteria criteria = order.filter(segment, asOf);
+      if (cursor != null && segment == cursor.getSegment()) {
+        criteria = this.and(criteria, order.after(cursor));
+      }
+      int remaining = limit > 0 ? limit - written : 0;
+      try (Stream<Poster> posters =
+          posterRepository.streamMatching(criteria, order.sort(segment), remaining)) {
+        Iterator<Poster> iterator = posters.iterator();
+        while (iterator.hasNext()) {
+          writer.write(iterator.next());
+          written++;
+        }
+      }
+      if (limit > 0 && written >= limit) {
+        return;
+      }
+    }
+  }
+
+  /** Gets a page of upcoming posters (start date in the future) sorted by start date */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<FeedPage> getUpcoming(FeedCursor cursor, int limit, String[] fields) {
+    return CompletableFuture.completedFuture(this.feed(FeedOrder.UPCOMING, cursor, limit, fields));
+  }
+
+  /** Gets a page of upcoming posters (start date in the future) sorted by most recently created */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<FeedPage> getUpcomingByNewest(
+      FeedCursor cursor, int limit, String[] fields) {
+    return CompletableFuture.completedFuture(
+        this.feed(FeedOrder.UPCOMING_BY_NEWEST, cursor, limit, fields));
+  }
+
+  /** Gets a page of posters that ended (or started if there is no end date), most recent first */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<FeedPage> getArchive(FeedCursor cursor, int limit, String[] fields) {
+    return CompletableFuture.completedFuture(this.feed(FeedOrder.ARCHIVE, cursor, limit, fields));
+  }
+
+  /** Gets all posters created by a user, most recently created first */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<List<Poster>> getPostersByUser(String userId) {
+    if (posterCache.isReady()) {
+      List<Poster> posters = new ArrayList<>(authorIndex.byUsers(List.of(userId)));
+      // newest first, same as the mongo sort below
+      posters.sort(
+          Comparator.comparing(
+                  Poster::getCreatedAt,
+                  Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+              .reversed());
+      return CompletableFuture.completedFuture(posters);
+    }
+    return CompletableFuture.completedFuture(
+        posterRepository.findByUserId(userId, Sort.by(Sort.Direction.DESC, "createdAt")));
+  }
+
+  @Async(AsyncConfig.READS)
   public CompletableFuture<List<Poster>> searchByTag(String tag) {
-    return this.getPosters()
-        .thenApply(
-            posters ->
-                posters.stream()
-                    .filter(poster -> poster.getTags().contains(tag))
-                    .collect(Collectors.toList()));
+    return this.searchByMultipleTags(new String[] {tag}, false, null, 0, null)
+        .thenApply(FeedPage::getPosters);
   }
 
-  @Async
-  public CompletableFuture<List<Poster>> searchByMultipleTags(String[] tags) {
-    return this.getPosters()
-        .thenApply(
-            posters ->
-                posters.stream()
-                    .filter(poster -> this.containsAllTags(poster, tags))
-                    .collect(Collectors.toList()));
+  /**
+   * Gets a page of the posters containing every one of the given tags
+   *
+   * @param tags the tags to filter by (null or empty matches every poster)
+   * @param sortByCreatedAt sort by create date instead of the default "soonest" order
+   * @param cursor where the previous page ended, or null for the first page
+   * @param limit the page size, or 0 or less for every match
+   * @param fields the fields mongo reads need to load, or null for whole posters
+   * @return the matching posters
+   */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<FeedPage> searchByMultipleTags(
+      String[] tags, boolean sortByCreatedAt, FeedCursor cursor, int limit, String[] fields) {
+    FeedOrder order = FeedOrder.forSearch(sortByCreatedAt);
+    LocalDateTime asOf = asOf(cursor);
+    if (posterCache.isReady()) {
+      List<Poster> matches =
+          tags == null ? posterCache.getAll() : tagIndex.withAllTags(Arrays.asList(tags));
+      return CompletableFuture.completedFuture(this.topOf(order, matches, cursor, limit, asOf));
+    }
+    return CompletableFuture.completedFuture(
+        this.findPage(order, withAllTags(tags), cursor, limit, asOf, fields));
   }
 
-  @Async
-  public CompletableFuture<List<Poster>> sortByRelevance(HashSet<String> interests) {
-    return this.getPosters()
-        .thenApply(
-            posters ->
-                posters.stream()
-                    .filter(poster -> poster.getStartDate().isAfter(LocalDateTime.now()))
-                    .sorted(Comparator.nullsLast(Comparator.comparing(Poster::getStartDate)))
-                    .sorted(
-                        Comparator.<Poster>comparingInt(poster -> poster.numRelevantTags(interests))
-                            .reversed())
-                    .collect(Collectors.toList()));
+  /**
+   * The upcoming posters that best match a user's interests
+   *
+   * @param user the user, with at least their interests loaded
+   * @param limit how many to return, or 0 or less for every upcoming poster
+   * @return the posters, most relevant first
+   */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<List<Poster>> sortByRelevance(User user, int limit) {
+    LocalDateTime now = LocalDateTime.now();
+    // every upcoming poster is scored once (from the tag bitmaps when the snapshot is loaded) and
+    // only the best limit are kept
+    if (posterCache.isReady()) {
+      return CompletableFuture.completedFuture(
+          RelevanceRanker.rank(
+              timeIndex.upcoming(now), tagIndex.tagCounter(user.getInterests()), limit));
+    }
+    // the mask is kept on the (cached) user, so it's only encoded when the interests change
+    TagMask wanted = user.getInterestMask();
+    return CompletableFuture.completedFuture(
+        RelevanceRanker.rank(
+            posterRepository.findByStartDateAfter(now, Sort.unsorted()).stream(),
+            poster -> poster.numRelevantTags(wanted),
+            limit));
   }
 
-  @Async
+  @Async(AsyncConfig.READS)
   public CompletableFuture<HashSet<Object>> getAllFields(String field) {
     return this.getPosters()
         .thenApply(
@@ -269,99 +486,125 @@ public class PosterService {
             });
   }
 
-  @Async
-  public CompletableFuture<List<Poster>> searchByName(String name) {
-    return this.getPosters()
-        .thenCompose(
-            posters ->
-                CompletableFuture.allOf(
-                        posters.stream()
-                            .map(
-                                poster ->
-                                    userService
-                                        .getUserById(poster.getUserId())
-                                        .thenApply(
-                                            userResponse -> {
-                                              if (userResponse.getData() != null
-                                                  && userResponse
-                                                      .getData()
-                                                      .getName()
-                                                      .equals(name)) {
-                                                return poster;
-                                              }
-                                              return null;
-                                            }))
-                            .toArray(CompletableFuture<?>[]::new))
-                    .thenApply(
-                        __ ->
-                            posters.stream()
-                                .filter(Objects::nonNull)
-                                .collect(Collectors.toList())));
-  }
-
-  @Async
-  public CompletableFuture<List<Poster>> searchByTerm(String term, String[] tags) {
-    if (tags.length == 0) {
-      return this.getPosters()
-          .thenApply(
-              posters ->
-                  posters.stream()
-                      .filter(poster -> this.searchTermHelper(poster, term))
-                      .collect(Collectors.toList()));
-    } else {
-      return this.getPosters()
-          .thenApply(
-              posters ->
-                  posters.stream()
-                      .filter(poster -> this.containsAllTags(poster, tags))
-                      .filter(poster -> this.searchTermHelper(poster, term))
-                      .collect(Collectors.toList()));
+  /**
+   * Gets all posters by authors with the given name, ignoring case. Names resolve to user ids
+   * through the name index, then the posters come from the author index (or one $in query if the
+   * cache isn't loaded yet).
+   *
+   * @param name the author's name
+   * @param prefix whether to match every author whose name starts with name
+   * @return the matching posters, soonest first
+   */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<List<Poster>> searchByName(String name, boolean prefix) {
+    Set<String> userIds = prefix ? nameIndex.idsWithPrefix(name) : nameIndex.idsNamed(name);
+    if (userIds.isEmpty()) {
+      return CompletableFuture.completedFuture(List.of());
     }
+    List<Poster> matches =
+        posterCache.isReady()
+            ? authorIndex.byUsers(userIds)
+            : posterRepository.findByUserIdIn(userIds, Sort.unsorted());
+    return CompletableFuture.completedFuture(
+        this.topOf(FeedOrder.SOONEST, matches, null, 0, LocalDateTime.now()).getPosters());
   }
 
-  @Async
+  /**
+   * Gets a page of the posters whose text matches a search term. With the snapshot loaded the term
+   * is answered by the text index; otherwise the tag filter and the sort run in mongo and the term
+   * match runs on the (already ordered) candidates.
+   *
+   * @param term the keyword or phrase to search for
+   * @param tags tags every result must contain (may be null or empty)
+   * @param sortByCreatedAt sort by create date instead of the default "soonest" order
+   * @param cursor where the previous page ended, or null for the first page
+   * @param limit the page size, or 0 or less for every match
+   * @return the matching posters
+   */
+  @Async(AsyncConfig.READS)
+  public CompletableFuture<FeedPage> searchByTerm(
+      String term, String[] tags, boolean sortByCreatedAt, FeedCursor cursor, int limit) {
+    FeedOrder order = FeedOrder.forSearch(sortByCreatedAt);
+    LocalDateTime asOf = asOf(cursor);
+    if (posterCache.isReady()) {
+      // answer the term from the text index's postings, then check the few matches' tag masks
+      List<Poster> matches = textIndex.search(term);
+      if (tags != null && tags.length > 0) {
+        TagMask wanted = TagDictionary.encode(Arrays.asList(tags));
+        matches =
+            matches.stream()
+                .filter(poster -> poster.containsAllTags(wanted))
+                .collect(Collectors.toList());
+      }
+      return CompletableFuture.completedFuture(this.topOf(order, matches, cursor, limit, asOf));
+    }
+    Criteria criteria = withAllTags(tags);
+    // the term can't be matched in mongo, so every candidate after the cursor is read
+    List<Poster> candidates = this.findPage(order, criteria, cursor, 0, asOf, null).getPosters();
+    // build the search tables once for the whole query rather than once per poster
+    BMSearch.Pattern pattern = BMSearch.compile(term);
+    return CompletableFuture.completedFuture(
+        this.pageOf(
+            order,
+            candidates.stream().filter(poster -> this.searchTermHelper(poster, pattern)),
+            cursor,
+            limit,
+            asOf));
+  }
+
+  /**
+   * Rewrites the author name stored on a user's posters and drafts after they change their name,
+   * then puts the rewritten posters into the cache
+   */
+  @EventListener
+  public void onUserNameChanged(UserNameChangedEvent event) {
+    posterRepository.updateAuthorNameByUserId(event.getUserId(), event.getName());
+    draftRepository.updateAuthorNameByUserId(event.getUserId(), event.getName());
+    versions.bumpDrafts();
+    for (Poster poster : posterRepository.findByUserId(event.getUserId(), Sort.unsorted())) {
+      posterCache.put(poster);
+    }
+  }
+
+  /**
+   * Stores author names on posters and drafts saved before posters kept a copy of the name. Runs
+   * once at startup and only touches authors with posters still missing the name.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfillAuthorNames() {
+    List<Poster> unnamed = new ArrayList<>(posterRepository.findByAuthorNameIsNull());
+    unnamed.addAll(draftRepository.findByAuthorNameIsNull());
+    Set<String> userIds =
+        unnamed.stream()
+            .map(Poster::getUserId)
+            .filter(userId -> userId != null && !userId.equals(""))
+            .collect(Collectors.toSet());
+    if (userIds.isEmpty()) {
+      return;
+    }
+    for (User user : userService.getUsersByIds(userIds).join()) {
+      if (user.getName() != null) {
+        posterRepository.updateAuthorNameByUserId(user.getId(), user.getName());
+        draftRepository.updateAuthorNameByUserId(user.getId(), user.getName());
+      }
+    }
+    versions.bumpDrafts();
+    posterCache.refresh();
+  }
+
+  @Async(AsyncConfig.WRITES)
   public void deleteAll() {
     this.posterRepository.deleteAll();
+    this.posterCache.clear();
   }
 
-  @Async
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<String>> deleteById(String id, String userId, Poster posterToDelete){
 
                       if (posterToDelete.getID().equals(id)
                               && posterToDelete.getUserId().equals(userId)) {
                         // remove from user's createdposters
-                        userService
-                                .getUserById(userId)
-                                .thenCompose(
-                                        user -> {
-                                          if (user.getData() != null) {
-                                            Set<Poster> userPosters = user.getData().getCreatedPosters();
-                                            userPosters.removeIf(poster -> poster.getID().equals(id));
-                                            user.getData().setCreatedPosters(userPosters);
-                                            // Update the user entity in the database
-                                            return userService
-                                                    .updateUser(user.getData())
-                                                    .thenApply(
-                                                            updatedUser -> {
-                                                              System.out.println(updatedUser);
-                                                              if (updatedUser.getData() != null) {
-                                                                return new ServiceResponse<>(
-                                                                        "Poster with id "
-                                                                                + id
-                                                                                + " removed from user's created posters");
-                                                              } else {
-                                                                return new ServiceResponse<>(
-                                                                        "Failed to remove poster from user's created posters");
-                                                              }
-                                                            });
-                                          } else {
-                                            return CompletableFuture.completedFuture(
-                                                    new ServiceResponse<>(
-                                                            "Poster with id "
-                                                                    + id
-                                                                    + " not removed from users created posters"));
-                                          }
-                                        });
+                        userService.removeFromCreatedPosters(userId, id);
                         return this
                                 .removePosterFromDatabase(id)
                                 .thenApply(
@@ -373,16 +616,168 @@ public class PosterService {
 
   }
 
-  private boolean containsAllTags(Poster poster, String[] tags) {
-    HashSet<String> posterTags = poster.getTags();
-    return posterTags.containsAll(Arrays.asList(tags));
+  /** The filter for posters having every one of the tags; no tags means no filter */
+  private static Criteria withAllTags(String[] tags) {
+    return tags == null || tags.length == 0
+        ? new Criteria()
+        : Criteria.where("tags").all((Object[]) tags);
   }
 
-  private boolean searchTermHelper(Poster poster, String term) {
-    String haystack = poster.returnHaystack(userService);
-    BMSearch searcher = new BMSearch();
+  private static LocalDateTime asOf(FeedCursor cursor) {
+    return cursor == null ? LocalDateTime.now() : cursor.getAsOf();
+  }
+
+  /** Reads a page of a time-ordered feed from the time index, or mongo before it has loaded */
+  private FeedPage feed(FeedOrder order, FeedCursor cursor, int limit, String[] fields) {
+    LocalDateTime asOf = asOf(cursor);
+    if (posterCache.isReady()) {
+      return this.pageOf(order, this.indexed(order, cursor, asOf), cursor, limit, asOf);
+    }
+    return this.findPage(order, new Criteria(), cursor, limit, asOf, fields);
+  }
+
+  /**
+   * Streams a feed from the time index in order, seeking straight to the cursor so a page only
+   * walks the entries it returns
+   */
+  private Stream<Poster> indexed(FeedOrder order, FeedCursor cursor, LocalDateTime asOf) {
+    switch (order) {
+      case SOONEST:
+        Stream<Poster> upcoming =
+            cursor == null
+                ? timeIndex.startingAfter(TimeKey.after(asOf))
+                : cursor.getSegment() == 0
+                    ? timeIndex.startingAfter(key(cursor))
+                    : Stream.empty();
+        Stream<Poster> started =
+            timeIndex.startingBefore(
+                cursor != null && cursor.getSegment() == 1 ? key(cursor) : TimeKey.before(asOf));
+        return Stream.concat(upcoming, started);
+      case UPCOMING:
+        return timeIndex.startingAfter(cursor == null ? TimeKey.after(asOf) : key(cursor));
+      case UPCOMING_BY_NEWEST:
+        if (cursor != null && cursor.getTime() == null) {
+          return Stream.empty(); // posters without a create date sort last and aren't indexed
+        }
+        return timeIndex.createdBefore(cursor == null ? null : key(cursor));
+      case ARCHIVE:
+        // the few posters that ended before they started go around the start date walk
+        List<Poster> endedEarly = new ArrayList<>(timeIndex.endedBeforeStarting(asOf));
+        endedEarly.sort(
+            (a, b) -> order.compare(order.positionOf(a, asOf), order.positionOf(b, asOf)));
+        Stream<Poster> archived;
+        if (cursor != null && cursor.getTime() == null) {
+          archived = Stream.empty();
+        } else if (cursor != null && cursor.getTime().isBefore(asOf)) {
+          archived = timeIndex.startingBefore(key(cursor));
+        } else {
+          archived = timeIndex.startingBefore(TimeKey.before(asOf));
+        }
+        return Stream.of(
+                endedEarly.stream().filter(poster -> poster.getStartDate() != null),
+                archived,
+                endedEarly.stream().filter(poster -> poster.getStartDate() == null))
+            .flatMap(Function.identity());
+      default:
+        throw new IllegalArgumentException("No index for " + order);
+    }
+  }
+
+  private static TimeKey key(FeedCursor cursor) {
+    return TimeKey.of(cursor.getTime(), cursor.getId());
+  }
+
+  /** Takes a page from a stream that's already in feed order */
+  private FeedPage pageOf(
+      FeedOrder order, Stream<Poster> ordered, FeedCursor cursor, int limit, LocalDateTime asOf) {
+    Stream<Poster> page =
+        cursor == null
+            ? ordered.filter(poster -> order.positionOf(poster, asOf) != null)
+            : ordered.filter(poster -> order.isAfter(poster, cursor));
+    if (limit > 0) {
+      page = page.limit(limit + 1L); // one extra to tell whether there is a next page
+    }
+    return FeedPage.of(order, page.collect(Collectors.toList()), limit, asOf);
+  }
+
+  /**
+   * Takes a page from an unordered set of matches. Only the page (plus one) is kept in a bounded
+   * heap, so n matches cost O(n log k) instead of a full sort.
+   */
+  private FeedPage topOf(
+      FeedOrder order,
+      Collection<Poster> matches,
+      FeedCursor cursor,
+      int limit,
+      LocalDateTime asOf) {
+    Comparator<Map.Entry<FeedCursor, Poster>> byPosition =
+        (a, b) -> order.compare(a.getKey(), b.getKey());
+    // the head is the last poster kept so far
+    PriorityQueue<Map.Entry<FeedCursor, Poster>> kept = new PriorityQueue<>(byPosition.reversed());
+    for (Poster poster : matches) {
+      FeedCursor position = order.positionOf(poster, asOf);
+      if (position == null || (cursor != null && order.compare(position, cursor) <= 0)) {
+        continue;
+      }
+      kept.add(Map.entry(position, poster));
+      if (limit > 0 && kept.size() > limit + 1) {
+        kept.poll();
+      }
+    }
+    List<Map.Entry<FeedCursor, Poster>> sorted = new ArrayList<>(kept);
+    sorted.sort(byPosition);
+    List<Poster> page = new ArrayList<>(sorted.size());
+    for (Map.Entry<FeedCursor, Poster> entry : sorted) {
+      page.add(entry.getValue());
+    }
+    return FeedPage.of(order, page, limit, asOf);
+  }
+
+  /**
+   * Reads a page from mongo: each segment of the order is one query with the keyset condition,
+   * sort and limit applied server side, so only the page (plus one) is ever loaded, and only the
+   * requested fields
+   */
+  private FeedPage findPage(
+      FeedOrder order,
+      Criteria filter,
+      FeedCursor cursor,
+      int limit,
+      LocalDateTime asOf,
+      String[] fields) {
+    List<Poster> found = new ArrayList<>();
+    int first = cursor == null ? 0 : cursor.getSegment();
+    for (int segment = first; segment < order.segmentCount(); segment++) {
+      Criteria criteria = this.and(filter, order.filter(segment, asOf));
+      if (cursor != null && segment == cursor.getSegment()) {
+        criteria = this.and(criteria, order.after(cursor));
+      }
+      int remaining = limit > 0 ? limit + 1 - found.size() : 0;
+      found.addAll(posterRepository.findMatching(criteria, order.sort(segment), remaining, fields));
+      if (limit > 0 && found.size() > limit) {
+        break;
+      }
+    }
+    return FeedPage.of(order, found, limit, asOf);
+  }
+
+  /** Checks the snapshot first and falls back to a keyed read on a miss */
+  private Optional<Poster> lookupPoster(String id) {
+    Optional<Poster> cached = posterCache.get(id);
+    return cached.isPresent() ? cached : posterRepository.findById(id);
+  }
+
+  private Criteria and(Criteria filter, Criteria extra) {
+    if (filter.getCriteriaObject().isEmpty()) {
+      return extra;
+    }
+    if (extra.getCriteriaObject().isEmpty()) {
+      return filter;
+    }
+    return new Criteria().andOperator(filter, extra);
+  }
 
-    boolean result = searcher.getSearchResult(term, haystack);
-    return result;
+  private boolean searchTermHelper(Poster poster, BMSearch.Pattern pattern) {
+    return pattern.matches(poster.returnHaystack());
   }
 }
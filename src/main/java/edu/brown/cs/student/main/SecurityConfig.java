@@ -1,6 +1,8 @@
 package edu.brown.cs.student.main;
 
 import java.util.Arrays;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -21,7 +23,14 @@ public class SecurityConfig {
             AbstractHttpConfigurer
                 ::disable) // Disable CSRF protection for simplicity in this example
         .authorizeHttpRequests(
-            auth -> auth.anyRequest().permitAll() // Allow all requests without authentication
+            auth ->
+                auth.requestMatchers(EndpointRequest.to(HealthEndpoint.class))
+                    .permitAll()
+                    // the other actuator endpoints (metrics) are not for the public
+                    .requestMatchers(EndpointRequest.toAnyEndpoint())
+                    .denyAll()
+                    .anyRequest()
+                    .permitAll() // Allow all other requests without authentication
             )
         .httpBasic(AbstractHttpConfigurer::disable) // Disable HTTP Basic authentication
         .formLogin(AbstractHttpConfigurer::disable); // Disable form login
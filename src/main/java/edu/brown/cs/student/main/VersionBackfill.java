@@ -0,0 +1,56 @@
+package edu.brown.cs.student.main;
+
+import com.mongodb.client.result.UpdateResult;
+import edu.brown.cs.student.main.types.Draft;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.user.User;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives posters, drafts and users saved before they had a version field version 0. Without one,
+ * Spring Data takes a loaded document for a new one and tries to insert it again when it's saved.
+ * Runs while the app starts, before anything is read. If it fails the app doesn't start; it only
+ * touches documents still without a version, so the next start picks up where it stopped.
+ */
+@Component
+public class VersionBackfill {
+  private static final Logger LOG = LoggerFactory.getLogger(VersionBackfill.class);
+
+  private final MongoTemplate mongoTemplate;
+
+  public VersionBackfill(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @PostConstruct
+  public void backfill() {
+    for (Class<?> type : List.of(Poster.class, Draft.class, User.class)) {
+      UpdateResult result;
+      try {
+        result =
+            mongoTemplate.updateMulti(
+                new Query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L),
+                type);
+      } catch (RuntimeException e) {
+        // documents without a version can't be saved, so don't start with any left
+        throw new IllegalStateException(
+            "Could not set versions on " + mongoTemplate.getCollectionName(type), e);
+      }
+      if (result.getModifiedCount() > 0) {
+        LOG.info(
+            "Set version 0 on {} documents in {}",
+            result.getModifiedCount(),
+            mongoTemplate.getCollectionName(type));
+      }
+    }
+  }
+}
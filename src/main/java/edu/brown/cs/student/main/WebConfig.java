@@ -1,16 +1,31 @@
 package edu.brown.cs.student.main;
 
+import edu.brown.cs.student.main.cache.ConditionalGetInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+  private final ConditionalGetInterceptor conditionalGetInterceptor;
+
+  public WebConfig(ConditionalGetInterceptor conditionalGetInterceptor) {
+    this.conditionalGetInterceptor = conditionalGetInterceptor;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry
+        .addInterceptor(this.conditionalGetInterceptor)
+        .addPathPatterns(ConditionalGetInterceptor.PATHS);
+  }
+
   @Override
   public void addCorsMappings(CorsRegistry registry) {
     registry.addMapping("/**")
@@ -0,0 +1,41 @@
+package edu.brown.cs.student.main.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monotonic change counters for the poster and draft collections, bumped after every write has
+ * been applied (to mongo and, for posters, to the snapshot). A response built from version v can
+ * only be out of date once the version has moved past v, which is what makes version-based ETags
+ * safe. The counters start over on restart, so they are always paired with a random epoch.
+ */
+@Component
+public class CollectionVersions {
+  private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+  private final AtomicLong posters = new AtomicLong();
+  private final AtomicLong drafts = new AtomicLong();
+
+  /** Identifies this run of the app, so versions from before a restart never match */
+  public String getEpoch() {
+    return this.epoch;
+  }
+
+  public long getPosters() {
+    return this.posters.get();
+  }
+
+  public long getDrafts() {
+    return this.drafts.get();
+  }
+
+  /** Marks a change to the poster collection. Call after the change is visible to readers */
+  public void bumpPosters() {
+    this.posters.incrementAndGet();
+  }
+
+  /** Marks a change to the draft collection. Call after the change is visible to readers */
+  public void bumpDrafts() {
+    this.drafts.incrementAndGet();
+  }
+}
@@ -0,0 +1,124 @@
+package edu.brown.cs.student.main.cache;
+
+import edu.brown.cs.student.main.PosterController;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Answers repeat polls of the poster listings without running the controller. A listing's ETag is
+ * made from the listing stamp (the collection versions and the next time a poster moves between
+ * the time-based feeds) and the request's path and parameters, so it changes exactly when the
+ * response could. A matching If-None-Match gets a 304, and otherwise a response already in the
+ * FeedResponseCache is written straight from its bytes. Either way nothing is read or serialized.
+ *
+ * <p>Only applies once the snapshot has loaded: the versions track the snapshot, not mongo.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+  /** The listings this applies to; other endpoints depend on more than the poster collection */
+  public static final String[] PATHS = {
+    "/posters/",
+    "/posters/upcoming",
+    "/posters/upcomingnew",
+    "/posters/archive",
+    "/posters/tag",
+    "/posters/term",
+    "/posters/name"
+  };
+
+  /** Request attribute holding the stamp the response should be cached under */
+  public static final String STAMP_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".stamp";
+
+  /** Request attribute holding the key the response should be cached under */
+  public static final String KEY_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".key";
+
+  private static final String NDJSON = "application/x-ndjson";
+
+  private final FeedResponseCache responseCache;
+  private final PosterCache posterCache;
+
+  public ConditionalGetInterceptor(FeedResponseCache responseCache, PosterCache posterCache) {
+    this.responseCache = responseCache;
+    this.posterCache = posterCache;
+  }
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws IOException {
+    if (!"GET".equals(request.getMethod()) || !this.posterCache.isReady()) {
+      return true;
+    }
+    if (request.getDispatcherType() == DispatcherType.ASYNC) {
+      return true; // the tag was set when the request first came in, before the body was built
+    }
+    String accept = request.getHeader(HttpHeaders.ACCEPT);
+    if (accept != null && accept.contains(NDJSON)) {
+      return true; // exports stream straight from mongo
+    }
+    // read before anything is built: a write landing after this point can only make the tag
+    // older than the body, which costs a refetch later but never serves stale data
+    String stamp = this.responseCache.stamp();
+    String key = request.getRequestURI() + "?" + request.getQueryString();
+    String etag = "W/\"" + stamp + "-" + Integer.toHexString(key.hashCode()) + "\"";
+    response.setHeader(HttpHeaders.ETAG, etag);
+    // clients may keep the body but have to check back with the ETag before reusing it
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return false;
+    }
+    FeedResponseCache.Entry cached = this.responseCache.get(stamp, key);
+    if (cached != null) {
+      write(request, response, cached);
+      return false;
+    }
+    // FeedResponseCacheAdvice files the body under these once it's serialized
+    request.setAttribute(STAMP_ATTRIBUTE, stamp);
+    request.setAttribute(KEY_ATTRIBUTE, key);
+    return true;
+  }
+
+  private static void write(
+      HttpServletRequest request, HttpServletResponse response, FeedResponseCache.Entry cached)
+      throws IOException {
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    if (cached.getNextCursor() != null) {
+      response.setHeader(PosterController.NEXT_CURSOR, cached.getNextCursor());
+    }
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (FeedResponseCache.acceptsGzip(acceptEncoding)) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    byte[] body = cached.bodyFor(acceptEncoding);
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /** Weak comparison against every tag in an If-None-Match header */
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    String opaque = stripWeak(etag);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*") || stripWeak(tag).equals(opaque)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String stripWeak(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+}
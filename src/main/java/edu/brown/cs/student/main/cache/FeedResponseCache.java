@@ -0,0 +1,162 @@
+package edu.brown.cs.student.main.cache;
+
+import edu.brown.cs.student.main.index.PosterTimeIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serialized bodies of the hot poster listings, kept as plain and gzipped bytes so a repeat request
+ * is written straight from a byte array with no Jackson work.
+ *
+ * <p>Entries belong to a generation named by the listing stamp: the collection versions plus the
+ * next time a poster moves between the time-based feeds. As soon as a write lands or that time
+ * passes the stamp changes and the whole previous generation is dropped at once, so cached bytes
+ * never outlive the data or the feed window they were built from. The same stamp makes up the
+ * listings' ETags.
+ */
+@Component
+public class FeedResponseCache {
+  // per generation; parameter sets past this many are served uncached until the next generation
+  private static final int MAX_ENTRIES = 256;
+
+  /** One cached response body */
+  public static final class Entry {
+    private final byte[] body;
+    private final byte[] gzipped;
+    private final String nextCursor;
+
+    private Entry(byte[] body, byte[] gzipped, String nextCursor) {
+      this.body = body;
+      this.gzipped = gzipped;
+      this.nextCursor = nextCursor;
+    }
+
+    /** The body to send, gzipped if the Accept-Encoding header allows it */
+    public byte[] bodyFor(String acceptEncoding) {
+      return acceptsGzip(acceptEncoding) ? this.gzipped : this.body;
+    }
+
+    /** The X-Next-Cursor header that went with the body, or null */
+    public String getNextCursor() {
+      return this.nextCursor;
+    }
+  }
+
+  /** The entries for one stamp */
+  private static final class Generation {
+    private final String stamp;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private Generation(String stamp) {
+      this.stamp = stamp;
+    }
+  }
+
+  private final CollectionVersions versions;
+  private final PosterTimeIndex timeIndex;
+  private volatile Generation generation = new Generation("");
+  private final Counter hits;
+  private final Counter misses;
+
+  public FeedResponseCache(
+      CollectionVersions versions, PosterTimeIndex timeIndex, MeterRegistry meterRegistry) {
+    this.versions = versions;
+    this.timeIndex = timeIndex;
+    this.hits =
+        Counter.builder("posters.response.cache")
+            .tag("result", "hit")
+            .description("Listing responses written from cached bytes")
+            .register(meterRegistry);
+    this.misses =
+        Counter.builder("posters.response.cache")
+            .tag("result", "miss")
+            .description("Listing responses that had to be serialized")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Names the current state of the listings: it changes whenever any listing's response could.
+   * Read it before building a response, so a write landing meanwhile can only make the stamp older
+   * than the body (costing a rebuild later), never newer.
+   */
+  public String stamp() {
+    long posters = this.versions.getPosters();
+    long drafts = this.versions.getDrafts();
+    LocalDateTime nextChange = this.timeIndex.nextChange(LocalDateTime.now());
+    String window =
+        nextChange == null
+            ? "0"
+            : Long.toString(nextChange.toEpochSecond(ZoneOffset.UTC), 36)
+                + "."
+                + Integer.toString(nextChange.getNano(), 36);
+    return this.versions.getEpoch() + "-" + posters + "-" + drafts + "-" + window;
+  }
+
+  /**
+   * Looks up a cached response
+   *
+   * @param stamp the current listing stamp
+   * @param key the request's path and query string
+   * @return the entry, or null if this response hasn't been cached since the stamp changed
+   */
+  public Entry get(String stamp, String key) {
+    Generation current = this.generation;
+    Entry entry = current.stamp.equals(stamp) ? current.entries.get(key) : null;
+    (entry == null ? this.misses : this.hits).increment();
+    return entry;
+  }
+
+  /**
+   * Caches a serialized response. The stamp must have been read before the body was built, so a
+   * body is never filed under a newer stamp than the data it came from.
+   *
+   * @param stamp the listing stamp read when the request came in
+   * @param key the request's path and query string
+   * @param body the serialized JSON
+   * @param nextCursor the X-Next-Cursor header, or null
+   * @return the entry, whether or not it could be cached
+   */
+  public Entry put(String stamp, String key, byte[] body, String nextCursor) {
+    Entry entry = new Entry(body, gzip(body), nextCursor);
+    Generation current = this.generation;
+    if (!current.stamp.equals(stamp)) {
+      synchronized (this) {
+        if (!this.generation.stamp.equals(stamp)) {
+          if (!stamp.equals(this.stamp())) {
+            return entry; // the listings changed while this body was being built
+          }
+          this.generation = new Generation(stamp);
+        }
+        current = this.generation;
+      }
+    }
+    if (current.entries.size() < MAX_ENTRIES) {
+      current.entries.put(key, entry);
+    }
+    return entry;
+  }
+
+  /** Whether an Accept-Encoding header allows a gzipped body */
+  public static boolean acceptsGzip(String acceptEncoding) {
+    return acceptEncoding != null && acceptEncoding.contains("gzip");
+  }
+
+  private static byte[] gzip(byte[] body) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(body);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // can't happen writing to memory
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,91 @@
+package edu.brown.cs.student.main.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.brown.cs.student.main.PosterController;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Fills the FeedResponseCache: when a listing the ConditionalGetInterceptor couldn't answer from
+ * the cache comes back successfully, its body is serialized once here, filed under the stamp read
+ * when the request came in, and written out from the same bytes.
+ */
+@ControllerAdvice(assignableTypes = PosterController.class)
+public class FeedResponseCacheAdvice implements ResponseBodyAdvice<Object> {
+  private final FeedResponseCache responseCache;
+  private final ObjectMapper objectMapper;
+
+  public FeedResponseCacheAdvice(
+      FeedResponseCache responseCache, MappingJackson2HttpMessageConverter jacksonConverter) {
+    this.responseCache = responseCache;
+    this.objectMapper = jacksonConverter.getObjectMapper(); // same output as the converter
+  }
+
+  @Override
+  public boolean supports(
+      MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+  }
+
+  @Override
+  public Object beforeBodyWrite(
+      Object body,
+      MethodParameter returnType,
+      MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+      ServerHttpRequest request,
+      ServerHttpResponse response) {
+    if (body == null
+        || !(request instanceof ServletServerHttpRequest)
+        || !(response instanceof ServletServerHttpResponse)) {
+      return body;
+    }
+    HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+    HttpServletResponse servletResponse =
+        ((ServletServerHttpResponse) response).getServletResponse();
+    Object stamp = servletRequest.getAttribute(ConditionalGetInterceptor.STAMP_ATTRIBUTE);
+    Object key = servletRequest.getAttribute(ConditionalGetInterceptor.KEY_ATTRIBUTE);
+    if (stamp == null || key == null || servletResponse.getStatus() != HttpServletResponse.SC_OK) {
+      return body;
+    }
+    try {
+      byte[] serialized =
+          body instanceof MappingJacksonValue
+              ? this.objectMapper
+                  .writer(((MappingJacksonValue) body).getFilters())
+                  .writeValueAsBytes(((MappingJacksonValue) body).getValue())
+              : this.objectMapper.writeValueAsBytes(body);
+      FeedResponseCache.Entry entry =
+          this.responseCache.put(
+              (String) stamp,
+              (String) key,
+              serialized,
+              response.getHeaders().getFirst(PosterController.NEXT_CURSOR));
+      String acceptEncoding = servletRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+      if (FeedResponseCache.acceptsGzip(acceptEncoding)) {
+        response.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+      }
+      byte[] written = entry.bodyFor(acceptEncoding);
+      response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+      response.getHeaders().setContentLength(written.length);
+      response.getBody().write(written);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return null; // already written
+  }
+}
@@ -0,0 +1,270 @@
+package edu.brown.cs.student.main.cache;
+
+import edu.brown.cs.student.main.index.PosterIndex;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.types.PosterRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process snapshot of the poster collection. Readers get an immutable list and id map that are
+ * swapped atomically (copy-on-write), so reads never lock. Writes made through PosterService are
+ * applied here right after they hit mongo, and a periodic refresh picks up writes made by other
+ * instances. The state of every registered PosterIndex is part of the snapshot, so the posters and
+ * all the indexes change in the same swap.
+ */
+@Component
+public class PosterCache {
+
+  /** An immutable view of the whole poster collection at one point in time */
+  private static final class Snapshot {
+    private final List<Poster> posters;
+    private final Map<String, Poster> byId;
+    private final Object[] indexStates; // indexStates[i] is the state of indexes.get(i)
+    private final long loadedAt;
+    private final long fingerprint; // of the contents, so refreshes that change nothing are spotted
+
+    private Snapshot(
+        Map<String, Poster> byId, Object[] indexStates, long loadedAt, long fingerprint) {
+      this.byId = Collections.unmodifiableMap(byId);
+      this.posters = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+      this.indexStates = indexStates;
+      this.loadedAt = loadedAt;
+      this.fingerprint = fingerprint;
+    }
+  }
+
+  private final PosterRepository posterRepository;
+  private final List<PosterIndex<?>> indexes;
+  private final Object[] emptyIndexStates; // what the indexes read until the first load
+  private final CollectionVersions versions;
+  private final Timer refreshTimer;
+
+  private volatile Snapshot snapshot; // null until the first refresh finishes
+  private final Object writeLock = new Object();
+  // writes that landed while a refresh was reading mongo, replayed on top of the fresh snapshot.
+  // an empty Optional marks a delete
+  private Map<String, Optional<Poster>> writesDuringRefresh;
+  private boolean clearedDuringRefresh;
+
+  @Autowired
+  public PosterCache(
+      PosterRepository posterRepository,
+      List<PosterIndex<?>> indexes,
+      CollectionVersions versions,
+      MeterRegistry meterRegistry) {
+    this.posterRepository = posterRepository;
+    this.indexes = List.copyOf(indexes);
+    this.emptyIndexStates = this.buildIndexes(List.of());
+    for (int slot = 0; slot < this.indexes.size(); slot++) {
+      this.bind(this.indexes.get(slot), slot);
+    }
+    this.versions = versions;
+    this.refreshTimer =
+        Timer.builder("posters.cache.refresh")
+            .description("Time taken to reload the poster snapshot from mongo")
+            .register(meterRegistry);
+    Gauge.builder("posters.cache.age", this, PosterCache::getAgeSeconds)
+        .description("Seconds since the poster snapshot was last reloaded from mongo")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    Gauge.builder("posters.cache.size", this, cache -> cache.getAll().size())
+        .description("Number of posters held in the snapshot")
+        .register(meterRegistry);
+  }
+
+  /** Whether the first load has finished. Until then callers should go to mongo */
+  public boolean isReady() {
+    return this.snapshot != null;
+  }
+
+  /** @return every cached poster (immutable), or an empty list if the cache isn't ready */
+  public List<Poster> getAll() {
+    Snapshot current = this.snapshot;
+    return current == null ? List.of() : current.posters;
+  }
+
+  /** @return the cached poster with this id, if there is one */
+  public Optional<Poster> get(String id) {
+    Snapshot current = this.snapshot;
+    return current == null ? Optional.empty() : Optional.ofNullable(current.byId.get(id));
+  }
+
+  /** Adds or replaces a poster after it has been written to mongo */
+  public void put(Poster poster) {
+    synchronized (this.writeLock) {
+      this.apply(poster.getID(), Optional.of(poster));
+    }
+  }
+
+  /** Drops a poster after it has been deleted from mongo */
+  public void remove(String id) {
+    synchronized (this.writeLock) {
+      this.apply(id, Optional.empty());
+    }
+  }
+
+  /** Empties the snapshot after the whole collection has been deleted */
+  public void clear() {
+    synchronized (this.writeLock) {
+      if (this.writesDuringRefresh != null) {
+        this.writesDuringRefresh.clear();
+        this.clearedDuringRefresh = true;
+      }
+      this.snapshot =
+          new Snapshot(new HashMap<>(), this.emptyIndexStates, System.currentTimeMillis(), 0);
+      this.versions.bumpPosters();
+    }
+  }
+
+  /** Reloads the snapshot from mongo so writes made by other instances show up */
+  @Scheduled(
+      initialDelayString = "${posters.cache.initial-delay-ms:0}",
+      fixedDelayString = "${posters.cache.refresh-ms:30000}")
+  public void refresh() {
+    synchronized (this.writeLock) {
+      this.writesDuringRefresh = new HashMap<>();
+      this.clearedDuringRefresh = false;
+    }
+    try {
+      List<Poster> loaded = this.refreshTimer.recordCallable(this.posterRepository::findAll);
+      Map<String, Poster> byId = new LinkedHashMap<>();
+      long fingerprint = 0;
+      for (Poster poster : loaded) {
+        byId.put(poster.getID(), poster);
+        fingerprint += fingerprint(poster);
+      }
+      synchronized (this.writeLock) {
+        if (this.clearedDuringRefresh) {
+          byId.clear();
+          fingerprint = 0;
+        }
+        for (Map.Entry<String, Optional<Poster>> write : this.writesDuringRefresh.entrySet()) {
+          Poster replaced =
+              write.getValue().isPresent()
+                  ? byId.put(write.getKey(), write.getValue().get())
+                  : byId.remove(write.getKey());
+          fingerprint += changeIn(replaced, write.getValue());
+        }
+        Object[] indexStates = this.buildIndexes(byId.values());
+        Snapshot previous = this.snapshot;
+        this.snapshot = new Snapshot(byId, indexStates, System.currentTimeMillis(), fingerprint);
+        // writes made here already bumped the version; only bump for changes from elsewhere
+        if (previous == null || previous.fingerprint != fingerprint) {
+          this.versions.bumpPosters();
+        }
+      }
+    } catch (Exception e) {
+      // keep serving the previous snapshot; the next refresh will try again
+      System.err.println("Error refreshing poster cache: " + e.getMessage());
+    } finally {
+      synchronized (this.writeLock) {
+        this.writesDuringRefresh = null;
+      }
+    }
+  }
+
+  /** Must be called while holding writeLock */
+  private void apply(String id, Optional<Poster> poster) {
+    if (this.writesDuringRefresh != null) {
+      this.writesDuringRefresh.put(id, poster);
+    }
+    Snapshot current = this.snapshot;
+    if (current == null) {
+      return; // the in-flight first load will pick this up via writesDuringRefresh
+    }
+    Map<String, Poster> byId = new LinkedHashMap<>(current.byId);
+    Poster previous = poster.isPresent() ? byId.put(id, poster.get()) : byId.remove(id);
+    Object[] indexStates = new Object[this.indexes.size()];
+    for (int slot = 0; slot < indexStates.length; slot++) {
+      indexStates[slot] =
+          update(this.indexes.get(slot), current.indexStates[slot], previous, poster.orElse(null));
+    }
+    // readers see the write in the posters and every index at once, or not at all
+    this.snapshot =
+        new Snapshot(
+            byId,
+            indexStates,
+            current.loadedAt,
+            current.fingerprint + changeIn(previous, poster));
+    this.versions.bumpPosters();
+  }
+
+  /** Points an index at its slot of the current snapshot */
+  @SuppressWarnings("unchecked") // each slot only ever holds states built by its own index
+  private <S> void bind(PosterIndex<S> index, int slot) {
+    index.bind(
+        () -> {
+          Snapshot current = this.snapshot;
+          return (S) (current == null ? this.emptyIndexStates : current.indexStates)[slot];
+        });
+  }
+
+  private Object[] buildIndexes(Collection<Poster> posters) {
+    Object[] indexStates = new Object[this.indexes.size()];
+    for (int slot = 0; slot < indexStates.length; slot++) {
+      indexStates[slot] = this.indexes.get(slot).build(posters);
+    }
+    return indexStates;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <S> S update(
+      PosterIndex<S> index, Object state, Poster previous, Poster updated) {
+    return index.update((S) state, previous, updated);
+  }
+
+  /** How the fingerprint moves when the previous poster (or null) is replaced by a new one */
+  private static long changeIn(Poster previous, Optional<Poster> poster) {
+    long change = poster.isPresent() ? fingerprint(poster.get()) : 0;
+    return previous == null ? change : change - fingerprint(previous);
+  }
+
+  /**
+   * Hashes the stored fields of a poster. Summed over the collection this gives an order
+   * independent fingerprint, so a refresh that loads exactly what was there before doesn't count as
+   * a change.
+   */
+  private static long fingerprint(Poster poster) {
+    long hash =
+        Objects.hash(
+            poster.getID(),
+            poster.getTitle(),
+            poster.getContent(),
+            poster.getDescription(),
+            poster.getTags(),
+            poster.getLink(),
+            poster.getLocation(),
+            poster.getCreatedAt(),
+            poster.getStartDate(),
+            poster.getEndDate(),
+            poster.getUserId(),
+            poster.getAuthorName(),
+            poster.getIsRecurring(),
+            poster.getIsDraft());
+    // spread the 32 bit hash over 64 bits so sums of many posters don't cancel out as easily
+    return hash * 0x9E3779B97F4A7C15L + (hash >>> 16);
+  }
+
+  private double getAgeSeconds() {
+    Snapshot current = this.snapshot;
+    if (current == null) {
+      return Double.NaN;
+    }
+    return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - current.loadedAt);
+  }
+}
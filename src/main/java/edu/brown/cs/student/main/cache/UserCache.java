@@ -0,0 +1,73 @@
+package edu.brown.cs.student.main.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.brown.cs.student.main.user.User;
+import edu.brown.cs.student.main.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whole users by id, so the same user isn't read from mongo on every request. Bounded by
+ * posters.user-cache.max-size (Caffeine evicts the users least likely to be used again) and
+ * posters.user-cache.ttl-ms, which also bounds how long a change made by another instance can go
+ * unseen. UserService puts users here after writing them whole and drops them after changing only
+ * some of their fields. Hits, misses and evictions are reported as the cache.* metrics tagged
+ * cache=users.
+ *
+ * <p>Cached users are shared between requests and must not be changed.
+ */
+@Component
+public class UserCache {
+  private final UserRepository userRepository;
+  private final Cache<String, User> users;
+
+  public UserCache(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${posters.user-cache.max-size:10000}") long maxSize,
+      @Value("${posters.user-cache.ttl-ms:120000}") long ttlMs) {
+    this.userRepository = userRepository;
+    this.users =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMillis(ttlMs))
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, this.users, "users");
+  }
+
+  /**
+   * A user from the cache, or from mongo if it isn't cached. Concurrent misses for the same user
+   * share one read.
+   */
+  public Optional<User> get(String id) {
+    if (id == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(
+        this.users.get(id, missing -> this.userRepository.findById(missing).orElse(null)));
+  }
+
+  /** A user if it's cached, without going to mongo */
+  public Optional<User> getIfPresent(String id) {
+    return id == null ? Optional.empty() : Optional.ofNullable(this.users.getIfPresent(id));
+  }
+
+  /** Caches a whole user just written to mongo */
+  public void put(User user) {
+    this.users.put(user.getId(), user);
+  }
+
+  /**
+   * Drops a user after a write to mongo changed it. A read of the user that's still in progress
+   * finishes first, so it can't put back the user as it was before the write.
+   */
+  public void invalidate(String id) {
+    this.users.invalidate(id);
+  }
+}
@@ -2,9 +2,11 @@ package edu.brown.cs.student.main.imgur;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.brown.cs.student.main.AsyncConfig;
 import edu.brown.cs.student.main.responses.ServiceResponse;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
@@ -12,6 +14,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -26,6 +29,12 @@ public class ImgurService {
   @Autowired
   public ImgurService() {}
 
+  /** uploadToImgur on the upload executor, so slow uploads don't hold request threads */
+  @Async(AsyncConfig.UPLOADS)
+  public CompletableFuture<ServiceResponse<String>> upload(MultipartFile file) {
+    return CompletableFuture.completedFuture(this.uploadToImgur(file));
+  }
+
   public ServiceResponse<String> uploadToImgur(MultipartFile file) {
     ServiceResponse<String> response = new ServiceResponse<>("hi");
 
@@ -0,0 +1,77 @@
+package edu.brown.cs.student.main.index;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/** Posters grouped by the id of the user who created them */
+@Component
+public class AuthorIndex implements PosterIndex<Map<String, Map<String, Poster>>> {
+
+  private volatile Supplier<Map<String, Map<String, Poster>>> current = Map::of;
+
+  @Override
+  public void bind(Supplier<Map<String, Map<String, Poster>>> current) {
+    this.current = current;
+  }
+
+  @Override
+  public Map<String, Map<String, Poster>> build(Collection<Poster> posters) {
+    Map<String, Map<String, Poster>> byUser = new HashMap<>();
+    for (Poster poster : posters) {
+      if (poster.getUserId() != null) {
+        byUser
+            .computeIfAbsent(poster.getUserId(), userId -> new HashMap<>())
+            .put(poster.getID(), poster);
+      }
+    }
+    return byUser;
+  }
+
+  @Override
+  public Map<String, Map<String, Poster>> update(
+      Map<String, Map<String, Poster>> byUser, Poster previous, Poster updated) {
+    // only the maps of the authors involved are copied; the others are shared
+    Map<String, Map<String, Poster>> copy = new HashMap<>(byUser);
+    if (previous != null && previous.getUserId() != null) {
+      Map<String, Poster> posters =
+          new HashMap<>(copy.getOrDefault(previous.getUserId(), Map.of()));
+      posters.remove(previous.getID());
+      if (posters.isEmpty()) {
+        copy.remove(previous.getUserId());
+      } else {
+        copy.put(previous.getUserId(), posters);
+      }
+    }
+    if (updated != null && updated.getUserId() != null) {
+      Map<String, Poster> posters =
+          new HashMap<>(copy.getOrDefault(updated.getUserId(), Map.of()));
+      posters.put(updated.getID(), updated);
+      copy.put(updated.getUserId(), posters);
+    }
+    return copy;
+  }
+
+  /**
+   * Gets the posters created by any of the given users, in no particular order
+   *
+   * @param userIds the ids of the authors
+   * @return their posters
+   */
+  public List<Poster> byUsers(Collection<String> userIds) {
+    Map<String, Map<String, Poster>> current = this.current.get();
+    List<Poster> found = new ArrayList<>();
+    for (String userId : userIds) {
+      Map<String, Poster> posters = current.get(userId);
+      if (posters != null) {
+        found.addAll(posters.values());
+      }
+    }
+    return found;
+  }
+}
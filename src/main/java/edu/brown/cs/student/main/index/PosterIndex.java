@@ -0,0 +1,31 @@
+package edu.brown.cs.student.main.index;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * A secondary in-memory index over the poster snapshot. The index's contents are an immutable state
+ * of type S that PosterCache keeps in its snapshot next to the posters, so a write reaches the
+ * posters and every index in the same swap and readers never see it in one but not another.
+ *
+ * @param <S> the index's state; a published state is never modified
+ */
+public interface PosterIndex<S> {
+
+  /** Builds the state holding exactly the given posters (called on every snapshot reload) */
+  S build(Collection<Poster> posters);
+
+  /**
+   * Builds the state after a single write, leaving the given state as it was
+   *
+   * @param state the current state
+   * @param previous the poster being replaced or deleted, or null for a new poster
+   * @param updated the poster as written, or null for a delete
+   * @return the new state
+   */
+  S update(S state, Poster previous, Poster updated);
+
+  /** Called once by PosterCache with where to read the current state from */
+  void bind(Supplier<S> current);
+}
@@ -0,0 +1,171 @@
+package edu.brown.cs.student.main.index;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the snapshot sorted by start date and create date in concurrent skip lists keyed by (time,
+ * id). "Upcoming" is then a tail view and "archive" a head view of the start date list, and a
+ * page cursor is just the key to seek to, so a page of k posters costs O(log n + k) instead of a
+ * filter and a full sort per request. All views are lazy streams, so callers that limit them only
+ * walk the entries they return. A published set of maps is never modified: a write copies them
+ * (linear, since they are copied in order) and PosterCache publishes the copy.
+ */
+@Component
+public class PosterTimeIndex implements PosterIndex<PosterTimeIndex.Maps> {
+
+  /** The sorted maps */
+  static final class Maps {
+    private final ConcurrentSkipListMap<TimeKey, Poster> byStart;
+    private final ConcurrentSkipListMap<TimeKey, Poster> byCreated;
+    private final ConcurrentSkipListMap<TimeKey, Poster> byEnd;
+    // posters whose end date is before their start date (or that only have an end date), keyed by
+    // end date. these are the only archived posters the start date head view can miss
+    private final ConcurrentSkipListMap<TimeKey, Poster> endsBeforeStart;
+
+    private Maps() {
+      this.byStart = new ConcurrentSkipListMap<>();
+      this.byCreated = new ConcurrentSkipListMap<>();
+      this.byEnd = new ConcurrentSkipListMap<>();
+      this.endsBeforeStart = new ConcurrentSkipListMap<>();
+    }
+
+    private Maps(Maps copied) {
+      this.byStart = new ConcurrentSkipListMap<>(copied.byStart);
+      this.byCreated = new ConcurrentSkipListMap<>(copied.byCreated);
+      this.byEnd = new ConcurrentSkipListMap<>(copied.byEnd);
+      this.endsBeforeStart = new ConcurrentSkipListMap<>(copied.endsBeforeStart);
+    }
+
+    private void add(Poster poster) {
+      put(this.byStart, poster, Poster::getStartDate);
+      put(this.byCreated, poster, Poster::getCreatedAt);
+      put(this.byEnd, poster, Poster::getEndDate);
+      if (endsBeforeStart(poster)) {
+        put(this.endsBeforeStart, poster, Poster::getEndDate);
+      }
+    }
+
+    private void remove(Poster poster) {
+      delete(this.byStart, poster, Poster::getStartDate);
+      delete(this.byCreated, poster, Poster::getCreatedAt);
+      delete(this.byEnd, poster, Poster::getEndDate);
+      if (endsBeforeStart(poster)) {
+        delete(this.endsBeforeStart, poster, Poster::getEndDate);
+      }
+    }
+
+    private static boolean endsBeforeStart(Poster poster) {
+      return poster.getEndDate() != null
+          && (poster.getStartDate() == null || poster.getEndDate().isBefore(poster.getStartDate()));
+    }
+
+    private static void put(
+        ConcurrentSkipListMap<TimeKey, Poster> map,
+        Poster poster,
+        Function<Poster, LocalDateTime> time) {
+      if (time.apply(poster) != null) {
+        map.put(TimeKey.of(time.apply(poster), poster.getID()), poster);
+      }
+    }
+
+    private static void delete(
+        ConcurrentSkipListMap<TimeKey, Poster> map,
+        Poster poster,
+        Function<Poster, LocalDateTime> time) {
+      if (time.apply(poster) != null) {
+        map.remove(TimeKey.of(time.apply(poster), poster.getID()));
+      }
+    }
+  }
+
+  private static final Maps EMPTY = new Maps();
+
+  private volatile Supplier<Maps> current = () -> EMPTY;
+
+  @Override
+  public void bind(Supplier<Maps> current) {
+    this.current = current;
+  }
+
+  @Override
+  public Maps build(Collection<Poster> posters) {
+    Maps built = new Maps();
+    posters.forEach(built::add);
+    return built;
+  }
+
+  @Override
+  public Maps update(Maps maps, Poster previous, Poster updated) {
+    Maps copy = new Maps(maps);
+    if (previous != null) {
+      copy.remove(previous);
+    }
+    if (updated != null) {
+      copy.add(updated);
+    }
+    return copy;
+  }
+
+  /** Posters starting strictly after now, soonest first */
+  public Stream<Poster> upcoming(LocalDateTime now) {
+    return this.startingAfter(TimeKey.after(now));
+  }
+
+  /** Posters sorted strictly after the given (start date, id) key, soonest first */
+  public Stream<Poster> startingAfter(TimeKey from) {
+    return this.current.get().byStart.tailMap(from, false).values().stream();
+  }
+
+  /** Posters sorted strictly before the given (start date, id) key, most recent first */
+  public Stream<Poster> startingBefore(TimeKey to) {
+    return this.current.get().byStart.headMap(to, false).descendingMap().values().stream();
+  }
+
+  /**
+   * Posters sorted strictly before the given (create date, id) key, most recently created first
+   *
+   * @param to the key to start below, or null to start from the newest poster
+   */
+  public Stream<Poster> createdBefore(TimeKey to) {
+    ConcurrentSkipListMap<TimeKey, Poster> byCreated = this.current.get().byCreated;
+    return (to == null ? byCreated : byCreated.headMap(to, false))
+        .descendingMap().values().stream();
+  }
+
+  /**
+   * The first start or end date at or after now. Which feed a poster belongs to only depends on
+   * where now falls relative to its dates, so until this time passes (or a poster is written) every
+   * time-based feed stays the same.
+   *
+   * @param now the time the feeds are read at
+   * @return the next time a poster moves between feeds, or null if no dates are ahead
+   */
+  public LocalDateTime nextChange(LocalDateTime now) {
+    Maps current = this.current.get();
+    TimeKey nextStart = current.byStart.ceilingKey(TimeKey.before(now));
+    TimeKey nextEnd = current.byEnd.ceilingKey(TimeKey.before(now));
+    if (nextStart == null || nextEnd == null) {
+      return nextStart != null ? nextStart.getTime() : nextEnd == null ? null : nextEnd.getTime();
+    }
+    return nextStart.compareTo(nextEnd) <= 0 ? nextStart.getTime() : nextEnd.getTime();
+  }
+
+  /**
+   * Posters whose end date has passed but whose start date hasn't (or is missing). These are the
+   * only archived posters a walk down the start date list from now would miss.
+   */
+  public List<Poster> endedBeforeStarting(LocalDateTime now) {
+    return this.current.get().endsBeforeStart.headMap(TimeKey.before(now)).values().stream()
+        .filter(poster -> poster.getStartDate() == null || !poster.getStartDate().isBefore(now))
+        .collect(Collectors.toList());
+  }
+}
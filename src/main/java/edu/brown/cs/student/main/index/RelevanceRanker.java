@@ -0,0 +1,75 @@
+package edu.brown.cs.student.main.index;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Orders posters by relevance score (highest first), breaking ties by start date and then id. Each
+ * candidate is scored exactly once; with a limit only the best k are kept in a bounded heap, so
+ * ranking n candidates costs O(n log k) instead of a full sort.
+ */
+public final class RelevanceRanker {
+
+  /** A poster with its score computed, so comparisons never recompute it */
+  private static final class Scored {
+    private final Poster poster;
+    private final int score;
+
+    private Scored(Poster poster, int score) {
+      this.poster = poster;
+      this.score = score;
+    }
+  }
+
+  private static final Comparator<Scored> BEST_FIRST =
+      Comparator.<Scored>comparingInt(scored -> -scored.score)
+          .thenComparing(
+              scored -> scored.poster.getStartDate(),
+              Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+          .thenComparing(scored -> scored.poster.getID());
+
+  private RelevanceRanker() {}
+
+  /**
+   * Ranks the candidates in one pass
+   *
+   * @param candidates the posters to rank
+   * @param scores computes a poster's relevance score
+   * @param limit how many posters to return, or 0 or less for all of them
+   * @return the best posters, best first
+   */
+  public static List<Poster> rank(
+      Stream<Poster> candidates, ToIntFunction<Poster> scores, int limit) {
+    List<Scored> ranked;
+    if (limit > 0) {
+      // the head of the heap is the worst poster kept so far
+      PriorityQueue<Scored> best = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+      candidates.forEach(
+          poster -> {
+            Scored scored = new Scored(poster, scores.applyAsInt(poster));
+            if (best.size() < limit) {
+              best.add(scored);
+            } else if (BEST_FIRST.compare(scored, best.peek()) < 0) {
+              best.poll();
+              best.add(scored);
+            }
+          });
+      ranked = new ArrayList<>(best);
+    } else {
+      ranked = new ArrayList<>();
+      candidates.forEach(poster -> ranked.add(new Scored(poster, scores.applyAsInt(poster))));
+    }
+    ranked.sort(BEST_FIRST);
+    List<Poster> posters = new ArrayList<>(ranked.size());
+    for (Scored scored : ranked) {
+      posters.add(scored.poster);
+    }
+    return posters;
+  }
+}
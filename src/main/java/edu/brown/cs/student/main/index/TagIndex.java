@@ -0,0 +1,178 @@
+package edu.brown.cs.student.main.index;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inverted index from tag to a compressed bitmap of poster ordinals. Every poster in the snapshot
+ * gets a dense int ordinal, so a multi-tag query is an AND over a handful of small bitmaps instead
+ * of a containsAll check against every poster.
+ *
+ * <p>A published state is never mutated, so readers can intersect its bitmaps without locking: a
+ * write copies the maps, clones just the bitmaps of the tags it touches and hands the new state to
+ * PosterCache. Ordinals are never reused between rebuilds, which keeps a stale bitmap from pointing
+ * at the wrong poster; the periodic rebuild compacts them.
+ */
+@Component
+public class TagIndex implements PosterIndex<TagIndex.State> {
+
+  /** Everything the index holds */
+  static final class State {
+    private final Map<String, Integer> ordinals;
+    private final Map<Integer, Poster> posters;
+    private final Map<String, RoaringBitmap> bitmaps;
+    private final int nextOrdinal;
+
+    private State(
+        Map<String, Integer> ordinals,
+        Map<Integer, Poster> posters,
+        Map<String, RoaringBitmap> bitmaps,
+        int nextOrdinal) {
+      this.ordinals = ordinals;
+      this.posters = posters;
+      this.bitmaps = bitmaps;
+      this.nextOrdinal = nextOrdinal;
+    }
+  }
+
+  private static final State EMPTY = new State(Map.of(), Map.of(), Map.of(), 0);
+
+  private volatile Supplier<State> current = () -> EMPTY;
+
+  @Override
+  public void bind(Supplier<State> current) {
+    this.current = current;
+  }
+
+  @Override
+  public State build(Collection<Poster> posters) {
+    Map<String, Integer> ordinals = new HashMap<>();
+    Map<Integer, Poster> byOrdinal = new HashMap<>();
+    Map<String, RoaringBitmap> bitmaps = new HashMap<>();
+    int nextOrdinal = 0;
+    for (Poster poster : posters) {
+      int ordinal = nextOrdinal++;
+      ordinals.put(poster.getID(), ordinal);
+      byOrdinal.put(ordinal, poster);
+      if (poster.getTags() != null) {
+        for (String tag : poster.getTags()) {
+          bitmaps.computeIfAbsent(tag, t -> new RoaringBitmap()).add(ordinal);
+        }
+      }
+    }
+    bitmaps.values().forEach(RoaringBitmap::runOptimize);
+    return new State(ordinals, byOrdinal, bitmaps, nextOrdinal);
+  }
+
+  @Override
+  public State update(State state, Poster previous, Poster updated) {
+    Map<String, Integer> ordinals = new HashMap<>(state.ordinals);
+    Map<Integer, Poster> posters = new HashMap<>(state.posters);
+    Map<String, RoaringBitmap> bitmaps = new HashMap<>(state.bitmaps);
+    int nextOrdinal = state.nextOrdinal;
+    if (previous != null) {
+      Integer ordinal = ordinals.remove(previous.getID());
+      if (ordinal != null) {
+        posters.remove(ordinal);
+        if (previous.getTags() != null) {
+          for (String tag : previous.getTags()) {
+            RoaringBitmap existing = bitmaps.get(tag);
+            if (existing != null) {
+              RoaringBitmap changed = existing.clone();
+              changed.remove(ordinal);
+              if (changed.isEmpty()) {
+                bitmaps.remove(tag);
+              } else {
+                bitmaps.put(tag, changed);
+              }
+            }
+          }
+        }
+      }
+    }
+    if (updated != null) {
+      int ordinal = nextOrdinal++;
+      posters.put(ordinal, updated);
+      ordinals.put(updated.getID(), ordinal);
+      if (updated.getTags() != null) {
+        for (String tag : updated.getTags()) {
+          RoaringBitmap changed =
+              bitmaps.containsKey(tag) ? bitmaps.get(tag).clone() : new RoaringBitmap();
+          changed.add(ordinal);
+          bitmaps.put(tag, changed);
+        }
+      }
+    }
+    return new State(ordinals, posters, bitmaps, nextOrdinal);
+  }
+
+  /**
+   * Finds every poster that has all of the given tags
+   *
+   * @param tags the tags to intersect (an empty collection matches every poster)
+   * @return the matching posters, in no particular order
+   */
+  public List<Poster> withAllTags(Collection<String> tags) {
+    State current = this.current.get();
+    if (tags.isEmpty()) {
+      return new ArrayList<>(current.posters.values());
+    }
+    RoaringBitmap[] toIntersect = new RoaringBitmap[tags.size()];
+    int i = 0;
+    for (String tag : tags) {
+      RoaringBitmap bitmap = current.bitmaps.get(tag);
+      if (bitmap == null) {
+        return List.of(); // an unknown tag can't match anything
+      }
+      toIntersect[i++] = bitmap;
+    }
+    RoaringBitmap matches =
+        toIntersect.length == 1 ? toIntersect[0] : FastAggregation.and(toIntersect);
+    List<Poster> posters = new ArrayList<>(matches.getCardinality());
+    matches.forEach(
+        (int ordinal) -> {
+          Poster poster = current.posters.get(ordinal);
+          if (poster != null) {
+            posters.add(poster);
+          }
+        });
+    return posters;
+  }
+
+  /**
+   * Builds a scorer that counts how many of the given tags a poster has. The counts come from one
+   * pass over each tag's bitmap, so scoring a poster afterwards is a lookup, not an intersection.
+   *
+   * @param tags the tags to count (e.g. a user's interests)
+   * @return the number of those tags each poster has (0 for posters the index doesn't know)
+   */
+  public ToIntFunction<Poster> tagCounter(Collection<String> tags) {
+    State current = this.current.get();
+    List<RoaringBitmap> bitmaps = new ArrayList<>();
+    int size = 0;
+    for (String tag : tags) {
+      RoaringBitmap bitmap = current.bitmaps.get(tag);
+      if (bitmap != null && !bitmap.isEmpty()) {
+        bitmaps.add(bitmap);
+        size = Math.max(size, bitmap.last() + 1);
+      }
+    }
+    int[] counts = new int[size];
+    for (RoaringBitmap bitmap : bitmaps) {
+      bitmap.forEach((int ordinal) -> counts[ordinal]++);
+    }
+    return poster -> {
+      Integer ordinal = current.ordinals.get(poster.getID());
+      return ordinal == null || ordinal >= counts.length ? 0 : counts[ordinal];
+    };
+  }
+}
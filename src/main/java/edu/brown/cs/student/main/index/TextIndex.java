@@ -0,0 +1,252 @@
+package edu.brown.cs.student.main.index;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Full-text index used by term search. Each poster's search text (title, description, tags and
+ * author name, see Poster.returnHaystack) is lowercased and split into overlapping trigrams, and
+ * every trigram keeps a postings list of (poster, positions). A term of length m matches a poster
+ * exactly when its m - 2 trigrams occur at consecutive positions, which is the same substring test
+ * BMSearch ran on the full text, so existing clients see the same matches. Terms shorter than a
+ * trigram fall back to a scan of the cached (already lowercased) text.
+ *
+ * <p>The bulk of the index is an immutable segment built on every snapshot rebuild. Writes between
+ * rebuilds go into a small delta of per-poster entries, and replaced or deleted posters are masked
+ * out of the segment by id until the next rebuild folds everything back together. A write copies
+ * only the delta and the mask; the segment is shared between states.
+ */
+@Component
+public class TextIndex implements PosterIndex<TextIndex.State> {
+
+  private static final int GRAM = 3;
+
+  /** Postings for one trigram, as flat arrays so millions of positions stay cheap */
+  private static final class Postings {
+    private int[] docs = new int[4]; // sorted ordinals
+    private int[] offsets = new int[5]; // positions of docs[i] are positions[offsets[i]..offsets[i+1])
+    private int[] positions = new int[4];
+    private int docCount;
+    private int positionCount;
+
+    private void add(int doc, int position) {
+      if (this.docCount == 0 || this.docs[this.docCount - 1] != doc) {
+        if (this.docCount == this.docs.length) {
+          this.docs = Arrays.copyOf(this.docs, this.docCount * 2);
+          this.offsets = Arrays.copyOf(this.offsets, this.docCount * 2 + 1);
+        }
+        this.docs[this.docCount] = doc;
+        this.offsets[this.docCount] = this.positionCount;
+        this.docCount++;
+      }
+      if (this.positionCount == this.positions.length) {
+        this.positions = Arrays.copyOf(this.positions, this.positionCount * 2);
+      }
+      this.positions[this.positionCount++] = position;
+    }
+
+    private void seal() {
+      this.docs = Arrays.copyOf(this.docs, this.docCount);
+      this.offsets = Arrays.copyOf(this.offsets, this.docCount + 1);
+      this.offsets[this.docCount] = this.positionCount;
+      this.positions = Arrays.copyOf(this.positions, this.positionCount);
+    }
+
+    /** Index of doc in docs, or a negative number if this trigram never occurs in it */
+    private int find(int doc) {
+      return Arrays.binarySearch(this.docs, 0, this.docCount, doc);
+    }
+
+    private boolean hasPosition(int docIndex, int position) {
+      return Arrays.binarySearch(
+              this.positions, this.offsets[docIndex], this.offsets[docIndex + 1], position)
+          >= 0;
+    }
+  }
+
+  /** The immutable part of the index, built in one pass on rebuild */
+  private static final class Segment {
+    private final Poster[] posters;
+    private final String[] texts;
+    private final Map<Long, Postings> postings;
+
+    private Segment(Poster[] posters, String[] texts, Map<Long, Postings> postings) {
+      this.posters = posters;
+      this.texts = texts;
+      this.postings = postings;
+    }
+  }
+
+  /** A poster written since the last rebuild */
+  private static final class Entry {
+    private final Poster poster;
+    private final String text;
+
+    private Entry(Poster poster, String text) {
+      this.poster = poster;
+      this.text = text;
+    }
+  }
+
+  /** A segment plus the writes made since it was built */
+  static final class State {
+    private final Segment segment;
+    private final Map<String, Entry> delta;
+    private final Set<String> maskedIds;
+
+    private State(Segment segment, Map<String, Entry> delta, Set<String> maskedIds) {
+      this.segment = segment;
+      this.delta = delta;
+      this.maskedIds = maskedIds;
+    }
+  }
+
+  private static final State EMPTY =
+      new State(new Segment(new Poster[0], new String[0], Map.of()), Map.of(), Set.of());
+
+  private volatile Supplier<State> current = () -> EMPTY;
+
+  @Override
+  public void bind(Supplier<State> current) {
+    this.current = current;
+  }
+
+  @Override
+  public State build(Collection<Poster> posters) {
+    Poster[] docs = posters.toArray(new Poster[0]);
+    String[] texts = new String[docs.length];
+    Map<Long, Postings> postings = new HashMap<>();
+    for (int doc = 0; doc < docs.length; doc++) {
+      texts[doc] = searchText(docs[doc]);
+      String text = texts[doc];
+      for (int position = 0; position + GRAM <= text.length(); position++) {
+        postings.computeIfAbsent(gram(text, position), g -> new Postings()).add(doc, position);
+      }
+    }
+    postings.values().forEach(Postings::seal);
+    return new State(new Segment(docs, texts, postings), Map.of(), Set.of());
+  }
+
+  @Override
+  public State update(State state, Poster previous, Poster updated) {
+    Map<String, Entry> delta = new HashMap<>(state.delta);
+    Set<String> maskedIds = new HashSet<>(state.maskedIds);
+    if (previous != null) {
+      maskedIds.add(previous.getID());
+      delta.remove(previous.getID());
+    }
+    if (updated != null) {
+      delta.put(updated.getID(), new Entry(updated, searchText(updated)));
+    }
+    return new State(state.segment, delta, maskedIds);
+  }
+
+  /**
+   * Finds every poster whose search text contains the term, ignoring case
+   *
+   * @param term the keyword or phrase to search for
+   * @return the matching posters, in no particular order
+   */
+  public List<Poster> search(String term) {
+    List<Poster> matches = new ArrayList<>();
+    if (term == null || term.isEmpty()) {
+      return matches; // same as BMSearch, which never matches an empty needle
+    }
+    String needle = term.toLowerCase();
+    State currentState = this.current.get();
+    Segment current = currentState.segment;
+    Set<String> currentMask = currentState.maskedIds;
+
+    if (needle.length() < GRAM) {
+      for (int doc = 0; doc < current.posters.length; doc++) {
+        if (current.texts[doc].contains(needle)
+            && !currentMask.contains(current.posters[doc].getID())) {
+          matches.add(current.posters[doc]);
+        }
+      }
+    } else {
+      for (int doc : this.segmentMatches(current, needle)) {
+        if (!currentMask.contains(current.posters[doc].getID())) {
+          matches.add(current.posters[doc]);
+        }
+      }
+    }
+    // the delta only holds posters written since the last rebuild, so a plain scan is cheap
+    for (Entry entry : currentState.delta.values()) {
+      if (entry.text.contains(needle)) {
+        matches.add(entry.poster);
+      }
+    }
+    return matches;
+  }
+
+  /** Positional trigram match of a needle (at least GRAM long) against the segment */
+  private List<Integer> segmentMatches(Segment current, String needle) {
+    int gramCount = needle.length() - GRAM + 1;
+    Postings[] lists = new Postings[gramCount];
+    Postings rarest = null;
+    for (int i = 0; i < gramCount; i++) {
+      lists[i] = current.postings.get(gram(needle, i));
+      if (lists[i] == null) {
+        return List.of(); // a trigram that never occurs anywhere
+      }
+      if (rarest == null || lists[i].docCount < rarest.docCount) {
+        rarest = lists[i];
+      }
+    }
+
+    // distinct trigrams are enough to narrow the candidates; positions settle the rest
+    Set<Postings> distinct = new LinkedHashSet<>(Arrays.asList(lists));
+    List<Integer> found = new ArrayList<>();
+    int[] docIndexes = new int[gramCount];
+    for (int r = 0; r < rarest.docCount; r++) {
+      int doc = rarest.docs[r];
+      boolean candidate = true;
+      for (Postings list : distinct) {
+        if (list.find(doc) < 0) {
+          candidate = false;
+          break;
+        }
+      }
+      if (!candidate) {
+        continue;
+      }
+      for (int i = 0; i < gramCount; i++) {
+        docIndexes[i] = lists[i].find(doc);
+      }
+      Postings first = lists[0];
+      for (int p = first.offsets[docIndexes[0]]; p < first.offsets[docIndexes[0] + 1]; p++) {
+        int start = first.positions[p];
+        boolean consecutive = true;
+        for (int i = 1; i < gramCount && consecutive; i++) {
+          consecutive = lists[i].hasPosition(docIndexes[i], start + i);
+        }
+        if (consecutive) {
+          found.add(doc);
+          break;
+        }
+      }
+    }
+    return found;
+  }
+
+  private static String searchText(Poster poster) {
+    return poster.returnHaystack().toLowerCase();
+  }
+
+  private static long gram(String text, int position) {
+    return ((long) text.charAt(position) << 32)
+        | ((long) text.charAt(position + 1) << 16)
+        | text.charAt(position + 2);
+  }
+}
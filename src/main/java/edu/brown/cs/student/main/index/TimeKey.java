@@ -0,0 +1,75 @@
+package edu.brown.cs.student.main.index;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Sort key for the time-ordered indexes: a timestamp with the poster id as a tie breaker, so two
+ * posters at the same time never collide. Bound keys sort before or after every real key with the
+ * same timestamp and are only used to slice the indexes.
+ */
+public final class TimeKey implements Comparable<TimeKey> {
+  private static final int LOW = -1;
+  private static final int REAL = 0;
+  private static final int HIGH = 1;
+
+  private final LocalDateTime time;
+  private final String id;
+  private final int bound;
+
+  private TimeKey(LocalDateTime time, String id, int bound) {
+    this.time = time;
+    this.id = id;
+    this.bound = bound;
+  }
+
+  public static TimeKey of(LocalDateTime time, String id) {
+    return new TimeKey(time, id, REAL);
+  }
+
+  /** A key that sorts before every real key at this time */
+  public static TimeKey before(LocalDateTime time) {
+    return new TimeKey(time, null, LOW);
+  }
+
+  /** A key that sorts after every real key at this time */
+  public static TimeKey after(LocalDateTime time) {
+    return new TimeKey(time, null, HIGH);
+  }
+
+  public LocalDateTime getTime() {
+    return this.time;
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  @Override
+  public int compareTo(TimeKey other) {
+    int byTime = this.time.compareTo(other.time);
+    if (byTime != 0) {
+      return byTime;
+    }
+    if (this.bound != REAL || other.bound != REAL) {
+      return Integer.compare(this.bound, other.bound);
+    }
+    return this.id.compareTo(other.id);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (!(object instanceof TimeKey)) {
+      return false;
+    }
+    TimeKey other = (TimeKey) object;
+    return this.bound == other.bound
+        && this.time.equals(other.time)
+        && Objects.equals(this.id, other.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.time, this.id, this.bound);
+  }
+}
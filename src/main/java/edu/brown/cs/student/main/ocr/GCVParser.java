@@ -1,12 +1,15 @@
 package edu.brown.cs.student.main.ocr;
 
 import com.google.cloud.vision.v1.EntityAnnotation;
-import edu.brown.cs.student.main.BMSearch;
-import edu.brown.cs.student.main.Tags;
 import java.time.LocalDateTime;
 import java.util.*;
 
 public class GCVParser {
+  private final TagMatcher tagMatcher;
+
+  public GCVParser(TagMatcher tagMatcher) {
+    this.tagMatcher = tagMatcher;
+  }
 
   public HashMap parseResult(List<EntityAnnotation> result) {
     String title = this.extractTitle(result);
@@ -102,26 +105,14 @@ public class GCVParser {
     return null;
   }
 
+  /**
+   * Finds the tags whose keywords appear in the words, in one pass over the text using the shared
+   * keyword automaton
+   *
+   * @param words the words of the poster text
+   * @return the suggested tags
+   */
   private HashSet<String> extractTags(String[] words) {
-    BMSearch searcher = new BMSearch();
-    Tags tagObj = new Tags();
-    HashMap<String, List<String>> tags = tagObj.getJumboTags();
-    HashSet<String> toReturn = new HashSet<>();
-
-    for (String word : words) {
-      if (word.length() > 2) {
-        for (String tag : tags.keySet()) {
-          List<String> tagLine = tags.get(tag);
-          for (String tagWord : tagLine) {
-            if (word.toLowerCase().contains(tagWord)) {
-              toReturn.add(tag);
-              break;
-            }
-          }
-        }
-      }
-    }
-
-    return toReturn;
+    return this.tagMatcher.tagsIn(words);
   }
 }
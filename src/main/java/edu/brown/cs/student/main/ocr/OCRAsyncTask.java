@@ -3,14 +3,17 @@ package edu.brown.cs.student.main.ocr;
 import com.google.cloud.vision.v1.AnnotateImageResponse;
 import com.google.cloud.vision.v1.EntityAnnotation;
 import com.google.cloud.vision.v1.Feature;
+import edu.brown.cs.student.main.AsyncConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.gcp.vision.CloudVisionTemplate;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class OCRAsyncTask {
@@ -22,8 +25,11 @@ public class OCRAsyncTask {
   @Autowired
   private ResourceLoader resourceLoader;
 
+  @Autowired
+  private TagMatcher tagMatcher;
+
   public HashMap<String, Object> sendPost(String imageUrl) throws Exception {
-    GCVParser parser = new GCVParser();
+    GCVParser parser = new GCVParser(tagMatcher);
 
     // Use the CloudVisionTemplate to annotate the image
     AnnotateImageResponse response = cloudVisionTemplate.analyzeImage(
@@ -43,4 +49,10 @@ public class OCRAsyncTask {
 
     return new HashMap<>();
   }
+
+  /** sendPost on the OCR executor, which bounds how many Cloud Vision calls are in flight */
+  @Async(AsyncConfig.OCR)
+  public CompletableFuture<HashMap<String, Object>> detect(String imageUrl) throws Exception {
+    return CompletableFuture.completedFuture(this.sendPost(imageUrl));
+  }
 }
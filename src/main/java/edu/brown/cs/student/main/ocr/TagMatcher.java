@@ -0,0 +1,162 @@
+package edu.brown.cs.student.main.ocr;
+
+import edu.brown.cs.student.main.Tags;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aho-Corasick automaton over every keyword in Tags.getJumboTags(), built once at startup. Tagging
+ * OCR text is then a single pass over its characters instead of a words x tags x keywords loop.
+ *
+ * <p>Matching works on the same units as before: each word (split on spaces) longer than two
+ * characters is lowercased and a tag applies if any of its keywords occurs inside a word. The
+ * automaton restarts at every word, so keywords never match across words, and keywords that contain
+ * a space (like " art") or uppercase letters (like "Stonewall") still can't match, exactly as with
+ * the old word.toLowerCase().contains(keyword) check.
+ */
+@Component
+public class TagMatcher {
+  private static final int ROOT = 0;
+  private static final int ASCII_SIZE = 128;
+
+  private final String[] tagNames;
+  private final int[] asciiColumns; // column of each ascii char, or -1 if no keyword uses it
+  private final char[] otherChars; // sorted non-ascii chars used by keywords
+  private final int columnCount;
+  private final int[] transitions; // transitions[state * columnCount + column] = next state
+  private final int[][] outputs; // tag indexes matched when the automaton reaches a state
+
+  public TagMatcher() {
+    this(new Tags().getJumboTags());
+  }
+
+  public TagMatcher(Map<String, List<String>> tagKeywords) {
+    this.tagNames = tagKeywords.keySet().toArray(new String[0]);
+
+    // alphabet: only characters that appear in some keyword get a column
+    TreeSet<Character> alphabet = new TreeSet<>();
+    for (List<String> keywords : tagKeywords.values()) {
+      for (String keyword : keywords) {
+        for (char c : keyword.toCharArray()) {
+          alphabet.add(c);
+        }
+      }
+    }
+    this.asciiColumns = new int[ASCII_SIZE];
+    Arrays.fill(this.asciiColumns, -1);
+    List<Character> others = new ArrayList<>();
+    int column = 0;
+    for (char c : alphabet) {
+      if (c < ASCII_SIZE) {
+        this.asciiColumns[c] = column++;
+      } else {
+        others.add(c);
+      }
+    }
+    this.otherChars = new char[others.size()];
+    for (int i = 0; i < others.size(); i++) {
+      this.otherChars[i] = others.get(i);
+    }
+    this.columnCount = column + this.otherChars.length;
+
+    // trie of all keywords
+    List<Map<Integer, Integer>> children = new ArrayList<>();
+    List<BitSet> matched = new ArrayList<>();
+    children.add(new HashMap<>());
+    matched.add(new BitSet());
+    for (int tag = 0; tag < this.tagNames.length; tag++) {
+      for (String keyword : tagKeywords.get(this.tagNames[tag])) {
+        int state = ROOT;
+        for (char c : keyword.toCharArray()) {
+          int col = this.column(c);
+          Integer next = children.get(state).get(col);
+          if (next == null) {
+            next = children.size();
+            children.add(new HashMap<>());
+            matched.add(new BitSet());
+            children.get(state).put(col, next);
+          }
+          state = next;
+        }
+        matched.get(state).set(tag);
+      }
+    }
+
+    // breadth-first pass: failure links, merged outputs and a full transition table
+    int stateCount = children.size();
+    int[] fail = new int[stateCount];
+    this.transitions = new int[stateCount * this.columnCount];
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    for (int col = 0; col < this.columnCount; col++) {
+      Integer next = children.get(ROOT).get(col);
+      if (next != null) {
+        fail[next] = ROOT;
+        this.transitions[col] = next;
+        queue.add(next);
+      } else {
+        this.transitions[col] = ROOT;
+      }
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      matched.get(state).or(matched.get(fail[state]));
+      for (int col = 0; col < this.columnCount; col++) {
+        Integer next = children.get(state).get(col);
+        int fallback = this.transitions[fail[state] * this.columnCount + col];
+        if (next != null) {
+          fail[next] = fallback;
+          this.transitions[state * this.columnCount + col] = next;
+          queue.add(next);
+        } else {
+          this.transitions[state * this.columnCount + col] = fallback;
+        }
+      }
+    }
+    this.outputs = new int[stateCount][];
+    for (int state = 0; state < stateCount; state++) {
+      this.outputs[state] = matched.get(state).stream().toArray();
+    }
+  }
+
+  /**
+   * Finds every tag with a keyword inside one of the words
+   *
+   * @param words the words of the OCR text
+   * @return the names of the matching tags
+   */
+  public HashSet<String> tagsIn(String[] words) {
+    BitSet found = new BitSet(this.tagNames.length);
+    for (String word : words) {
+      if (word.length() > 2) {
+        String lowered = word.toLowerCase();
+        int state = ROOT; // restart per word so keywords never span two words
+        for (int i = 0; i < lowered.length(); i++) {
+          int col = this.column(lowered.charAt(i));
+          state = col < 0 ? ROOT : this.transitions[state * this.columnCount + col];
+          for (int tag : this.outputs[state]) {
+            found.set(tag);
+          }
+        }
+      }
+    }
+    HashSet<String> tags = new HashSet<>();
+    found.stream().forEach(tag -> tags.add(this.tagNames[tag]));
+    return tags;
+  }
+
+  private int column(char c) {
+    if (c < ASCII_SIZE) {
+      return this.asciiColumns[c];
+    }
+    int index = Arrays.binarySearch(this.otherChars, c);
+    return index < 0 ? -1 : this.columnCount - this.otherChars.length + index;
+  }
+}
@@ -0,0 +1,43 @@
+package edu.brown.cs.student.main.reactive;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * The reactive stack, switched on with posters.stack=reactive. Adds a reactive mongo client and
+ * the reactive repositories in this package next to the blocking ones, and the endpoints that
+ * chain several mongo calls then compose them without holding a thread while mongo works. With
+ * the default posters.stack=blocking none of this is created, so the two can be compared on the
+ * same build.
+ */
+@Configuration
+@ConditionalOnProperty(name = ReactiveConfig.STACK, havingValue = "reactive")
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveConfig.class)
+public class ReactiveConfig {
+  /** The property that picks the stack */
+  public static final String STACK = "posters.stack";
+
+  @Bean(destroyMethod = "close")
+  public MongoClient reactiveMongoClient(@Value("${spring.data.mongodb.uri}") String uri) {
+    return MongoClients.create(uri);
+  }
+
+  @Bean
+  public ReactiveMongoTemplate reactiveMongoTemplate(
+      MongoClient reactiveMongoClient,
+      @Value("${spring.data.mongodb.database}") String database,
+      MappingMongoConverter mappingMongoConverter) {
+    // same mapping as the blocking template, so documents read the same either way
+    return new ReactiveMongoTemplate(
+        new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, database),
+        mappingMongoConverter);
+  }
+}
@@ -0,0 +1,14 @@
+package edu.brown.cs.student.main.reactive;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.time.LocalDateTime;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactivePosterRepository extends ReactiveMongoRepository<Poster, String> {
+
+  /** All posters starting after the given time (upcoming posters) */
+  Flux<Poster> findByStartDateAfter(LocalDateTime now);
+}
@@ -0,0 +1,235 @@
+package edu.brown.cs.student.main.reactive;
+
+import edu.brown.cs.student.main.cache.CollectionVersions;
+import edu.brown.cs.student.main.cache.PosterCache;
+import edu.brown.cs.student.main.index.PosterTimeIndex;
+import edu.brown.cs.student.main.index.RelevanceRanker;
+import edu.brown.cs.student.main.index.TagIndex;
+import edu.brown.cs.student.main.ocr.OCRAsyncTask;
+import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.types.Draft;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.types.TagMask;
+import edu.brown.cs.student.main.user.User;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * The poster and draft operations of PosterService and DraftService that go to mongo more than
+ * once, on the reactive repositories. The in-memory snapshot and indexes are used exactly as the
+ * blocking services use them, and every write keeps them (and the collection versions) up to date.
+ */
+@Service
+@ConditionalOnProperty(name = ReactiveConfig.STACK, havingValue = "reactive")
+public class ReactivePosterService {
+  private final ReactivePosterRepository posterRepository;
+  private final ReactiveDraftRepository draftRepository;
+  private final ReactiveUserService userService;
+  private final PosterCache posterCache;
+  private final PosterTimeIndex timeIndex;
+  private final TagIndex tagIndex;
+  private final CollectionVersions versions;
+  private final OCRAsyncTask task;
+
+  public ReactivePosterService(
+      ReactivePosterRepository posterRepository,
+      ReactiveDraftRepository draftRepository,
+      ReactiveUserService userService,
+      PosterCache posterCache,
+      PosterTimeIndex timeIndex,
+      TagIndex tagIndex,
+      CollectionVersions versions,
+      OCRAsyncTask task) {
+    this.posterRepository = posterRepository;
+    this.draftRepository = draftRepository;
+    this.userService = userService;
+    this.posterCache = posterCache;
+    this.timeIndex = timeIndex;
+    this.tagIndex = tagIndex;
+    this.versions = versions;
+    this.task = task;
+  }
+
+  /** A poster by id, from the snapshot if it has it */
+  public Mono<ServiceResponse<Poster>> getPosterById(String id) {
+    if (id == null) {
+      return Mono.just(new ServiceResponse<>("Poster not found"));
+    }
+    return this.lookupPoster(id)
+        .map(poster -> new ServiceResponse<>(poster, "poster with id found"))
+        .defaultIfEmpty(new ServiceResponse<>("Poster not found"));
+  }
+
+  /** A poster by id, falling back to the drafts like PosterService.findPosterOrDraft */
+  public Mono<ServiceResponse<Poster>> findPosterOrDraft(String id) {
+    if (id == null) {
+      return Mono.just(new ServiceResponse<>("Poster not found"));
+    }
+    return this.lookupPoster(id)
+        .map(poster -> new ServiceResponse<>(poster, "poster with id found"))
+        .switchIfEmpty(
+            draftRepository
+                .findById(id)
+                .map(draft -> new ServiceResponse<Poster>(draft, "draft with id found")))
+        .defaultIfEmpty(new ServiceResponse<>("Poster with id " + id + " not found"));
+  }
+
+  public Mono<ServiceResponse<Poster>> getDraftById(String id) {
+    if (id == null) {
+      return Mono.just(new ServiceResponse<>("Poster with id null not found"));
+    }
+    return draftRepository
+        .findById(id)
+        .map(draft -> new ServiceResponse<Poster>(draft, "poster found"))
+        .defaultIfEmpty(new ServiceResponse<>("Poster with id " + id + " not found"));
+  }
+
+  /**
+   * The upcoming posters that best match a user's interests
+   *
+   * @param userId the user
+   * @param limit how many to return, or 0 or less for every upcoming poster
+   * @return the posters, most relevant first; fails if there is no such user
+   */
+  public Mono<List<Poster>> sortByRelevance(String userId, int limit) {
+    return userService
+        .getUserById(userId, new String[] {"interests"})
+        .flatMap(
+            user -> {
+              User wants = user.getData();
+              LocalDateTime now = LocalDateTime.now();
+              if (posterCache.isReady()) {
+                return Mono.just(
+                    RelevanceRanker.rank(
+                        timeIndex.upcoming(now), tagIndex.tagCounter(wants.getInterests()), limit));
+              }
+              TagMask wanted = wants.getInterestMask();
+              return posterRepository
+                  .findByStartDateAfter(now)
+                  .collectList()
+                  .map(
+                      posters ->
+                          RelevanceRanker.rank(
+                              posters.stream(), poster -> poster.numRelevantTags(wanted), limit));
+            });
+  }
+
+  /**
+   * Turns a draft into a poster: the poster gets the draft's id and fields, is added to its
+   * author's created posters, and the draft is deleted
+   *
+   * @param draftId the draft to publish
+   * @return the same responses as the blocking /posters/create/{draftId}
+   */
+  public Mono<ServiceResponse<String>> publishDraft(String draftId) {
+    return draftRepository
+        .findById(draftId)
+        .flatMap(
+            draft -> {
+              if (draft.getStartDate() == null) {
+                return Mono.just(
+                    new ServiceResponse<String>(
+                        "Poster with id "
+                            + draftId
+                            + " cannot be created because it does not have a start date"));
+              }
+              Poster poster = fromDraft(draft);
+              String userId = draft.getUserId();
+              return userService
+                  .associatePosterWithUser(userId, poster, false)
+                  // without its user the poster would be an orphan, so nothing else is written
+                  .filter(associated -> associated.getData() != null)
+                  .switchIfEmpty(Mono.error(() -> userNotFound(userId)))
+                  // deferred so nothing is even called until the user is found
+                  .then(Mono.defer(() -> userService.removeFromDrafts(userId, draftId)))
+                  .then(Mono.defer(() -> posterRepository.save(poster)))
+                  .doOnNext(posterCache::put)
+                  .then(Mono.defer(() -> draftRepository.deleteById(draftId)))
+                  .doOnSuccess(done -> versions.bumpDrafts())
+                  .thenReturn(
+                      new ServiceResponse<String>(
+                          "Draft with ID "
+                              + draftId
+                              + " has been removed from the drafts collection"));
+            })
+        .defaultIfEmpty(new ServiceResponse<>("Poster with id " + draftId + " not found"));
+  }
+
+  /**
+   * Creates a draft from an image link: adds it to the user's drafts, fills in what text detection
+   * suggests and saves it
+   *
+   * @param draft the new draft, with its content (the image link) set
+   * @param userId its author
+   * @return the draft as saved; fails with DataRetrievalFailureException if there is no such user,
+   *     without saving anything
+   */
+  @SuppressWarnings("unchecked")
+  public Mono<Draft> createDraft(Draft draft, String userId) {
+    return userService
+        .associatePosterWithUser(userId, draft, true)
+        .filter(associated -> associated.getData() != null)
+        .switchIfEmpty(Mono.error(() -> userNotFound(userId)))
+        .then(
+            // only a failed text detection is recovered from: the draft is saved without
+            // suggestions
+            Mono.defer(() -> this.detect(draft.getContent()))
+                .doOnNext(
+                    suggestedFields -> {
+                      Object title = suggestedFields.get("title");
+                      draft.setTitle(title == null ? "Untitled" : (String) title);
+                      draft.setDescription((String) suggestedFields.get("description"));
+                      draft.setLink((String) suggestedFields.get("link"));
+                      draft.setTags((HashSet<String>) suggestedFields.get("tags"));
+                    })
+                .onErrorResume(
+                    e -> {
+                      System.err.println("Error reading text on image file: " + e.getMessage());
+                      return Mono.just(new HashMap<>());
+                    }))
+        .then(Mono.defer(() -> draftRepository.save(draft)))
+        .doOnNext(saved -> versions.bumpDrafts());
+  }
+
+  private static DataRetrievalFailureException userNotFound(String userId) {
+    return new DataRetrievalFailureException("User " + userId + " not found");
+  }
+
+  private Mono<HashMap<String, Object>> detect(String imageUrl) {
+    try {
+      return Mono.fromFuture(task.detect(imageUrl));
+    } catch (Exception e) {
+      return Mono.error(e);
+    }
+  }
+
+  private Mono<Poster> lookupPoster(String id) {
+    Optional<Poster> cached = posterCache.get(id);
+    return cached.isPresent() ? Mono.just(cached.get()) : posterRepository.findById(id);
+  }
+
+  /** A new poster with a draft's id and the fields PosterService.updatePoster copies */
+  private static Poster fromDraft(Draft draft) {
+    Poster poster = new Poster();
+    poster.setID(draft.getID());
+    poster.setStartDate(draft.getStartDate());
+    poster.setEndDate(draft.getEndDate());
+    poster.setContent(draft.getContent());
+    poster.setIsRecurring(draft.getIsRecurring());
+    poster.setTitle(draft.getTitle());
+    poster.setDescription(draft.getDescription());
+    poster.setLocation(draft.getLocation());
+    poster.setLink(draft.getLink());
+    if (draft.getTags() != null) {
+      poster.setTags(draft.getTags());
+    }
+    return poster;
+  }
+}
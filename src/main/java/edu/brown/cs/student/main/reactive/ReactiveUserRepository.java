@@ -0,0 +1,8 @@
+package edu.brown.cs.student.main.reactive;
+
+import edu.brown.cs.student.main.user.User;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {}
@@ -0,0 +1,147 @@
+package edu.brown.cs.student.main.reactive;
+
+import edu.brown.cs.student.main.cache.UserCache;
+import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.user.User;
+import edu.brown.cs.student.main.user.UserUpdates;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * The user reads and writes of UserService on the reactive driver, with the same atomic updates
+ * (see UserUpdates), results and messages as UserService, but without holding a thread while mongo
+ * works. Reads use the UserCache when it has the user, and writes drop the user from it.
+ */
+@Service
+@ConditionalOnProperty(name = ReactiveConfig.STACK, havingValue = "reactive")
+public class ReactiveUserService {
+  private final ReactiveUserRepository userRepository;
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final UserCache userCache;
+
+  public ReactiveUserService(
+      ReactiveUserRepository userRepository,
+      ReactiveMongoTemplate mongoTemplate,
+      UserCache userCache) {
+    this.userRepository = userRepository;
+    this.mongoTemplate = mongoTemplate;
+    this.userCache = userCache;
+  }
+
+  /**
+   * Gets a user, optionally with only some fields read from mongo
+   *
+   * @param id the user's id
+   * @param fields the fields to read, or null for the whole user
+   * @return the user, or a "User not found" response
+   */
+  public Mono<ServiceResponse<User>> getUserById(String id, String[] fields) {
+    Mono<User> user;
+    Optional<User> cached = userCache.getIfPresent(id);
+    if (cached.isPresent()) {
+      user = Mono.just(cached.get());
+    } else if (fields == null) {
+      user = userRepository.findById(id);
+    } else {
+      user = mongoTemplate.findOne(UserUpdates.user(id, fields), User.class);
+    }
+    return user.map(found -> new ServiceResponse<>(found, "User found"))
+        .defaultIfEmpty(new ServiceResponse<>("User not found"));
+  }
+
+  public Mono<ServiceResponse<User>> associatePosterWithUser(
+      String userId, Poster poster, boolean isDraft) {
+    String field = isDraft ? UserUpdates.DRAFTS : UserUpdates.CREATED_POSTERS;
+    return this.addPoster(userId, field, poster.getID())
+        .map(
+            author -> {
+              poster.setUserId(userId);
+              poster.setAuthorName(author.getName());
+              return new ServiceResponse<>(author, "Poster associated with user");
+            })
+        .defaultIfEmpty(new ServiceResponse<>("User not found"));
+  }
+
+  public Mono<ServiceResponse<User>> removeFromDrafts(String userId, String posterId) {
+    return this.modify(
+        userId,
+        UserUpdates.user(userId, UserUpdates.DRAFTS),
+        UserUpdates.removePoster(UserUpdates.DRAFTS, posterId),
+        "Poster associated with user");
+  }
+
+  public Mono<ServiceResponse<User>> savePoster(String userId, Poster poster) {
+    return this.addPoster(userId, UserUpdates.SAVED_POSTERS, poster.getID())
+        .map(user -> new ServiceResponse<>(user, "Poster saved"))
+        .defaultIfEmpty(new ServiceResponse<>("User not found"));
+  }
+
+  public Mono<ServiceResponse<User>> unsavePoster(String userId, String posterId) {
+    return this.modify(
+        userId,
+        UserUpdates.user(userId, UserUpdates.SAVED_POSTERS),
+        UserUpdates.removePoster(UserUpdates.SAVED_POSTERS, posterId),
+        "Poster removed from user");
+  }
+
+  public Mono<ServiceResponse<User>> addInterests(String userId, HashSet<String> interests) {
+    return this.modify(
+        userId,
+        UserUpdates.user(userId, UserUpdates.INTERESTS),
+        UserUpdates.addInterests(interests),
+        "Interest(s) added");
+  }
+
+  public Mono<ServiceResponse<User>> removeInterests(String userId, Set<String> interests) {
+    Mono<User> updated =
+        interests.isEmpty()
+            ? mongoTemplate.findOne(UserUpdates.user(userId, UserUpdates.INTERESTS), User.class)
+            : mongoTemplate
+                .findAndModify(
+                    UserUpdates.userWithInterests(userId, interests),
+                    UserUpdates.removeInterests(interests),
+                    UserUpdates.returnNew(),
+                    User.class)
+                .doFinally(signal -> userCache.invalidate(userId));
+    return updated
+        .map(user -> new ServiceResponse<>(user, "Interest(s) removed"))
+        // nothing matched: either there's no such user or it's missing one of the interests
+        .switchIfEmpty(
+            mongoTemplate
+                .findOne(UserUpdates.user(userId, UserUpdates.INTERESTS), User.class)
+                .map(
+                    user ->
+                        new ServiceResponse<>(
+                            user, "Interest to be removed is not in user's selected interests")))
+        .defaultIfEmpty(new ServiceResponse<>("User not found"));
+  }
+
+  /** Adds a poster id to a list unless it's there already, as UserRepository.addPoster does */
+  private Mono<User> addPoster(String userId, String field, String posterId) {
+    return mongoTemplate
+        .findAndModify(
+            UserUpdates.user(userId, field, "name"),
+            UserUpdates.addPoster(field, posterId),
+            UserUpdates.returnNew(),
+            User.class)
+        .doFinally(signal -> userCache.invalidate(userId));
+  }
+
+  /** Runs one of the UserUpdates updates */
+  private Mono<ServiceResponse<User>> modify(
+      String userId, Query query, Update update, String message) {
+    return mongoTemplate
+        .findAndModify(query, update, UserUpdates.returnNew(), User.class)
+        .doFinally(signal -> userCache.invalidate(userId))
+        .map(user -> new ServiceResponse<>(user, message))
+        .defaultIfEmpty(new ServiceResponse<>("User not found"));
+  }
+}
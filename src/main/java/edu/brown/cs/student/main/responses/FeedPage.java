@@ -0,0 +1,44 @@
+package edu.brown.cs.student.main.responses;
+
+import edu.brown.cs.student.main.types.FeedCursor;
+import edu.brown.cs.student.main.types.FeedOrder;
+import edu.brown.cs.student.main.types.Poster;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** One page of a poster feed, plus the cursor for the page after it (null on the last page) */
+public class FeedPage {
+  private final List<Poster> posters;
+  private final String nextCursor;
+
+  public FeedPage(List<Poster> posters, String nextCursor) {
+    this.posters = posters;
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Builds a page from the posters fetched for it
+   *
+   * @param order the order the posters are in
+   * @param fetched the page's posters in order, plus one more if there is a next page
+   * @param limit the page size, or 0 or less for an unpaged feed
+   * @param asOf the time the feed is being read at
+   * @return the page
+   */
+  public static FeedPage of(FeedOrder order, List<Poster> fetched, int limit, LocalDateTime asOf) {
+    if (limit <= 0 || fetched.size() <= limit) {
+      return new FeedPage(fetched, null);
+    }
+    List<Poster> posters = fetched.subList(0, limit);
+    Poster last = posters.get(limit - 1);
+    return new FeedPage(posters, order.positionOf(last, asOf).encode());
+  }
+
+  public List<Poster> getPosters() {
+    return this.posters;
+  }
+
+  public String getNextCursor() {
+    return this.nextCursor;
+  }
+}
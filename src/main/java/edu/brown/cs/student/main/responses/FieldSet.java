@@ -0,0 +1,120 @@
+package edu.brown.cs.student.main.responses;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+/**
+ * A sparse fieldset from a fields= query parameter, e.g. fields=id,startDate,endDate. Only those
+ * properties of the filtered type are serialized, and the same names are used as the mongo
+ * projection so unused fields aren't read either.
+ *
+ * <p>Field sets are parsed once per distinct parameter and cached with their Jackson filters, so a
+ * repeated request only pays for a map lookup.
+ */
+public final class FieldSet {
+  /** Jackson filter id for posters (and poster summaries) */
+  public static final String POSTER_FILTER = "posterFields";
+
+  /** Jackson filter id for users */
+  public static final String USER_FILTER = "userFields";
+
+  /** The filters used when no fields are requested: every property is serialized */
+  public static final FilterProvider ALL_FIELDS =
+      new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+
+  private static final int MAX_FIELDS = 32;
+  private static final int MAX_CACHED = 256;
+  private static final Pattern FIELD_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_]*");
+  private static final ConcurrentMap<String, FieldSet> CACHE = new ConcurrentHashMap<>();
+
+  private final Set<String> fields;
+  private final FilterProvider filters;
+
+  private FieldSet(String filterId, Set<String> fields) {
+    this.fields = fields;
+    SimpleFilterProvider filters = new SimpleFilterProvider();
+    // nested objects of other types (like the posters inside a user) are left whole
+    filters.setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+    filters.addFilter(filterId, SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+    this.filters = filters;
+  }
+
+  /**
+   * Parses a fields parameter
+   *
+   * @param filterId which type the fields belong to, POSTER_FILTER or USER_FILTER
+   * @param fields comma separated property names, or null
+   * @return the field set, or null if no fields were requested
+   * @throws IllegalArgumentException if a field name isn't a plain property name
+   */
+  public static FieldSet parse(String filterId, String fields) {
+    if (fields == null || fields.isBlank()) {
+      return null;
+    }
+    String key = filterId + ":" + fields;
+    FieldSet cached = CACHE.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    Set<String> names = new TreeSet<>();
+    for (String name : fields.split(",")) {
+      name = name.trim();
+      if (name.isEmpty()) {
+        continue;
+      }
+      if (!FIELD_NAME.matcher(name).matches()) {
+        throw new IllegalArgumentException("Invalid field " + name);
+      }
+      names.add(name);
+    }
+    if (names.isEmpty()) {
+      return null;
+    }
+    if (names.size() > MAX_FIELDS) {
+      throw new IllegalArgumentException("Too many fields");
+    }
+    FieldSet fieldSet = new FieldSet(filterId, names);
+    // bounded so arbitrary parameters can't grow the cache forever
+    if (CACHE.size() < MAX_CACHED) {
+      CACHE.putIfAbsent(key, fieldSet);
+    }
+    return fieldSet;
+  }
+
+  /**
+   * The mongo projection for this field set
+   *
+   * @param required fields the server needs whether or not they were requested (e.g. for sorting)
+   * @return the fields to read
+   */
+  public String[] projection(String... required) {
+    Set<String> projection = new LinkedHashSet<>(Arrays.asList(required));
+    projection.addAll(this.fields);
+    return projection.toArray(new String[0]);
+  }
+
+  /**
+   * Wraps a response body so only the selected fields are serialized
+   *
+   * @param body the response body
+   * @param fields the field set, or null for every field
+   * @return the body to return from the controller
+   */
+  public static Object select(Object body, FieldSet fields) {
+    if (fields == null) {
+      return body;
+    }
+    MappingJacksonValue value = new MappingJacksonValue(body);
+    value.setFilters(fields.filters);
+    return value;
+  }
+}
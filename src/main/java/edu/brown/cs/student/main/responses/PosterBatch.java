@@ -0,0 +1,21 @@
+package edu.brown.cs.student.main.responses;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.util.List;
+
+/**
+ * Posters looked up by id: data holds the ones found, in the order they were asked for, and missing
+ * the ids nothing was found for (e.g. deleted posters), also in order
+ */
+public class PosterBatch extends ServiceResponse<List<Poster>> {
+  private final List<String> missing;
+
+  public PosterBatch(List<Poster> posters, List<String> missing, String message) {
+    super(posters, message);
+    this.missing = missing;
+  }
+
+  public List<String> getMissing() {
+    return this.missing;
+  }
+}
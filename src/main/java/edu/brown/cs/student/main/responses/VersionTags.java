@@ -0,0 +1,54 @@
+package edu.brown.cs.student.main.responses;
+
+import java.util.function.Function;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Document versions as HTTP entity tags. A successful update answers with the new version as its
+ * ETag ("3"); a client that wants the next update refused if someone else wrote in between sends
+ * it back in If-Match. Updates without If-Match aren't checked, so a client that doesn't track
+ * versions can't be locked out by writes it didn't see (e.g. a poster being saved to the user).
+ */
+public final class VersionTags {
+  private VersionTags() {}
+
+  /**
+   * Reads the version an update has to match
+   *
+   * @param ifMatch the If-Match header, may be null
+   * @return the version, or null if there is no header or it is "*" (any version)
+   * @throws IllegalArgumentException if the header isn't a version tag
+   */
+  public static Long fromIfMatch(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    String tag = ifMatch.trim();
+    if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) {
+      tag = tag.substring(1, tag.length() - 1);
+    }
+    try {
+      return Long.parseLong(tag);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not a version tag: " + ifMatch, e);
+    }
+  }
+
+  /**
+   * A 200 for an update, tagged with the version it left the document at
+   *
+   * @param response the update's response
+   * @param version reads the version off the response's data
+   * @return the response, with an ETag if the update returned a versioned document
+   */
+  public static <T> ResponseEntity<ServiceResponse<T>> ok(
+      ServiceResponse<T> response, Function<T, Long> version) {
+    T data = response.getData();
+    Long current = data == null ? null : version.apply(data);
+    ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+    if (current != null) {
+      ok.eTag(String.valueOf(current)); // quoted by eTag
+    }
+    return ok.body(response);
+  }
+}
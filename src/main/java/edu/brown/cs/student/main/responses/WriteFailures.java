@@ -0,0 +1,34 @@
+package edu.brown.cs.student.main.responses;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Turns a failed write into its response: 409 Conflict, with the reason as the message, if the
+ * document was changed by someone else after the version the write was based on, 404 Not Found if a
+ * document the write needs (e.g. the author) doesn't exist, and 500 otherwise
+ */
+public final class WriteFailures {
+  private WriteFailures() {}
+
+  public static <T> ResponseEntity<ServiceResponse<T>> toResponse(Throwable ex) {
+    Throwable cause = ex;
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    if (cause instanceof OptimisticLockingFailureException) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .body(new ServiceResponse<>(cause.getMessage()));
+    }
+    if (cause instanceof DataRetrievalFailureException) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body(new ServiceResponse<>(cause.getMessage()));
+    }
+    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+  }
+}
@@ -0,0 +1,93 @@
+package edu.brown.cs.student.main.types;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * The position of the last poster on a page, handed to clients as an opaque string. The next page
+ * starts strictly after this position, so pages never skip or repeat posters when others are added
+ * or removed in between. The cursor also carries the time the first page was read at, so posters
+ * don't move between the upcoming and past sections of a feed while a client is paging through it.
+ */
+public final class FeedCursor {
+  private static final String SEPARATOR = "|";
+
+  private final FeedOrder order;
+  private final int segment; // which section of the order the poster is in
+  private final LocalDateTime time; // the poster's sort key, may be null
+  private final String id; // tie breaker
+  private final LocalDateTime asOf;
+
+  public FeedCursor(
+      FeedOrder order, int segment, LocalDateTime time, String id, LocalDateTime asOf) {
+    this.order = order;
+    this.segment = segment;
+    this.time = time;
+    this.id = id;
+    this.asOf = asOf;
+  }
+
+  public FeedOrder getOrder() {
+    return this.order;
+  }
+
+  public int getSegment() {
+    return this.segment;
+  }
+
+  public LocalDateTime getTime() {
+    return this.time;
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public LocalDateTime getAsOf() {
+    return this.asOf;
+  }
+
+  /** Encodes the cursor as a url-safe string */
+  public String encode() {
+    String raw =
+        String.join(
+            SEPARATOR,
+            this.order.name(),
+            Integer.toString(this.segment),
+            this.time == null ? "" : this.time.toString(),
+            this.asOf.toString(),
+            this.id);
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor handed out by a feed
+   *
+   * @param encoded the cursor string
+   * @param expected the order of the feed being paged, cursors from other feeds are rejected
+   * @return the decoded cursor
+   * @throws IllegalArgumentException if the cursor is malformed or belongs to another feed
+   */
+  public static FeedCursor decode(String encoded, FeedOrder expected) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+      String[] parts = raw.split("\\" + SEPARATOR, 5);
+      if (parts.length != 5) {
+        throw new IllegalArgumentException("Malformed cursor");
+      }
+      FeedOrder order = FeedOrder.valueOf(parts[0]);
+      int segment = Integer.parseInt(parts[1]);
+      if (order != expected || segment < 0 || segment >= order.segmentCount()) {
+        throw new IllegalArgumentException("Cursor does not belong to this feed");
+      }
+      LocalDateTime time = parts[2].isEmpty() ? null : LocalDateTime.parse(parts[2]);
+      return new FeedCursor(order, segment, time, parts[4], LocalDateTime.parse(parts[3]));
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed cursor", e);
+    }
+  }
+}
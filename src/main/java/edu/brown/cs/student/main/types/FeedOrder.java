@@ -0,0 +1,187 @@
+package edu.brown.cs.student.main.types;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * The sort orders used by the poster feeds, each defined once for both the in-memory indexes and
+ * mongo. An order is a list of segments (e.g. the main feed is upcoming posters by ascending start
+ * date, then past posters by descending start date); within a segment posters are sorted by one
+ * date field, then by id. Nulls sort as the smallest value, like they do in mongo.
+ */
+public enum FeedOrder {
+  /** Upcoming posters soonest first, then past posters most recent first */
+  SOONEST(
+      new Segment(
+          "startDate", Poster::getStartDate, false, FeedOrder::isUpcoming, FeedOrder::upcoming),
+      new Segment("startDate", Poster::getStartDate, true, FeedOrder::isPast, FeedOrder::past)),
+  /** Upcoming posters, soonest first */
+  UPCOMING(
+      new Segment(
+          "startDate", Poster::getStartDate, false, FeedOrder::isUpcoming, FeedOrder::upcoming)),
+  /** Upcoming posters, most recently created first */
+  UPCOMING_BY_NEWEST(
+      new Segment(
+          "createdAt", Poster::getCreatedAt, true, FeedOrder::isUpcoming, FeedOrder::upcoming)),
+  /** Posters that have ended (or started, if they have no end date), most recent start first */
+  ARCHIVE(
+      new Segment(
+          "startDate", Poster::getStartDate, true, FeedOrder::isArchived, FeedOrder::archived)),
+  /** Every poster, oldest first */
+  CREATED(
+      new Segment(
+          "createdAt", Poster::getCreatedAt, false, (poster, now) -> true, now -> new Criteria()));
+
+  /** One section of an order: which posters it holds and how they're sorted */
+  private static final class Segment {
+    private final String field;
+    private final Function<Poster, LocalDateTime> time;
+    private final boolean descending;
+    private final BiPredicate<Poster, LocalDateTime> includes;
+    private final Function<LocalDateTime, Criteria> filter;
+
+    private Segment(
+        String field,
+        Function<Poster, LocalDateTime> time,
+        boolean descending,
+        BiPredicate<Poster, LocalDateTime> includes,
+        Function<LocalDateTime, Criteria> filter) {
+      this.field = field;
+      this.time = time;
+      this.descending = descending;
+      this.includes = includes;
+      this.filter = filter;
+    }
+  }
+
+  /** The poster fields orders sort and filter on, which every mongo projection has to include */
+  public static final String[] FIELDS = {"id", "createdAt", "startDate", "endDate"};
+
+  private final List<Segment> segments;
+
+  FeedOrder(Segment... segments) {
+    this.segments = List.of(segments);
+  }
+
+  /** The order used by tag and term searches */
+  public static FeedOrder forSearch(boolean sortByCreatedAt) {
+    return sortByCreatedAt ? CREATED : SOONEST;
+  }
+
+  public int segmentCount() {
+    return this.segments.size();
+  }
+
+  /**
+   * Finds where a poster sits in this order
+   *
+   * @param poster the poster
+   * @param asOf the time that decides what is upcoming and what is past
+   * @return the poster's position, or null if the order doesn't include the poster
+   */
+  public FeedCursor positionOf(Poster poster, LocalDateTime asOf) {
+    for (int segment = 0; segment < this.segments.size(); segment++) {
+      Segment current = this.segments.get(segment);
+      if (current.includes.test(poster, asOf)) {
+        return new FeedCursor(this, segment, current.time.apply(poster), poster.getID(), asOf);
+      }
+    }
+    return null;
+  }
+
+  /** Whether the order includes the poster and puts it strictly after the cursor */
+  public boolean isAfter(Poster poster, FeedCursor cursor) {
+    FeedCursor position = this.positionOf(poster, cursor.getAsOf());
+    return position != null && this.compare(position, cursor) > 0;
+  }
+
+  /** Compares two positions in this order */
+  public int compare(FeedCursor a, FeedCursor b) {
+    if (a.getSegment() != b.getSegment()) {
+      return Integer.compare(a.getSegment(), b.getSegment());
+    }
+    int compared =
+        Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())
+            .compare(a.getTime(), b.getTime());
+    if (compared == 0) {
+      compared = a.getId().compareTo(b.getId());
+    }
+    return this.segments.get(a.getSegment()).descending ? -compared : compared;
+  }
+
+  /** The mongo filter selecting the posters in a segment */
+  public Criteria filter(int segment, LocalDateTime asOf) {
+    return this.segments.get(segment).filter.apply(asOf);
+  }
+
+  /** The mongo sort for a segment */
+  public Sort sort(int segment) {
+    Segment current = this.segments.get(segment);
+    Sort.Direction direction = current.descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+    return Sort.by(direction, current.field).and(Sort.by(direction, "id"));
+  }
+
+  /**
+   * The mongo filter selecting the posters after a cursor within the cursor's segment (the keyset
+   * condition). Mongo sorts nulls below every date, so a descending segment ends with them.
+   */
+  public Criteria after(FeedCursor cursor) {
+    Segment current = this.segments.get(cursor.getSegment());
+    String field = current.field;
+    LocalDateTime time = cursor.getTime();
+    String id = cursor.getId();
+    if (!current.descending) {
+      if (time == null) {
+        return new Criteria()
+            .orOperator(
+                Criteria.where(field).is(null).and("id").gt(id), Criteria.where(field).ne(null));
+      }
+      return new Criteria()
+          .orOperator(
+              Criteria.where(field).gt(time), Criteria.where(field).is(time).and("id").gt(id));
+    }
+    if (time == null) {
+      return Criteria.where(field).is(null).and("id").lt(id);
+    }
+    return new Criteria()
+        .orOperator(
+            Criteria.where(field).lt(time),
+            Criteria.where(field).is(time).and("id").lt(id),
+            Criteria.where(field).is(null));
+  }
+
+  private static boolean isUpcoming(Poster poster, LocalDateTime now) {
+    return poster.getStartDate() != null && poster.getStartDate().isAfter(now);
+  }
+
+  private static boolean isPast(Poster poster, LocalDateTime now) {
+    return poster.getStartDate() != null && poster.getStartDate().isBefore(now);
+  }
+
+  private static boolean isArchived(Poster poster, LocalDateTime now) {
+    if (poster.getEndDate() != null) {
+      return poster.getEndDate().isBefore(now);
+    }
+    return isPast(poster, now);
+  }
+
+  private static Criteria upcoming(LocalDateTime now) {
+    return Criteria.where("startDate").gt(now);
+  }
+
+  private static Criteria past(LocalDateTime now) {
+    return Criteria.where("startDate").lt(now);
+  }
+
+  private static Criteria archived(LocalDateTime now) {
+    return new Criteria()
+        .orOperator(
+            Criteria.where("endDate").lt(now),
+            Criteria.where("endDate").is(null).and("startDate").lt(now));
+  }
+}
@@ -1,25 +1,40 @@
 package edu.brown.cs.student.main.types;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.responses.FieldSet;
 import edu.brown.cs.student.main.user.User;
-import edu.brown.cs.student.main.user.UserService;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.scheduling.annotation.Async;
 
 /**
  * The Poster model defines the necessary set of properties for a poster object and contains getters
  * and setters used to validate and change data
  */
 @Document(collection = "poster")
+@CompoundIndexes({
+  @CompoundIndex(name = "tags_startDate", def = "{'tags': 1, 'startDate': 1}"),
+  @CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1}"),
+  // one per branch of the archive's $or, each in the archive's sort order (startDate, then id,
+  // descending) so mongo can merge the branches instead of sorting: ended posters are walked by
+  // start date with endDate checked in the index, posters without an end date are found by
+  // endDate: null
+  @CompoundIndex(name = "archive_ended", def = "{'startDate': -1, '_id': -1, 'endDate': 1}"),
+  @CompoundIndex(name = "archive_no_end", def = "{'endDate': 1, 'startDate': -1, '_id': -1}")
+})
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonFilter(FieldSet.POSTER_FILTER)
 public class Poster {
 
   // TODO: should probably update fields to include support for tags?
@@ -27,18 +42,20 @@ public class Poster {
   private String title; // req
   private String content; // url or image path
   private String description;
-  private HashSet<String> tags;
+  @Indexed private HashSet<String> tags;
+  @Transient private TagMask tagMask; // encoded tags, built on first use and reset when tags change
   private String link; // link to club website? registration
   private String location; // location of event
-  private LocalDateTime createdAt; // date poster is created in databsse
-  private LocalDateTime startDate; // start of event
+  @Indexed private LocalDateTime createdAt; // date poster is created in databsse
+  @Indexed private LocalDateTime startDate; // start of event
   private LocalDateTime endDate; // end of event
   private String organization;
-  private String userId;
+  @Indexed private String userId;
+  @Indexed private String authorName; // copy of the author's name, kept current by PosterService
   private String isRecurring;
   private User user;
-  private UserService userService;
   private boolean isDraft;
+  @Version private Long version; // bumped by every write; saves fail if it has moved on
 
   // @JsonPropertyOrder({"id", "title", "description"})
 
@@ -177,23 +194,40 @@ public class Poster {
     return tags;
   }
 
-  public int numRelevantTags(HashSet<String> interests) {
-    HashSet<String> intersection =
-        (HashSet<String>)
-            this.tags.stream().filter(interests::contains).collect(Collectors.toSet());
-    return intersection.size();
+  /** The tags encoded as a TagMask, so they can be compared without set operations */
+  @JsonIgnore
+  public TagMask getTagMask() {
+    TagMask mask = this.tagMask;
+    if (mask == null) {
+      mask = TagDictionary.encode(this.tags);
+      this.tagMask = mask;
+    }
+    return mask;
+  }
+
+  /** Counts how many of the interests this poster is tagged with */
+  public int numRelevantTags(TagMask interests) {
+    return this.getTagMask().countShared(interests);
+  }
+
+  /** Whether this poster has every one of the given tags */
+  public boolean containsAllTags(TagMask tags) {
+    return this.getTagMask().containsAll(tags);
   }
 
   public void setTags(HashSet<String> tags) {
     this.tags = tags;
+    this.tagMask = null;
   }
 
   public void setTag(String tag) {
     this.tags.add(tag);
+    this.tagMask = null;
   }
 
   public void deleteTag(String tag) {
     this.tags.remove(tag);
+    this.tagMask = null;
   }
 
   public String getIsRecurring() {
@@ -229,26 +263,24 @@ public class Poster {
     this.endDate = endDate;
   }
 
-  @Async
-  public String returnHaystack(UserService userService) {
-    this.userService = userService;
-    StringBuilder haystack = new StringBuilder(this.title);
+  /**
+   * Builds the text that term searches run against: title, description, tags and the author's
+   * name, concatenated
+   *
+   * @return the searchable text for this poster
+   */
+  public String returnHaystack() {
+    StringBuilder haystack = new StringBuilder(this.title == null ? "" : this.title);
     if (this.description != "") {
       haystack.append(this.description);
     }
-    if (!this.tags.isEmpty()) {
+    if (this.tags != null && !this.tags.isEmpty()) {
       for (String tag : this.tags) {
         haystack.append(tag);
       }
     }
-    if (!this.userId.equals("")) {
-      CompletableFuture<ServiceResponse<User>> reqUser = userService.getUserById(this.userId);
-      ServiceResponse<User> userResponse = reqUser.join();
-
-      if (userResponse.getData() != null) {
-        String name = userResponse.getData().getName();
-        haystack.append(name);
-      }
+    if (this.authorName != null) {
+      haystack.append(this.authorName);
     }
 
     return haystack.toString();
@@ -262,6 +294,14 @@ public class Poster {
     this.userId = userId;
   }
 
+  public String getAuthorName() {
+    return this.authorName;
+  }
+
+  public void setAuthorName(String authorName) {
+    this.authorName = authorName;
+  }
+
   public boolean getIsDraft() {
     return this.isDraft;
   }
@@ -270,6 +310,14 @@ public class Poster {
     this.isDraft = isDraft;
   }
 
+  public Long getVersion() {
+    return this.version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   @Override
   public boolean equals(Object object) {
     if (object instanceof Poster) {
@@ -278,4 +326,10 @@ public class Poster {
     }
     return false;
   }
+
+  // equal posters have the same id, so they must hash the same in HashSets
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(this.getID());
+  }
 }
@@ -0,0 +1,49 @@
+package edu.brown.cs.student.main.types;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An edit to a poster or draft: the fields set on a partial poster from a request, applied on top
+ * of the stored poster. Used by the update endpoints, which re-apply an edit when the poster was
+ * saved by someone else while it was being edited.
+ */
+public final class PosterEdit {
+  private PosterEdit() {}
+
+  /**
+   * Copies the fields the edit sets onto the poster. Tags are merged rather than copied: the tags
+   * the edit adds to or removes from the ones it started from are added to or removed from the
+   * poster's current tags, so a tag someone else added in the meantime is kept.
+   *
+   * @param poster the stored poster, as just read
+   * @param edit the edit
+   * @param baseTags the poster's tags when the edit was first applied
+   */
+  public static void apply(Poster poster, Poster edit, Set<String> baseTags) {
+    if (edit.getStartDate() != null) poster.setStartDate(edit.getStartDate());
+    if (edit.getEndDate() != null) poster.setEndDate(edit.getEndDate());
+    if (edit.getContent() != null) poster.setContent(edit.getContent());
+    poster.setIsRecurring(edit.getIsRecurring());
+    if (edit.getTitle() != null) poster.setTitle(edit.getTitle());
+    if (edit.getDescription() != null) poster.setDescription(edit.getDescription());
+    if (edit.getLocation() != null) poster.setLocation(edit.getLocation());
+    if (edit.getLink() != null) poster.setLink(edit.getLink());
+    if (edit.getTags() != null) {
+      HashSet<String> tags =
+          poster.getTags() == null ? new HashSet<>() : new HashSet<>(poster.getTags());
+      for (String tag : baseTags) {
+        if (!edit.getTags().contains(tag)) tags.remove(tag);
+      }
+      for (String tag : edit.getTags()) {
+        if (!baseTags.contains(tag)) tags.add(tag);
+      }
+      poster.setTags(tags);
+    }
+  }
+
+  /** A copy of a poster's tags, to pass to apply as the tags an edit started from */
+  public static Set<String> tagsOf(Poster poster) {
+    return poster.getTags() == null ? Set.of() : Set.copyOf(poster.getTags());
+  }
+}
@@ -1,12 +1,34 @@
 package edu.brown.cs.student.main.types;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PosterRepository extends MongoRepository<Poster, String> {
-  // Here, you can define custom query methods if needed
-  // For instance:
-  // List<Poster> findByTitleContaining(String title);
+public interface PosterRepository
+    extends MongoRepository<Poster, String>, PosterRepositoryCustom {
   // Check mongorepo documentation for all the methods it comes with!!
+  // Filtering and sorting below run inside Mongo against the indexes declared on Poster.
+
+  /** All posters starting after the given time (upcoming posters) */
+  List<Poster> findByStartDateAfter(LocalDateTime now, Sort sort);
+
+  /** All posters created by the given user */
+  List<Poster> findByUserId(String userId, Sort sort);
+
+  /** All posters created by any of the given users */
+  List<Poster> findByUserIdIn(Collection<String> userIds, Sort sort);
+
+  /** All posters that don't have their author's name stored yet */
+  List<Poster> findByAuthorNameIsNull();
+
+  /** Sets the stored author name on every poster created by the given user */
+  @Query("{ 'userId': ?0 }")
+  @Update("{ $set: { 'authorName': ?1 }, $inc: { 'version': 1 } }")
+  long updateAuthorNameByUserId(String userId, String authorName);
 }
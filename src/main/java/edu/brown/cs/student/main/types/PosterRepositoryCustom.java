@@ -0,0 +1,52 @@
+package edu.brown.cs.student.main.types;
+
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/** Criteria-based queries for posters that can't be expressed as derived query methods */
+public interface PosterRepositoryCustom {
+
+  /**
+   * Runs an arbitrary filter against the poster collection with server-side sorting
+   *
+   * @param criteria the filter to apply
+   * @param sort the sort order to apply
+   * @return the matching posters, in sorted order
+   */
+  List<Poster> findMatching(Criteria criteria, Sort sort);
+
+  /**
+   * Runs a filter with server-side sorting and returns at most limit posters
+   *
+   * @param criteria the filter to apply
+   * @param sort the sort order to apply
+   * @param limit the most posters to return, or 0 for no limit
+   * @return the first matching posters, in sorted order
+   */
+  List<Poster> findMatching(Criteria criteria, Sort sort, int limit);
+
+  /**
+   * Runs a filter with server-side sorting and returns at most limit posters, with only the given
+   * fields read from mongo (the rest are left unset)
+   *
+   * @param criteria the filter to apply
+   * @param sort the sort order to apply
+   * @param limit the most posters to return, or 0 for no limit
+   * @param fields the fields to return, or null for whole posters
+   * @return the first matching posters, in sorted order
+   */
+  List<Poster> findMatching(Criteria criteria, Sort sort, int limit, String[] fields);
+
+  /**
+   * Runs a filter with server-side sorting and returns the results lazily from a mongo cursor, a
+   * batch at a time. The stream holds the cursor open, so callers must close it.
+   *
+   * @param criteria the filter to apply
+   * @param sort the sort order to apply
+   * @param limit the most posters to return, or 0 for no limit
+   * @return the matching posters, in sorted order
+   */
+  Stream<Poster> streamMatching(Criteria criteria, Sort sort, int limit);
+}
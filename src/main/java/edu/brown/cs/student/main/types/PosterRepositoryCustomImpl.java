@@ -0,0 +1,44 @@
+package edu.brown.cs.student.main.types;
+
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/** Picked up by Spring Data as the implementation of PosterRepositoryCustom */
+public class PosterRepositoryCustomImpl implements PosterRepositoryCustom {
+  private static final int STREAM_BATCH_SIZE = 100;
+
+  private final MongoTemplate mongoTemplate;
+
+  public PosterRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public List<Poster> findMatching(Criteria criteria, Sort sort) {
+    return mongoTemplate.find(new Query(criteria).with(sort), Poster.class);
+  }
+
+  @Override
+  public List<Poster> findMatching(Criteria criteria, Sort sort, int limit) {
+    return this.findMatching(criteria, sort, limit, null);
+  }
+
+  @Override
+  public List<Poster> findMatching(Criteria criteria, Sort sort, int limit, String[] fields) {
+    Query query = new Query(criteria).with(sort).limit(limit);
+    if (fields != null) {
+      query.fields().include(fields);
+    }
+    return mongoTemplate.find(query, Poster.class);
+  }
+
+  @Override
+  public Stream<Poster> streamMatching(Criteria criteria, Sort sort, int limit) {
+    Query query = new Query(criteria).with(sort).limit(limit).cursorBatchSize(STREAM_BATCH_SIZE);
+    return mongoTemplate.stream(query, Poster.class);
+  }
+}
@@ -0,0 +1,114 @@
+package edu.brown.cs.student.main.types;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.brown.cs.student.main.responses.FieldSet;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+
+/**
+ * The part of a poster that feed cards show. Leaves out the OCR description (often kilobytes of
+ * text), the organization and the embedded user, which only the full poster view needs.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonFilter(FieldSet.POSTER_FILTER)
+public class PosterSummary {
+
+  /** The poster fields a summary is built from, for mongo field projections */
+  public static final String[] FIELDS = {
+    "id",
+    "title",
+    "content",
+    "location",
+    "link",
+    "tags",
+    "createdAt",
+    "startDate",
+    "endDate",
+    "userId",
+    "authorName",
+    "isRecurring"
+  };
+
+  private final String id;
+  private final String title;
+  private final String content;
+  private final String location;
+  private final String link;
+  private final HashSet<String> tags;
+  private final LocalDateTime createdAt;
+  private final LocalDateTime startDate;
+  private final LocalDateTime endDate;
+  private final String userId;
+  private final String authorName;
+  private final String isRecurring;
+
+  private PosterSummary(Poster poster) {
+    this.id = poster.getID();
+    this.title = poster.getTitle();
+    this.content = poster.getContent();
+    this.location = poster.getLocation();
+    this.link = poster.getLink();
+    this.tags = poster.getTags();
+    this.createdAt = poster.getCreatedAt();
+    this.startDate = poster.getStartDate();
+    this.endDate = poster.getEndDate();
+    this.userId = poster.getUserId();
+    this.authorName = poster.getAuthorName();
+    this.isRecurring = poster.getIsRecurring();
+  }
+
+  public static PosterSummary of(Poster poster) {
+    return new PosterSummary(poster);
+  }
+
+  @JsonProperty("id")
+  public String getID() {
+    return this.id;
+  }
+
+  public String getTitle() {
+    return this.title;
+  }
+
+  public String getContent() {
+    return this.content;
+  }
+
+  public String getLocation() {
+    return this.location;
+  }
+
+  public String getLink() {
+    return this.link;
+  }
+
+  public HashSet<String> getTags() {
+    return this.tags;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return this.createdAt;
+  }
+
+  public LocalDateTime getStartDate() {
+    return this.startDate;
+  }
+
+  public LocalDateTime getEndDate() {
+    return this.endDate;
+  }
+
+  public String getUserId() {
+    return this.userId;
+  }
+
+  public String getAuthorName() {
+    return this.authorName;
+  }
+
+  public String getIsRecurring() {
+    return this.isRecurring;
+  }
+}
@@ -0,0 +1,42 @@
+package edu.brown.cs.student.main.types;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** How much of each poster a listing returns: a summary for feed cards, or the whole document */
+public enum PosterView {
+  SUMMARY,
+  FULL;
+
+  /**
+   * Reads the view query parameter
+   *
+   * @param view "full" for whole posters; anything else (or null) gets summaries
+   * @return the requested view
+   */
+  public static PosterView of(String view) {
+    return "full".equalsIgnoreCase(view) ? FULL : SUMMARY;
+  }
+
+  /** The fields mongo has to return for this view, or null for whole documents */
+  public String[] fields() {
+    return this == FULL ? null : PosterSummary.FIELDS;
+  }
+
+  /**
+   * Converts posters to what this view sends back
+   *
+   * @param posters the posters, in order
+   * @return the posters themselves, or their summaries
+   */
+  public List<?> render(List<Poster> posters) {
+    if (this == FULL) {
+      return posters;
+    }
+    List<PosterSummary> summaries = new ArrayList<>(posters.size());
+    for (Poster poster : posters) {
+      summaries.add(PosterSummary.of(poster));
+    }
+    return summaries;
+  }
+}
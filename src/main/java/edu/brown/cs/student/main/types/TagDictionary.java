@@ -0,0 +1,62 @@
+package edu.brown.cs.student.main.types;
+
+import edu.brown.cs.student.main.Tags;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Assigns every tag in the known vocabulary (Tags.getTags() plus the OCR jumbo tags) its own bit,
+ * so a set of tags can be encoded as a single long. Tags outside the vocabulary (or past the 64th)
+ * are kept by name in the mask's overflow set.
+ */
+public final class TagDictionary {
+
+  private static final Map<String, Integer> BITS = buildBits();
+
+  private TagDictionary() {}
+
+  private static Map<String, Integer> buildBits() {
+    Tags tags = new Tags();
+    // sorted so the same tag always gets the same bit
+    TreeSet<String> vocabulary = new TreeSet<>(tags.getTags());
+    vocabulary.addAll(tags.getJumboTags().keySet());
+    Map<String, Integer> bits = new HashMap<>();
+    for (String tag : vocabulary) {
+      if (bits.size() == Long.SIZE) {
+        break;
+      }
+      bits.put(tag, bits.size());
+    }
+    return bits;
+  }
+
+  /**
+   * Encodes a set of tags
+   *
+   * @param tags the tags, may be null
+   * @return the bitmask for the known tags, with any others kept by name
+   */
+  public static TagMask encode(Collection<String> tags) {
+    if (tags == null || tags.isEmpty()) {
+      return TagMask.EMPTY;
+    }
+    long bits = 0L;
+    Set<String> overflow = null;
+    for (String tag : tags) {
+      Integer bit = BITS.get(tag);
+      if (bit != null) {
+        bits |= 1L << bit;
+      } else {
+        if (overflow == null) {
+          overflow = new HashSet<>();
+        }
+        overflow.add(tag);
+      }
+    }
+    return new TagMask(bits, overflow);
+  }
+}
@@ -0,0 +1,51 @@
+package edu.brown.cs.student.main.types;
+
+import java.util.Set;
+
+/**
+ * An immutable, dictionary-encoded set of tags (see TagDictionary): one bit per known tag plus an
+ * overflow set for tags outside the vocabulary, which is null in the common case. Containment and
+ * overlap on known tags are single and/bitCount operations with no allocation.
+ */
+public final class TagMask {
+  public static final TagMask EMPTY = new TagMask(0L, null);
+
+  private final long bits;
+  private final Set<String> overflow;
+
+  public TagMask(long bits, Set<String> overflow) {
+    this.bits = bits;
+    this.overflow = overflow == null || overflow.isEmpty() ? null : Set.copyOf(overflow);
+  }
+
+  /** Whether this mask has every tag in the other one */
+  public boolean containsAll(TagMask other) {
+    if ((this.bits & other.bits) != other.bits) {
+      return false;
+    }
+    if (other.overflow == null) {
+      return true;
+    }
+    return this.overflow != null && this.overflow.containsAll(other.overflow);
+  }
+
+  /** How many tags this mask has in common with the other one */
+  public int countShared(TagMask other) {
+    int shared = Long.bitCount(this.bits & other.bits);
+    if (this.overflow != null && other.overflow != null) {
+      boolean thisSmaller = this.overflow.size() <= other.overflow.size();
+      Set<String> smaller = thisSmaller ? this.overflow : other.overflow;
+      Set<String> larger = thisSmaller ? other.overflow : this.overflow;
+      for (String tag : smaller) {
+        if (larger.contains(tag)) {
+          shared++;
+        }
+      }
+    }
+    return shared;
+  }
+
+  public boolean isEmpty() {
+    return this.bits == 0L && this.overflow == null;
+  }
+}
@@ -1,30 +1,50 @@
 package edu.brown.cs.student.main.user;
 
-import edu.brown.cs.student.main.types.Poster;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.brown.cs.student.main.types.TagDictionary;
+import edu.brown.cs.student.main.responses.FieldSet;
+import edu.brown.cs.student.main.types.TagMask;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 import java.util.UUID;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "user")
+@JsonFilter(FieldSet.USER_FILTER)
 public class User {
   @Id private String id; // or some identifier
   private String name;
   private String email;
   private String picture;
-  private Set<Poster> createdPosters; // Assuming a user can have multiple posters
-  private Set<Poster> savedPosters;
-  private Set<Poster> drafts;
+  // ids of posters and drafts, oldest first; the posters themselves are looked up when needed so
+  // they're always current. Only changed through their own endpoints, so ignored in request bodies
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private List<String> createdPosters;
+
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private List<String> savedPosters;
+
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private List<String> drafts;
+
   private HashSet<String> interests;
+  @Transient private TagMask interestMask; // encoded interests, reset when they're replaced
+  // bumped by every write; /users/update sends it back to only apply to the user it was read as
+  @Version private Long version;
 
   /** a no argument constructor so that Jackson can deserialize the json */
   public User() {
     this.id = UUID.randomUUID().toString();
-    this.createdPosters = new HashSet<>();
-    this.savedPosters = new HashSet<>();
+    this.createdPosters = new ArrayList<>();
+    this.savedPosters = new ArrayList<>();
     this.interests = new HashSet<>();
-    this.drafts = new HashSet<>();
+    this.drafts = new ArrayList<>();
   }
   // Getters and Setters
   public String getId() {
@@ -51,11 +71,11 @@ public class User {
     this.email = email;
   }
 
-  public Set<Poster> getCreatedPosters() {
+  public List<String> getCreatedPosters() {
     return createdPosters;
   }
 
-  public void setCreatedPosters(Set<Poster> createdPosters) {
+  public void setCreatedPosters(List<String> createdPosters) {
     this.createdPosters = createdPosters;
   }
 
@@ -67,11 +87,11 @@ public class User {
     this.picture = picture;
   }
 
-  public Set<Poster> getSavedPosters() {
+  public List<String> getSavedPosters() {
     return savedPosters;
   }
 
-  public void setSavedPosters(Set<Poster> savedPosters) {
+  public void setSavedPosters(List<String> savedPosters) {
     this.savedPosters = savedPosters;
   }
 
@@ -81,13 +101,33 @@ public class User {
 
   public void setInterests(HashSet<String> selectedInterests) {
     this.interests = selectedInterests;
+    this.interestMask = null;
+  }
+
+  /** The interests encoded as a TagMask, for scoring posters against them */
+  @JsonIgnore
+  public TagMask getInterestMask() {
+    TagMask mask = this.interestMask;
+    if (mask == null) {
+      mask = TagDictionary.encode(this.interests);
+      this.interestMask = mask;
+    }
+    return mask;
   }
 
-  public Set<Poster> getDrafts() {
+  public List<String> getDrafts() {
     return this.drafts;
   }
 
-  public void setDrafts(Set<Poster> drafts) {
+  public void setDrafts(List<String> drafts) {
     this.drafts = drafts;
   }
+
+  public Long getVersion() {
+    return this.version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
 }
@@ -1,85 +1,140 @@
 package edu.brown.cs.student.main.user;
 
+import edu.brown.cs.student.main.PosterBatchService;
 import edu.brown.cs.student.main.PosterService;
+import edu.brown.cs.student.main.reactive.ReactivePosterService;
+import edu.brown.cs.student.main.reactive.ReactiveUserService;
+import edu.brown.cs.student.main.responses.FieldSet;
 import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.responses.VersionTags;
+import edu.brown.cs.student.main.responses.WriteFailures;
 import edu.brown.cs.student.main.types.Poster;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping(value = "/users")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 public class UserController {
   private final UserService userService;
   private final PosterService posterService;
+  private final PosterBatchService batchService;
+  // only there with posters.stack=reactive
+  private final ReactiveUserService reactiveUserService;
+  private final ReactivePosterService reactivePosterService;
 
-  public UserController(UserService userService, PosterService posterService) {
+  public UserController(
+      UserService userService,
+      PosterService posterService,
+      PosterBatchService batchService,
+      ObjectProvider<ReactiveUserService> reactiveUserService,
+      ObjectProvider<ReactivePosterService> reactivePosterService) {
     this.userService = userService;
     this.posterService = posterService;
+    this.batchService = batchService;
+    this.reactiveUserService = reactiveUserService.getIfAvailable();
+    this.reactivePosterService = reactivePosterService.getIfAvailable();
   }
 
+  /**
+   * Gets every user. Like the other read endpoints, takes an optional fields parameter (e.g.
+   * fields=id,name) that limits both what is read from mongo and what is returned.
+   */
   @GetMapping("/")
-  public CompletableFuture<ResponseEntity<List<User>>> getAllUsers() {
-    return userService.getAllUsers().thenApply(ResponseEntity::ok);
+  public CompletableFuture<ResponseEntity<?>> getAllUsers(
+      @RequestParam(required = false) String fields) {
+    FieldSet fieldSet;
+    try {
+      fieldSet = FieldSet.parse(FieldSet.USER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    return userService
+        .getAllUsers(fieldSet == null ? null : fieldSet.projection())
+        .thenApply(users -> ResponseEntity.ok(FieldSet.select(users, fieldSet)));
   }
 
   @GetMapping("/{id}")
-  public CompletableFuture<ResponseEntity<ServiceResponse<User>>> getUserById(
-      @PathVariable String id) {
-    return userService.getUserById(id).thenApply(ResponseEntity::ok);
+  public CompletableFuture<ResponseEntity<?>> getUserById(
+      @PathVariable String id, @RequestParam(required = false) String fields) {
+    FieldSet fieldSet;
+    try {
+      fieldSet = FieldSet.parse(FieldSet.USER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    String[] projection = fieldSet == null ? null : fieldSet.projection();
+    CompletableFuture<ServiceResponse<User>> user =
+        this.reactiveUserService != null
+            ? this.reactiveUserService.getUserById(id, projection).toFuture()
+            : userService.getUserById(id, projection);
+    return user.thenApply(response -> ResponseEntity.ok(FieldSet.select(response, fieldSet)));
   }
 
   @GetMapping("/savedPosters/{id}")
-  public CompletableFuture<ResponseEntity<ServiceResponse<Set<Poster>>>> getSavedPosters(
-      @PathVariable String id) {
+  public CompletableFuture<ResponseEntity<?>> getSavedPosters(
+      @PathVariable String id, @RequestParam(required = false) String fields) {
+    FieldSet fieldSet;
+    try {
+      fieldSet = FieldSet.parse(FieldSet.POSTER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    // only the one list of ids is read from the user document, then the posters in one batch
     return userService
-        .getUserById(id)
+        .getUserById(id, new String[] {"savedPosters"})
         .thenCompose(
-            userServiceResponse -> {
-              Set<Poster> savedPosters = userServiceResponse.getData().getSavedPosters();
-              ServiceResponse<Set<Poster>> serviceResponse =
-                  new ServiceResponse<>(savedPosters, "Retrieved saved posters");
-              return CompletableFuture.completedFuture(serviceResponse);
-            })
-        .thenApply(response -> ResponseEntity.ok(response))
+            userServiceResponse ->
+                batchService.getPosters(userServiceResponse.getData().getSavedPosters()))
+        .<ResponseEntity<?>>thenApply(
+            response -> ResponseEntity.ok(FieldSet.select(response, fieldSet)))
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 
   @GetMapping("/drafts/{id}")
-  public CompletableFuture<ResponseEntity<ServiceResponse<Set<Poster>>>> getDrafts(
-      @PathVariable String id) {
+  public CompletableFuture<ResponseEntity<?>> getDrafts(
+      @PathVariable String id, @RequestParam(required = false) String fields) {
+    FieldSet fieldSet;
+    try {
+      fieldSet = FieldSet.parse(FieldSet.POSTER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    // only the one list of ids is read from the user document, then the posters in one batch
     return userService
-        .getUserById(id)
+        .getUserById(id, new String[] {"drafts"})
         .thenCompose(
-            userServiceResponse -> {
-              Set<Poster> drafts = userServiceResponse.getData().getDrafts();
-              ServiceResponse<Set<Poster>> serviceResponse =
-                  new ServiceResponse<>(drafts, "Retrieved saved posters");
-              return CompletableFuture.completedFuture(serviceResponse);
-            })
-        .thenApply(response -> ResponseEntity.ok(response))
+            userServiceResponse ->
+                batchService.getDrafts(userServiceResponse.getData().getDrafts()))
+        .<ResponseEntity<?>>thenApply(
+            response -> ResponseEntity.ok(FieldSet.select(response, fieldSet)))
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 
   @GetMapping("/createdPosters/{id}")
-  public CompletableFuture<ResponseEntity<ServiceResponse<Set<Poster>>>> getCreatedPosters(
-      @PathVariable String id) {
+  public CompletableFuture<ResponseEntity<?>> getCreatedPosters(
+      @PathVariable String id, @RequestParam(required = false) String fields) {
+    FieldSet fieldSet;
+    try {
+      fieldSet = FieldSet.parse(FieldSet.POSTER_FILTER, fields);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
+    // only the one list of ids is read from the user document, then the posters in one batch
     return userService
-        .getUserById(id)
+        .getUserById(id, new String[] {"createdPosters"})
         .thenCompose(
-            userServiceResponse -> {
-              Set<Poster> createdPosters = userServiceResponse.getData().getCreatedPosters();
-              ServiceResponse<Set<Poster>> serviceResponse =
-                  new ServiceResponse<>(createdPosters, "Retrieved saved posters");
-              return CompletableFuture.completedFuture(serviceResponse);
-            })
-        .thenApply(response -> ResponseEntity.ok(response))
+            userServiceResponse ->
+                batchService.getPosters(userServiceResponse.getData().getCreatedPosters()))
+        .<ResponseEntity<?>>thenApply(
+            response -> ResponseEntity.ok(FieldSet.select(response, fieldSet)))
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 
@@ -122,9 +177,21 @@ public class UserController {
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 
+  /**
+   * Updates a user's name, email, picture and interests. The response's ETag is the user's new
+   * version; if it is sent back in If-Match and the user's profile has changed since, nothing is
+   * changed and the response is a 409. A version in the body is ignored.
+   */
   @PutMapping("/update/{id}")
   public CompletableFuture<ResponseEntity<ServiceResponse<User>>> updateUser(
-      @PathVariable String id, @RequestBody User updatedUser) {
+      @PathVariable String id,
+      @RequestBody User updatedUser,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    try {
+      updatedUser.setVersion(VersionTags.fromIfMatch(ifMatch));
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+    }
     return userService
         .getUserById(id)
         .thenCompose(
@@ -137,84 +204,90 @@ public class UserController {
                     new ServiceResponse<>("User with id " + id + " not found"));
               }
             })
-        .thenApply(response -> ResponseEntity.ok(response))
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+        .thenApply(response -> VersionTags.ok(response, User::getVersion))
+        .exceptionally(WriteFailures::toResponse);
   }
 
+  /**
+   * Adds a poster to a user's saved posters. Only the user's id and saved posters are returned.
+   */
   @PutMapping("/savePoster")
-  public CompletableFuture<ResponseEntity<ServiceResponse<User>>> savePoster(
+  public CompletableFuture<ResponseEntity<?>> savePoster(
       @RequestParam(required = false) String posterId,
       @RequestParam(required = false) String userId) {
-    return posterService
-        .getPosterById(posterId)
-        .thenCompose(
-            poster -> {
-              return userService
-                  .getUserById(userId)
-                  .thenCompose(
-                      user -> {
-                        if (user.getData() != null) {
-                          if (poster.getData() != null) {
-                            return userService.savePoster(userId, poster.getData());
-                          } else {
-                            return CompletableFuture.completedFuture(
-                                new ServiceResponse<>("poster not found " + posterId));
-                          }
-                        } else {
-                          return CompletableFuture.completedFuture(
-                              new ServiceResponse<>("user not found " + userId));
-                        }
-                      });
-            })
-        .thenApply(response -> ResponseEntity.ok(response))
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    CompletableFuture<ServiceResponse<User>> saved;
+    if (this.reactiveUserService != null) {
+      saved =
+          this.reactivePosterService
+              .getPosterById(posterId)
+              .flatMap(
+                  poster ->
+                      poster.getData() != null
+                          ? this.reactiveUserService.savePoster(userId, poster.getData())
+                          : Mono.just(new ServiceResponse<User>("poster not found " + posterId)))
+              .toFuture();
+    } else {
+      // the update itself reports a missing user, so the user isn't read first
+      saved =
+          posterService
+              .getPosterById(posterId)
+              .thenCompose(
+                  poster ->
+                      poster.getData() != null
+                          ? userService.savePoster(userId, poster.getData())
+                          : CompletableFuture.completedFuture(
+                              new ServiceResponse<>("poster not found " + posterId)));
+    }
+    return changed(saved, UserUpdates.SAVED_POSTERS);
   }
 
+  /**
+   * Removes a poster from a user's saved posters, even if the poster itself has been deleted since.
+   * Only the user's id and saved posters are returned.
+   */
   @PutMapping("/unsavePoster")
-  public CompletableFuture<ResponseEntity<ServiceResponse<User>>> unsavePoster(
+  public CompletableFuture<ResponseEntity<?>> unsavePoster(
       @RequestParam(required = false) String posterId,
       @RequestParam(required = false) String userId) {
-    return posterService
-        .getPosterById(posterId)
-        .thenCompose(
-            poster -> {
-              return userService
-                  .getUserById(userId)
-                  .thenCompose(
-                      user -> {
-                        if (user.getData() != null) {
-                          if (poster.getData() != null) {
-                            System.out.println(posterId);
-                            return userService.unsavePoster(userId, posterId);
-                          } else {
-                            return CompletableFuture.completedFuture(
-                                new ServiceResponse<>("poster not found " + posterId));
-                          }
-                        } else {
-                          return CompletableFuture.completedFuture(
-                              new ServiceResponse<>("user not found " + userId));
-                        }
-                      });
-            })
-        .thenApply(response -> ResponseEntity.ok(response))
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    CompletableFuture<ServiceResponse<User>> unsaved =
+        this.reactiveUserService != null
+            ? this.reactiveUserService.unsavePoster(userId, posterId).toFuture()
+            : userService.unsavePoster(userId, posterId);
+    return changed(unsaved, UserUpdates.SAVED_POSTERS);
   }
 
+  /** Adds interests to a user. Only the user's id and interests are returned. */
   @PutMapping("/addInterest")
-  public CompletableFuture<ResponseEntity<ServiceResponse<User>>> addInterests(
+  public CompletableFuture<ResponseEntity<?>> addInterests(
       @RequestParam String userId, @RequestParam HashSet<String> interests) {
-    return this.userService
-        .addInterests(userId, interests)
-        .thenApply(response -> ResponseEntity.ok(response))
-        .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    CompletableFuture<ServiceResponse<User>> updated =
+        this.reactiveUserService != null
+            ? this.reactiveUserService.addInterests(userId, interests).toFuture()
+            : this.userService.addInterests(userId, interests);
+    return changed(updated, UserUpdates.INTERESTS);
   }
 
+  /** Removes interests from a user. Only the user's id and interests are returned. */
   @PutMapping("/removeInterest")
-  public CompletableFuture<ResponseEntity<ServiceResponse<User>>> removeInterests(
+  public CompletableFuture<ResponseEntity<?>> removeInterests(
       @RequestParam String userId, @RequestParam HashSet<String> interests) {
-    return this.userService
-        .removeInterests(userId, interests)
-        .thenApply(response -> ResponseEntity.ok(response))
+    CompletableFuture<ServiceResponse<User>> updated =
+        this.reactiveUserService != null
+            ? this.reactiveUserService.removeInterests(userId, interests).toFuture()
+            : this.userService.removeInterests(userId, interests);
+    return changed(updated, UserUpdates.INTERESTS);
+  }
+
+  /**
+   * Responds with just the id and the changed field of the user: the updates only read that field
+   * back, so the rest of the user would be missing anyway.
+   */
+  private static CompletableFuture<ResponseEntity<?>> changed(
+      CompletableFuture<ServiceResponse<User>> update, String field) {
+    FieldSet fieldSet = FieldSet.parse(FieldSet.USER_FILTER, "id," + field);
+    return update
+        .<ResponseEntity<?>>thenApply(
+            response -> ResponseEntity.ok(FieldSet.select(response, fieldSet)))
         .exceptionally(ex -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
   }
 }
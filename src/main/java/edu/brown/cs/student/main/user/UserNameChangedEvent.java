@@ -0,0 +1,23 @@
+package edu.brown.cs.student.main.user;
+
+/**
+ * Published by UserService when an update changes a user's name, so copies of the name stored on
+ * posters and drafts can be brought up to date
+ */
+public class UserNameChangedEvent {
+  private final String userId;
+  private final String name;
+
+  public UserNameChangedEvent(String userId, String name) {
+    this.userId = userId;
+    this.name = name;
+  }
+
+  public String getUserId() {
+    return this.userId;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+}
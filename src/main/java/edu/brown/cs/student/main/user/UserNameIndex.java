@@ -0,0 +1,124 @@
+package edu.brown.cs.student.main.user;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lowercased user name -> ids of the users with that name. Loaded from the user collection at
+ * startup, kept current by UserService on create, update and delete, and reloaded periodically so
+ * changes made by other instances show up. Names are kept sorted so a prefix lookup only walks the
+ * names that start with the prefix.
+ */
+@Component
+public class UserNameIndex {
+
+  /** Both maps are swapped together on reload */
+  private static final class Names {
+    private final ConcurrentSkipListMap<String, Set<String>> idsByName =
+        new ConcurrentSkipListMap<>();
+    private final Map<String, String> nameById = new ConcurrentHashMap<>();
+  }
+
+  private final UserRepository userRepository;
+
+  private volatile Names names = new Names();
+
+  public UserNameIndex(UserRepository userRepository) {
+    this.userRepository = userRepository;
+  }
+
+  /**
+   * Reloads every user's name (only ids and names are read from mongo). Runs at startup and then
+   * every posters.name-index.refresh-ms. Local writes wait for a reload to finish, so none are lost.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelayString = "${posters.name-index.refresh-ms:300000}",
+      fixedDelayString = "${posters.name-index.refresh-ms:300000}")
+  public synchronized void reload() {
+    Names reloaded = new Names();
+    for (User user : this.userRepository.findAllNames()) {
+      put(reloaded, user.getId(), user.getName());
+    }
+    this.names = reloaded;
+  }
+
+  /** Records a user's current name, replacing whatever name they had before */
+  public synchronized void put(String userId, String name) {
+    put(this.names, userId, name);
+  }
+
+  /** Forgets a deleted user */
+  public synchronized void remove(String userId) {
+    Names current = this.names;
+    String previous = current.nameById.remove(userId);
+    if (previous != null) {
+      removeId(current, normalize(previous), userId);
+    }
+  }
+
+  /**
+   * Gets the ids of users with the given name, ignoring case
+   *
+   * @param name the full name
+   * @return the matching user ids
+   */
+  public Set<String> idsNamed(String name) {
+    Set<String> ids = this.names.idsByName.get(normalize(name));
+    return ids == null ? Set.of() : Collections.unmodifiableSet(ids);
+  }
+
+  /**
+   * Gets the ids of users whose name starts with the given prefix, ignoring case
+   *
+   * @param prefix the start of the name
+   * @return the matching user ids
+   */
+  public Set<String> idsWithPrefix(String prefix) {
+    String start = normalize(prefix);
+    ConcurrentNavigableMap<String, Set<String>> matches =
+        this.names.idsByName.subMap(start, true, start + Character.MAX_VALUE, true);
+    Set<String> ids = new HashSet<>();
+    matches.values().forEach(ids::addAll);
+    return ids;
+  }
+
+  private static void put(Names names, String userId, String name) {
+    String previous =
+        name == null ? names.nameById.remove(userId) : names.nameById.put(userId, name);
+    if (previous != null) {
+      if (previous.equals(name)) {
+        return;
+      }
+      removeId(names, normalize(previous), userId);
+    }
+    if (name != null) {
+      names.idsByName
+          .computeIfAbsent(normalize(name), key -> ConcurrentHashMap.newKeySet())
+          .add(userId);
+    }
+  }
+
+  private static void removeId(Names names, String key, String userId) {
+    Set<String> ids = names.idsByName.get(key);
+    if (ids != null) {
+      ids.remove(userId);
+      if (ids.isEmpty()) {
+        names.idsByName.remove(key, ids);
+      }
+    }
+  }
+
+  private static String normalize(String name) {
+    return name.trim().toLowerCase();
+  }
+}
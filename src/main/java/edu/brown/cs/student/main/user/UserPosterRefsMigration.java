@@ -0,0 +1,84 @@
+package edu.brown.cs.student.main.user;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Users used to store whole copies of their created posters, saved posters and drafts; they now
+ * store the poster ids. This rewrites any user still holding copies, keeping the order and dropping
+ * repeated ids. It runs while the app starts, before anything reads users, because a user with
+ * copies in its lists can't be read into a User any more. So if it fails the app doesn't start;
+ * users already rewritten no longer match, so the next start carries on with the rest.
+ */
+@Component
+public class UserPosterRefsMigration {
+  private static final Logger LOG = LoggerFactory.getLogger(UserPosterRefsMigration.class);
+
+  private static final List<String> FIELDS =
+      List.of(UserUpdates.CREATED_POSTERS, UserUpdates.SAVED_POSTERS, UserUpdates.DRAFTS);
+
+  private final MongoTemplate mongoTemplate;
+
+  public UserPosterRefsMigration(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @PostConstruct
+  public void migrate() {
+    MongoCollection<Document> users =
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class));
+    // an array matches $type: "object" if any of its elements is a document
+    List<Bson> embedded = new ArrayList<>();
+    for (String field : FIELDS) {
+      embedded.add(Filters.type(field, BsonType.DOCUMENT));
+    }
+    Bson lists = Projections.include(FIELDS);
+    int migrated = 0;
+    try {
+      for (Document user : users.find(Filters.or(embedded)).projection(lists)) {
+        Document ids = new Document();
+        for (String field : FIELDS) {
+          ids.put(field, ids(user.get(field)));
+        }
+        users.updateOne(Filters.eq("_id", user.get("_id")), new Document("$set", ids));
+        migrated++;
+      }
+    } catch (RuntimeException e) {
+      throw new IllegalStateException(
+          "Could not store poster ids on users (" + migrated + " rewritten before failing)", e);
+    }
+    if (migrated > 0) {
+      LOG.info("Stored poster ids instead of poster copies on {} users", migrated);
+    }
+  }
+
+  /** The ids in one of the old lists, which may already hold some ids */
+  private static List<String> ids(Object list) {
+    Set<String> ids = new LinkedHashSet<>();
+    if (list instanceof List<?> elements) {
+      for (Object element : elements) {
+        Object id = element;
+        if (element instanceof Document poster) {
+          id = poster.containsKey("_id") ? poster.get("_id") : poster.get("id");
+        }
+        if (id != null) {
+          ids.add(id.toString());
+        }
+      }
+    }
+    return new ArrayList<>(ids);
+  }
+}
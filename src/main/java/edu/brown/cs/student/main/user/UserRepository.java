@@ -1,14 +1,20 @@
 package edu.brown.cs.student.main.user;
 
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
   // Custom query methods if needed
   // User findByUsername(String username);
   // Optional<User> findByUsername(String username);
 
   Optional<User> findByEmail(String email);
+
+  /** Every user with only the id and name loaded, for building the name index */
+  @Query(value = "{}", fields = "{ 'name': 1 }")
+  List<User> findAllNames();
 }
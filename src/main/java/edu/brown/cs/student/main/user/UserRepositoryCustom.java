@@ -0,0 +1,73 @@
+package edu.brown.cs.student.main.user;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Queries for users that load only some fields, which derived query methods can't vary, and the
+ * atomic updates from UserUpdates. The updates return the user with only the changed field loaded.
+ */
+public interface UserRepositoryCustom {
+
+  /**
+   * Finds a user with only the given fields loaded
+   *
+   * @param id the user's id
+   * @param fields the fields to load
+   * @return the user, with the other fields left unset
+   */
+  Optional<User> findProjectedById(String id, String[] fields);
+
+  /**
+   * Finds every user with only the given fields loaded
+   *
+   * @param fields the fields to load
+   * @return all users, with the other fields left unset
+   */
+  List<User> findAllProjected(String[] fields);
+
+  /**
+   * Adds a poster id to the end of one of a user's poster lists, unless it's already there
+   *
+   * @param id the user's id
+   * @param field createdPosters, savedPosters or drafts
+   * @param posterId the poster to add
+   * @return the updated user with the list and the name loaded, or empty if there's no such user
+   */
+  Optional<User> addPoster(String id, String field, String posterId);
+
+  /**
+   * Removes the poster with this id from one of a user's poster lists
+   *
+   * @param id the user's id
+   * @param field createdPosters, savedPosters or drafts
+   * @param posterId the poster to remove
+   * @return the updated user, or empty if there's no such user
+   */
+  Optional<User> removePoster(String id, String field, String posterId);
+
+  /**
+   * Adds interests a user doesn't have yet
+   *
+   * @return the updated user, or empty if there's no such user
+   */
+  Optional<User> addInterests(String id, Set<String> interests);
+
+  /**
+   * Removes interests, but only if the user has all of them
+   *
+   * @return the updated user, or empty if there's no such user or it's missing one of them
+   */
+  Optional<User> removeInterests(String id, Set<String> interests);
+
+  /**
+   * Sets a user's name, email, picture and interests, whichever of them are set on the given user.
+   * The poster lists are left alone. If the given user has a version, the user is only updated if
+   * it's still at that version.
+   *
+   * @param user the new values, with the user's id and optionally the version they're based on
+   * @return the updated user, or empty if there's no such user or it has moved past the version
+   */
+  Optional<User> updateProfile(User user);
+}
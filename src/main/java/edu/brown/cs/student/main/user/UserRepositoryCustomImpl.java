@@ -0,0 +1,93 @@
+package edu.brown.cs.student.main.user;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/** Picked up by Spring Data as the implementation of UserRepositoryCustom */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+
+  public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public Optional<User> findProjectedById(String id, String[] fields) {
+    Query query = new Query(Criteria.where("id").is(id));
+    query.fields().include(fields);
+    return Optional.ofNullable(mongoTemplate.findOne(query, User.class));
+  }
+
+  @Override
+  public List<User> findAllProjected(String[] fields) {
+    Query query = new Query();
+    query.fields().include(fields);
+    return mongoTemplate.find(query, User.class);
+  }
+
+  @Override
+  public Optional<User> addPoster(String id, String field, String posterId) {
+    return Optional.ofNullable(
+        mongoTemplate.findAndModify(
+            UserUpdates.user(id, field, "name"),
+            UserUpdates.addPoster(field, posterId),
+            UserUpdates.returnNew(),
+            User.class));
+  }
+
+  @Override
+  public Optional<User> removePoster(String id, String field, String posterId) {
+    return Optional.ofNullable(
+        mongoTemplate.findAndModify(
+            UserUpdates.user(id, field),
+            UserUpdates.removePoster(field, posterId),
+            UserUpdates.returnNew(),
+            User.class));
+  }
+
+  @Override
+  public Optional<User> addInterests(String id, Set<String> interests) {
+    return Optional.ofNullable(
+        mongoTemplate.findAndModify(
+            UserUpdates.user(id, UserUpdates.INTERESTS),
+            UserUpdates.addInterests(interests),
+            UserUpdates.returnNew(),
+            User.class));
+  }
+
+  @Override
+  public Optional<User> removeInterests(String id, Set<String> interests) {
+    return Optional.ofNullable(
+        mongoTemplate.findAndModify(
+            UserUpdates.userWithInterests(id, interests),
+            UserUpdates.removeInterests(interests),
+            UserUpdates.returnNew(),
+            User.class));
+  }
+
+  @Override
+  public Optional<User> updateProfile(User user) {
+    Update update = new Update();
+    if (user.getName() != null) update.set("name", user.getName());
+    if (user.getEmail() != null) update.set("email", user.getEmail());
+    if (user.getPicture() != null) update.set("picture", user.getPicture());
+    if (user.getInterests() != null) update.set(UserUpdates.INTERESTS, user.getInterests());
+    Criteria criteria = Criteria.where("id").is(user.getId());
+    if (user.getVersion() != null) {
+      criteria.and(UserUpdates.VERSION).is(user.getVersion());
+    }
+    // the whole user comes back, so UserService can cache it
+    Query query = new Query(criteria);
+    if (update.getUpdateObject().isEmpty()) {
+      return Optional.ofNullable(mongoTemplate.findOne(query, User.class));
+    }
+    update.inc(UserUpdates.VERSION, 1);
+    return Optional.ofNullable(
+        mongoTemplate.findAndModify(query, update, UserUpdates.returnNew(), User.class));
+  }
+}
@@ -1,14 +1,20 @@
 package edu.brown.cs.student.main.user;
 
+import edu.brown.cs.student.main.AsyncConfig;
+import edu.brown.cs.student.main.cache.UserCache;
 import edu.brown.cs.student.main.responses.ServiceResponse;
 import edu.brown.cs.student.main.types.Poster;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -17,12 +23,25 @@ public class UserService {
 
   private final UserRepository userRepository;
 
+  private final UserCache userCache;
+
+  private final UserNameIndex nameIndex;
+
+  private final ApplicationEventPublisher eventPublisher;
+
   @Autowired
-  public UserService(UserRepository userRepository) {
+  public UserService(
+      UserRepository userRepository,
+      UserCache userCache,
+      UserNameIndex nameIndex,
+      ApplicationEventPublisher eventPublisher) {
     this.userRepository = userRepository;
+    this.userCache = userCache;
+    this.nameIndex = nameIndex;
+    this.eventPublisher = eventPublisher;
   }
 
-  @Async
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<User>> createUser(User user) {
     ServiceResponse<User> response;
 
@@ -32,7 +51,7 @@ public class UserService {
       response = new ServiceResponse<>("Invalid user data");
     } else {
       // Check if the username is already taken
-      if (userRepository.findById(user.getId()).isPresent()) {
+      if (userCache.get(user.getId()).isPresent()) {
         response = new ServiceResponse<>("User is already created");
       } else {
         // Check if the email is already taken
@@ -40,8 +59,11 @@ public class UserService {
         //          response = new ServiceResponse<>("Email is already taken");
         //        } else {
 
-        // Save the User object to the database
-        User savedUser = userRepository.save(user);
+        // Save the User object to the database; a new user starts at version 0
+        user.setVersion(null);
+        User savedUser = userRepository.insert(user);
+        userCache.put(savedUser);
+        nameIndex.put(savedUser.getId(), savedUser.getName());
 
         // Determine the response message based on whether the user was inserted or updated
         String message =
@@ -61,8 +83,9 @@ public class UserService {
     return str == null || str.trim().isEmpty();
   }
 
+  /** Gets a whole user, from the UserCache if it has it. The user must not be changed. */
   public CompletableFuture<ServiceResponse<User>> getUserById(String id) {
-    Optional<User> userOptional = userRepository.findById(id);
+    Optional<User> userOptional = userCache.get(id);
 
     return userOptional
         .map(user -> CompletableFuture.completedFuture(new ServiceResponse<>(user, "User found")))
@@ -70,8 +93,27 @@ public class UserService {
             () -> CompletableFuture.completedFuture(new ServiceResponse<>("User not found")));
   }
 
+  /**
+   * Gets a user with only some fields read from mongo, or the whole user if it's cached
+   *
+   * @param id the user's id
+   * @param fields the fields to read, or null for the whole user
+   * @return the user, with at least the given fields set
+   */
+  public CompletableFuture<ServiceResponse<User>> getUserById(String id, String[] fields) {
+    Optional<User> cached = userCache.getIfPresent(id);
+    if (fields == null || cached.isPresent()) {
+      return this.getUserById(id);
+    }
+    return CompletableFuture.completedFuture(
+        userRepository
+            .findProjectedById(id, fields)
+            .map(user -> new ServiceResponse<>(user, "User found"))
+            .orElseGet(() -> new ServiceResponse<>("User not found")));
+  }
+
   public CompletableFuture<ServiceResponse<User>> getUserPosters(String id) {
-    Optional<User> userOptional = userRepository.findById(id);
+    Optional<User> userOptional = userCache.get(id);
 
     return userOptional
         .map(user -> CompletableFuture.completedFuture(new ServiceResponse<>(user, "User found")))
@@ -83,12 +125,51 @@ public class UserService {
     return CompletableFuture.completedFuture(userRepository.findAll());
   }
 
-  public CompletableFuture<ServiceResponse<User>> updateUser(User updatedUser) {
-    // Implement logic to update user data, e.g., change name, email, etc.
+  /** Gets the users with the given ids, skipping ids that have no user */
+  public CompletableFuture<List<User>> getUsersByIds(Collection<String> ids) {
+    return CompletableFuture.completedFuture(userRepository.findAllById(ids));
+  }
 
-    User updated = userRepository.save(updatedUser);
+  /**
+   * Gets every user with only some fields read from mongo
+   *
+   * @param fields the fields to read, or null for whole users
+   * @return all users, with the other fields left unset
+   */
+  public CompletableFuture<List<User>> getAllUsers(String[] fields) {
+    if (fields == null) {
+      return this.getAllUsers();
+    }
+    return CompletableFuture.completedFuture(userRepository.findAllProjected(fields));
+  }
+
+  /**
+   * Updates a user's name, email, picture and interests. The poster lists aren't touched (or read):
+   * they're only changed through their own endpoints.
+   */
+  public CompletableFuture<ServiceResponse<User>> updateUser(User updatedUser) {
+    // usually cached, since the controller has just read the user
+    String previousName = userCache.get(updatedUser.getId()).map(User::getName).orElse(null);
+
+    User updated = userRepository.updateProfile(updatedUser).orElse(null);
+    if (updated == null
+        && updatedUser.getVersion() != null
+        && userRepository.existsById(updatedUser.getId())) {
+      return CompletableFuture.failedFuture(
+          new OptimisticLockingFailureException(
+              "User "
+                  + updatedUser.getId()
+                  + " has changed since version "
+                  + updatedUser.getVersion()));
+    }
 
     if (updated != null) {
+      userCache.put(updated);
+      nameIndex.put(updated.getId(), updated.getName());
+      if (!Objects.equals(previousName, updated.getName())) {
+        // posters keep a copy of the author's name for searching
+        eventPublisher.publishEvent(new UserNameChangedEvent(updated.getId(), updated.getName()));
+      }
       return CompletableFuture.completedFuture(new ServiceResponse<>(updated, "User updated"));
     } else {
       return CompletableFuture.completedFuture(new ServiceResponse<>("Failed to update user"));
@@ -96,171 +177,129 @@ public class UserService {
   }
 
   public CompletionStage<Object> deleteUserById(String id) {
-    Optional<User> userToDelete = userRepository.findById(id);
+    Optional<User> userToDelete = userCache.get(id);
 
     if (userToDelete.isPresent()) {
       userRepository.deleteById(id);
+      userCache.invalidate(id);
+      nameIndex.remove(id);
       return CompletableFuture.completedFuture(new ServiceResponse<>("User deleted"));
     } else {
       return CompletableFuture.completedFuture(new ServiceResponse<>("User not found"));
     }
   }
 
-  @Async
+  /**
+   * Adds a poster to the user's created posters or drafts and stamps it with the author's id and
+   * name. The list is changed in place on the server, so concurrent changes to the same user are
+   * kept; the returned user only has that list and its name loaded.
+   */
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<User>> associatePosterWithUser(
       String userId, Poster poster, boolean isDraft) {
-    // Find the user by ID
-    System.out.println("reached associatePosterWithUser function");
-    return userRepository
-        .findById(userId)
-        .map(
-            user -> {
-              // Set the user ID in the poster
-              poster.setUserId(userId);
-              // Add the poster to the user's list of posters
-              if (isDraft) {
-                user.getDrafts().add(poster);
-              } else {
-                user.getCreatedPosters().add(poster);
-                System.out.println("attempted to add poster to user's hashset");
-              }
-
-              // Save the updated user
-              System.out.println("Trying to save");
-
-              userRepository.save(user);
-
-              // Create a response object
-              System.out.println("Trying to return service response");
-              return new ServiceResponse<>(user, "Poster associated with user");
-            })
-        .map(CompletableFuture::completedFuture) // Remove this line
-        .orElse(CompletableFuture.completedFuture(new ServiceResponse<>("User not found")));
+    String field = isDraft ? UserUpdates.DRAFTS : UserUpdates.CREATED_POSTERS;
+    Optional<User> updated = userRepository.addPoster(userId, field, poster.getID());
+    userCache.invalidate(userId);
+    updated.ifPresent(
+        author -> {
+          // Set the user ID and name in the poster
+          poster.setUserId(userId);
+          poster.setAuthorName(author.getName());
+        });
+    return CompletableFuture.completedFuture(
+        updated
+            .map(user -> new ServiceResponse<>(user, "Poster associated with user"))
+            .orElseGet(() -> new ServiceResponse<>("User not found")));
   }
 
-  @Async
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<User>> removeFromDrafts(String userId, Poster poster) {
-    // Find the user by ID
-    return userRepository
-        .findById(userId)
-        .map(
-            user -> {
-              // Set the user ID in the poster
-              // Add the poster to the user's list of posters
-              for (Poster draft : user.getDrafts()) {
-                if (draft.getID().equals(poster.getID())) {
-                  user.getDrafts().remove(draft);
-                  break;
-                }
-              }
-              // user.getDrafts().remove(poster);
-
-              // Save the updated user
-
-              System.out.println("Trying to save");
-              this.updateUser(user);
-
-              // Create a response object
-              System.out.println("Trying to return service response");
-              return new ServiceResponse<>(user, "Poster associated with user");
-            })
-        .map(CompletableFuture::completedFuture) // Remove this line
-        .orElse(CompletableFuture.completedFuture(new ServiceResponse<>("User not found")));
+    Optional<User> updated =
+        userRepository.removePoster(userId, UserUpdates.DRAFTS, poster.getID());
+    userCache.invalidate(userId);
+    return CompletableFuture.completedFuture(
+        updated
+            .map(user -> new ServiceResponse<>(user, "Poster associated with user"))
+            .orElseGet(() -> new ServiceResponse<>("User not found")));
+  }
+
+  @Async(AsyncConfig.WRITES)
+  public CompletableFuture<ServiceResponse<User>> removeFromCreatedPosters(
+      String userId, String posterId) {
+    Optional<User> updated =
+        userRepository.removePoster(userId, UserUpdates.CREATED_POSTERS, posterId);
+    userCache.invalidate(userId);
+    return CompletableFuture.completedFuture(
+        updated
+            .map(user -> new ServiceResponse<>(user, "Poster removed from user's created posters"))
+            .orElseGet(() -> new ServiceResponse<>("User not found")));
   }
 
-  @Async
+  /** Adds a poster to the user's saved posters; the returned user only has those loaded */
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<User>> savePoster(String userId, Poster poster) {
-    // Find the user by ID
-    // System.out.println("reached associatePosterWithUser function");
-    return userRepository
-        .findById(userId)
-        .map(
-            user -> {
-              // Add the poster to the user's list of posters
-              user.getSavedPosters().add(poster);
-              // Save the updated user
-              // System.out.println("Trying to save");
-              this.updateUser(user);
-              // Create a response object
-              // System.out.println("Trying to return service response");
-              return new ServiceResponse<>(user, "Poster saved");
-            })
-        .map(CompletableFuture::completedFuture) // Remove this line
-        .orElse(CompletableFuture.completedFuture(new ServiceResponse<>("User not found")));
+    Optional<User> updated =
+        userRepository.addPoster(userId, UserUpdates.SAVED_POSTERS, poster.getID());
+    userCache.invalidate(userId);
+    return CompletableFuture.completedFuture(
+        updated
+            .map(user -> new ServiceResponse<>(user, "Poster saved"))
+            .orElseGet(() -> new ServiceResponse<>("User not found")));
   }
 
-  @Async
+  /** Removes a poster from the user's saved posters; the returned user only has those loaded */
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<User>> unsavePoster(String userId, String posterId) {
-    // Find the user by ID
-    // System.out.println("reached associatePosterWithUser function");
-    return userRepository
-        .findById(userId)
-        .map(
-            user -> {
-              // Add the poster to the user's list of posters
-              Set<Poster> userPosters = user.getSavedPosters();
-              userPosters.removeIf(foundPoster -> foundPoster.getID().equals(posterId));
-              user.setSavedPosters(userPosters);
-              // Save the updated user
-              System.out.println(userPosters);
-
-              this.updateUser(user);
-              // Create a response object
-              // System.out.println("Trying to return service response");
-              return new ServiceResponse<>(user, "Poster removed from user");
-            })
-        .map(CompletableFuture::completedFuture) // Remove this line
-        .orElse(CompletableFuture.completedFuture(new ServiceResponse<>("User not found")));
+    Optional<User> updated =
+        userRepository.removePoster(userId, UserUpdates.SAVED_POSTERS, posterId);
+    userCache.invalidate(userId);
+    return CompletableFuture.completedFuture(
+        updated
+            .map(user -> new ServiceResponse<>(user, "Poster removed from user"))
+            .orElseGet(() -> new ServiceResponse<>("User not found")));
   }
 
-  @Async
+  /** Adds interests; the returned user only has its interests loaded */
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<User>> addInterests(
       String userId, HashSet<String> interests) {
-    // Find the user by ID
-    // System.out.println("reached associatePosterWithUser function");
-    return userRepository
-        .findById(userId)
-        .map(
-            user -> {
-              HashSet<String> currInterests = user.getInterests();
-              currInterests.addAll(interests);
-              user.setInterests(currInterests);
-              this.updateUser(user);
-
-              return new ServiceResponse<>(user, "Interest(s) added");
-            })
-        .map(CompletableFuture::completedFuture) // Remove this line
-        .orElse(CompletableFuture.completedFuture(new ServiceResponse<>("User not found")));
+    Optional<User> updated = userRepository.addInterests(userId, interests);
+    userCache.invalidate(userId);
+    return CompletableFuture.completedFuture(
+        updated
+            .map(user -> new ServiceResponse<>(user, "Interest(s) added"))
+            .orElseGet(() -> new ServiceResponse<>("User not found")));
   }
 
-  @Async
+  /**
+   * Removes interests, or none of them if the user doesn't have them all; the returned user only
+   * has its interests loaded
+   */
+  @Async(AsyncConfig.WRITES)
   public CompletableFuture<ServiceResponse<User>> removeInterests(
       String userId, Set<String> interests) {
-    // Find the user by ID
-    // System.out.println("reached associatePosterWithUser function");
-    return userRepository
-        .findById(userId)
-        .map(
-            user -> {
-              HashSet<String> currInterests = user.getInterests();
-              for (String interest : interests) {
-                if (currInterests.contains(interest)) {
-                  currInterests.remove(interest);
-                } else {
-                  return new ServiceResponse<>(
-                      user, "Interest to be removed is not in user's selected interests");
-                }
-              }
-              user.setInterests(currInterests);
-              this.updateUser(user);
-
-              return new ServiceResponse<>(user, "Interest(s) removed");
-            })
-        .map(CompletableFuture::completedFuture) // Remove this line
-        .orElse(CompletableFuture.completedFuture(new ServiceResponse<>("User not found")));
+    Optional<User> updated =
+        interests.isEmpty()
+            ? userRepository.findProjectedById(userId, new String[] {UserUpdates.INTERESTS})
+            : userRepository.removeInterests(userId, interests);
+    userCache.invalidate(userId);
+    if (updated.isPresent()) {
+      return CompletableFuture.completedFuture(
+          new ServiceResponse<>(updated.get(), "Interest(s) removed"));
+    }
+    // nothing matched: either there's no such user or it's missing one of the interests
+    return CompletableFuture.completedFuture(
+        userRepository
+            .findProjectedById(userId, new String[] {UserUpdates.INTERESTS})
+            .map(
+                user ->
+                    new ServiceResponse<>(
+                        user, "Interest to be removed is not in user's selected interests"))
+            .orElseGet(() -> new ServiceResponse<>("User not found")));
   }
 
   public void saveRepository(User user) {
-    userRepository.save(user);
+    userCache.put(userRepository.save(user));
+    nameIndex.put(user.getId(), user.getName());
   }
 }
@@ -0,0 +1,60 @@
+package edu.brown.cs.student.main.user;
+
+import java.util.Set;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * The single-document updates behind the user's poster id lists and interests. Each one changes
+ * just its field on the server ($addToSet, $pull, $pullAll), so concurrent changes to the same user
+ * can't overwrite each other, and each query loads just that field back. They commute, so they
+ * leave the user's version alone: only profile updates (which replace fields) move it. Shared by the
+ * blocking and reactive repositories.
+ */
+public final class UserUpdates {
+  public static final String CREATED_POSTERS = "createdPosters";
+  public static final String SAVED_POSTERS = "savedPosters";
+  public static final String DRAFTS = "drafts";
+  public static final String INTERESTS = "interests";
+  public static final String VERSION = "version";
+
+  private UserUpdates() {}
+
+  /** findAndModify options that return the user as it is after the update */
+  public static FindAndModifyOptions returnNew() {
+    return FindAndModifyOptions.options().returnNew(true);
+  }
+
+  /** A user by id, with only the given fields loaded */
+  public static Query user(String userId, String... fields) {
+    Query query = new Query(Criteria.where("id").is(userId));
+    query.fields().include(fields);
+    return query;
+  }
+
+  /** A user by id, if it has every one of these interests */
+  public static Query userWithInterests(String userId, Set<String> interests) {
+    Query query = new Query(Criteria.where("id").is(userId).and(INTERESTS).all(interests));
+    query.fields().include(INTERESTS);
+    return query;
+  }
+
+  /** Appends a poster id to a list unless it's already there */
+  public static Update addPoster(String field, String posterId) {
+    return new Update().addToSet(field, posterId);
+  }
+
+  public static Update removePoster(String field, String posterId) {
+    return new Update().pull(field, posterId);
+  }
+
+  public static Update addInterests(Set<String> interests) {
+    return new Update().addToSet(INTERESTS).each(interests.toArray());
+  }
+
+  public static Update removeInterests(Set<String> interests) {
+    return new Update().pullAll(INTERESTS, interests.toArray());
+  }
+}
@@ -0,0 +1,68 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BMSearchUnitTest {
+
+  @Test
+  public void testMatchesIgnoringCase() {
+    BMSearch.Pattern pattern = BMSearch.compile("Jazz");
+
+    assertTrue(pattern.matches("Late night JAZZ at the Underground"));
+    assertTrue(pattern.matches("jazz"));
+    assertFalse(pattern.matches("Jaz z"));
+    assertFalse(pattern.matches("Ja"));
+  }
+
+  @Test
+  public void testPatternIsReusable() {
+    BMSearch.Pattern pattern = BMSearch.compile("talk");
+
+    assertEquals(5, pattern.indexIn("Book talk"));
+    assertEquals(-1, pattern.indexIn("Book club"));
+    assertEquals(0, pattern.indexIn("TALKING"));
+  }
+
+  @Test
+  public void testFindsFirstOccurrence() {
+    assertEquals(4, BMSearch.compile("abab").indexIn("abacababab"));
+    assertEquals(2, BMSearch.indexOf("xxabcabc".toCharArray(), "abc".toCharArray()));
+  }
+
+  @Test
+  public void testIndexOfIsCaseSensitive() {
+    assertEquals(-1, BMSearch.indexOf("ABC".toCharArray(), "abc".toCharArray()));
+  }
+
+  @Test
+  public void testNonAsciiNeedle() {
+    BMSearch.Pattern pattern = BMSearch.compile("Café");
+
+    assertTrue(pattern.matches("Open mic at the CAFÉ tonight"));
+    assertFalse(pattern.matches("Open mic at the cafe tonight"));
+    assertEquals(3, BMSearch.compile("ñé").indexIn("añañé"));
+  }
+
+  @Test
+  public void testEmptyNeedleNeverMatches() {
+    assertFalse(BMSearch.compile("").matches("anything"));
+    assertFalse(new BMSearch().getSearchResult("", "anything"));
+  }
+
+  @Test
+  public void testAgreesWithContains() {
+    String haystack = "the quick brown fox jumps over the lazy dog while the cat naps";
+    for (int start = 0; start < haystack.length(); start += 3) {
+      for (int end = start + 1; end <= Math.min(haystack.length(), start + 12); end++) {
+        String needle = haystack.substring(start, end);
+        assertEquals(
+            haystack.indexOf(needle), BMSearch.compile(needle).indexIn(haystack), needle);
+      }
+    }
+    assertEquals(-1, BMSearch.compile("fox dog").indexIn(haystack));
+  }
+}
@@ -0,0 +1,132 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.brown.cs.student.main.cache.CollectionVersions;
+import edu.brown.cs.student.main.cache.PosterCache;
+import edu.brown.cs.student.main.index.PosterTimeIndex;
+import edu.brown.cs.student.main.index.TagIndex;
+import edu.brown.cs.student.main.ocr.OCRAsyncTask;
+import edu.brown.cs.student.main.reactive.ReactiveDraftRepository;
+import edu.brown.cs.student.main.reactive.ReactivePosterRepository;
+import edu.brown.cs.student.main.reactive.ReactivePosterService;
+import edu.brown.cs.student.main.reactive.ReactiveUserService;
+import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.types.Draft;
+import edu.brown.cs.student.main.user.User;
+import edu.brown.cs.student.main.user.UserService;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+/** The draft endpoints answer the same on both stacks (posters.stack) */
+class DraftControllerUnitTest {
+  private static final String USER_ID = "user-1";
+  private static final String START = "2024-03-01T19:00";
+
+  private OCRAsyncTask task;
+  private DraftRepository draftRepository;
+  private UserService userService;
+  private ReactiveDraftRepository reactiveDraftRepository;
+  private ReactiveUserService reactiveUserService;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    this.task = mock(OCRAsyncTask.class);
+    when(this.task.detect(anyString()))
+        .thenReturn(CompletableFuture.completedFuture(new HashMap<>()));
+    this.draftRepository = mock(DraftRepository.class);
+    when(this.draftRepository.findById(anyString())).thenReturn(Optional.empty());
+    when(this.draftRepository.insert(any(Draft.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    this.userService = mock(UserService.class);
+    this.reactiveDraftRepository = mock(ReactiveDraftRepository.class);
+    when(this.reactiveDraftRepository.save(any(Draft.class)))
+        .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    this.reactiveUserService = mock(ReactiveUserService.class);
+  }
+
+  private void userExists(boolean exists) {
+    ServiceResponse<User> associated =
+        exists
+            ? new ServiceResponse<>(new User(), "Poster associated with user")
+            : new ServiceResponse<>("User not found");
+    when(this.userService.associatePosterWithUser(eq(USER_ID), any(Draft.class), eq(true)))
+        .thenReturn(CompletableFuture.completedFuture(associated));
+    when(this.reactiveUserService.associatePosterWithUser(eq(USER_ID), any(Draft.class), eq(true)))
+        .thenReturn(Mono.just(associated));
+  }
+
+  @SuppressWarnings("unchecked")
+  private DraftController controller(boolean reactive) {
+    CollectionVersions versions = mock(CollectionVersions.class);
+    DraftService draftService = new DraftService(this.draftRepository, this.userService, versions);
+    ReflectionTestUtils.setField(draftService, "task", this.task);
+    ObjectProvider<ReactivePosterService> provider = mock(ObjectProvider.class);
+    if (reactive) {
+      when(provider.getIfAvailable())
+          .thenReturn(
+              new ReactivePosterService(
+                  mock(ReactivePosterRepository.class),
+                  this.reactiveDraftRepository,
+                  this.reactiveUserService,
+                  mock(PosterCache.class),
+                  mock(PosterTimeIndex.class),
+                  mock(TagIndex.class),
+                  versions,
+                  this.task));
+    }
+    return new DraftController(draftService, null, this.userService, provider);
+  }
+
+  private static Content link() {
+    Content content = new Content();
+    content.setContent("https://example.com/poster.png");
+    return content;
+  }
+
+  @Test
+  public void testMissingUserIsRefusedOnBothStacks() throws Exception {
+    this.userExists(false);
+
+    ServiceResponse<Draft> blocking =
+        this.controller(false).createFromLink(link(), USER_ID, START).join();
+    ServiceResponse<Draft> reactive =
+        this.controller(true).createFromLink(link(), USER_ID, START).join();
+
+    assertEquals("Invalid user ID provided", blocking.getMessage());
+    assertEquals(blocking.getMessage(), reactive.getMessage());
+    verify(this.task, never()).detect(anyString());
+    verify(this.draftRepository, never()).insert(any(Draft.class));
+    verify(this.reactiveDraftRepository, never()).save(any(Draft.class));
+  }
+
+  @Test
+  public void testNewDraftIsSavedOnBothStacks() {
+    this.userExists(true);
+
+    ServiceResponse<Draft> blocking =
+        this.controller(false).createFromLink(link(), USER_ID, START).join();
+    ServiceResponse<Draft> reactive =
+        this.controller(true).createFromLink(link(), USER_ID, START).join();
+
+    assertEquals("added to database", blocking.getMessage());
+    assertEquals(blocking.getMessage(), reactive.getMessage());
+    assertEquals("Untitled", blocking.getData().getTitle());
+    assertEquals(blocking.getData().getTitle(), reactive.getData().getTitle());
+    verify(this.draftRepository).insert(blocking.getData());
+    verify(this.reactiveDraftRepository).save(reactive.getData());
+  }
+}
@@ -0,0 +1,128 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.brown.cs.student.main.cache.CollectionVersions;
+import edu.brown.cs.student.main.ocr.OCRAsyncTask;
+import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.types.Draft;
+import edu.brown.cs.student.main.user.User;
+import edu.brown.cs.student.main.user.UserService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class DraftServiceUnitTest {
+  private static final String USER_ID = "user-1";
+
+  private DraftRepository draftRepository;
+  private UserService userService;
+  private OCRAsyncTask task;
+  private DraftService draftService;
+
+  @BeforeEach
+  public void setUp() {
+    this.draftRepository = mock(DraftRepository.class);
+    this.userService = mock(UserService.class);
+    this.task = mock(OCRAsyncTask.class);
+    this.draftService =
+        new DraftService(this.draftRepository, this.userService, mock(CollectionVersions.class));
+    ReflectionTestUtils.setField(this.draftService, "task", this.task);
+    when(this.draftRepository.findById(anyString())).thenReturn(Optional.empty());
+    when(this.draftRepository.insert(any(Draft.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  private void userExists(boolean exists) {
+    ServiceResponse<User> associated =
+        exists
+            ? new ServiceResponse<>(new User(), "Poster associated with user")
+            : new ServiceResponse<>("User not found");
+    when(this.userService.associatePosterWithUser(eq(USER_ID), any(Draft.class), eq(true)))
+        .thenReturn(CompletableFuture.completedFuture(associated));
+  }
+
+  private static Draft draft() {
+    Draft draft = new Draft();
+    draft.setContent("https://i.imgur.com/poster.png");
+    return draft;
+  }
+
+  @Test
+  public void testMissingUserSavesNothing() throws Exception {
+    this.userExists(false);
+    Draft draft = draft();
+
+    ServiceResponse<Draft> response = this.draftService.createDraft(draft, USER_ID).join();
+
+    assertEquals("Invalid user ID provided", response.getMessage());
+    verify(this.task, never()).detect(anyString());
+    verify(this.draftRepository, never()).insert(any(Draft.class));
+    verify(this.draftRepository, never()).save(any(Draft.class));
+  }
+
+  @Test
+  public void testSavesDraftWithSuggestedFields() throws Exception {
+    this.userExists(true);
+    HashMap<String, Object> suggested = new HashMap<>();
+    suggested.put("title", "Spring concert");
+    suggested.put("tags", new HashSet<>(Set.of("live music")));
+    when(this.task.detect(anyString())).thenReturn(CompletableFuture.completedFuture(suggested));
+    Draft draft = draft();
+
+    ServiceResponse<Draft> response = this.draftService.createDraft(draft, USER_ID).join();
+
+    assertEquals("added to database", response.getMessage());
+    assertSame(draft, response.getData());
+    assertEquals("Spring concert", draft.getTitle());
+    assertEquals(Set.of("live music"), draft.getTags());
+    verify(this.draftRepository).insert(draft);
+  }
+
+  @Test
+  public void testFailedTextDetectionStillSaves() throws Exception {
+    this.userExists(true);
+    when(this.task.detect(anyString()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("vision is down")));
+    Draft draft = draft();
+
+    ServiceResponse<Draft> response = this.draftService.createDraft(draft, USER_ID).join();
+
+    assertEquals("added to database", response.getMessage());
+    assertNull(draft.getTitle());
+    verify(this.draftRepository).insert(draft);
+  }
+
+  @Test
+  public void testSaveFailureIsNotReportedAsBadUser() throws Exception {
+    this.userExists(true);
+    when(this.task.detect(anyString()))
+        .thenReturn(CompletableFuture.completedFuture(new HashMap<>()));
+    DataAccessResourceFailureException down = new DataAccessResourceFailureException("mongo down");
+    when(this.draftRepository.insert(any(Draft.class))).thenThrow(down);
+
+    CompletionException failed =
+        assertThrows(
+            CompletionException.class,
+            () -> this.draftService.createDraft(draft(), USER_ID).join());
+
+    assertSame(down, failed.getCause());
+  }
+}
@@ -0,0 +1,145 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.brown.cs.student.main.cache.PosterCache;
+import edu.brown.cs.student.main.responses.PosterBatch;
+import edu.brown.cs.student.main.types.Draft;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.types.PosterRepository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+class PosterBatchServiceUnitTest {
+  private PosterRepository posterRepository;
+  private DraftRepository draftRepository;
+  private PosterCache posterCache;
+  private PosterBatchService batchService;
+
+  @BeforeEach
+  public void setUp() {
+    this.posterRepository = mock(PosterRepository.class);
+    this.draftRepository = mock(DraftRepository.class);
+    this.posterCache = mock(PosterCache.class);
+    this.batchService =
+        new PosterBatchService(this.posterRepository, this.draftRepository, this.posterCache);
+    for (String id : List.of("a", "b", "c")) {
+      when(this.posterCache.get(id)).thenReturn(Optional.of(poster(id)));
+    }
+  }
+
+  private static Poster poster(String id) {
+    Poster poster = new Poster();
+    poster.setID(id);
+    return poster;
+  }
+
+  private static List<String> ids(PosterBatch batch) {
+    List<String> ids = new ArrayList<>();
+    for (Poster poster : batch.getData()) {
+      ids.add(poster.getID());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testCachedPostersComeBackInTheOrderAsked() {
+    when(this.posterCache.isReady()).thenReturn(true);
+
+    PosterBatch batch = this.batchService.getPosters(List.of("c", "gone", "a", "b")).join();
+
+    assertEquals(List.of("c", "a", "b"), ids(batch));
+    assertEquals(List.of("gone"), batch.getMissing());
+    verify(this.posterRepository, never()).findAllById(any());
+  }
+
+  @Test
+  public void testRepeatedIdsComeBackOnce() {
+    when(this.posterCache.isReady()).thenReturn(true);
+
+    PosterBatch batch =
+        this.batchService.getPosters(List.of("b", "a", "b", "gone", "gone", "a")).join();
+
+    assertEquals(List.of("b", "a"), ids(batch));
+    assertEquals(List.of("gone"), batch.getMissing());
+  }
+
+  @Test
+  public void testBeforeTheSnapshotLoadsOneQueryIsMade() {
+    when(this.posterCache.isReady()).thenReturn(false);
+    // mongo returns $in matches in its own order
+    when(this.posterRepository.findAllById(new LinkedHashSet<>(List.of("c", "gone", "a", "c"))))
+        .thenReturn(List.of(poster("a"), poster("c")));
+
+    PosterBatch batch = this.batchService.getPosters(List.of("c", "gone", "a", "c")).join();
+
+    assertEquals(List.of("c", "a"), ids(batch));
+    assertEquals(List.of("gone"), batch.getMissing());
+    verify(this.posterCache, never()).get(any());
+  }
+
+  @Test
+  public void testDraftsComeBackInTheOrderAsked() {
+    Draft first = new Draft();
+    first.setID("d1");
+    Draft second = new Draft();
+    second.setID("d2");
+    when(this.draftRepository.findAllById(new LinkedHashSet<>(List.of("d2", "d1", "gone"))))
+        .thenReturn(List.of(first, second));
+
+    PosterBatch batch = this.batchService.getDrafts(List.of("d2", "d1", "gone", "d2")).join();
+
+    assertEquals(List.of("d2", "d1"), ids(batch));
+    assertEquals(List.of("gone"), batch.getMissing());
+  }
+
+  @SuppressWarnings("unchecked")
+  private PosterController controller() {
+    return new PosterController(
+        null,
+        null,
+        null,
+        null,
+        this.batchService,
+        new MappingJackson2HttpMessageConverter(),
+        mock(ObjectProvider.class),
+        1000L);
+  }
+
+  @Test
+  public void testControllerRejectsOversizedBatches() {
+    when(this.posterCache.isReady()).thenReturn(true);
+    List<String> tooMany = Collections.nCopies(PosterBatchService.MAX_IDS + 1, "a");
+    List<String> withNull = new ArrayList<>(List.of("a"));
+    withNull.add(null);
+
+    ResponseEntity<?> oversized = this.controller().getPostersByIds(tooMany, null).join();
+    ResponseEntity<?> nullId = this.controller().getPostersByIds(withNull, null).join();
+    ResponseEntity<?> badFields = this.controller().getPostersByIds(List.of("a"), "a-b").join();
+    ResponseEntity<?> full =
+        this.controller()
+            .getPostersByIds(Collections.nCopies(PosterBatchService.MAX_IDS, "a"), null)
+            .join();
+
+    assertEquals(HttpStatus.BAD_REQUEST, oversized.getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, nullId.getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, badFields.getStatusCode());
+    assertEquals(HttpStatus.OK, full.getStatusCode());
+    assertEquals(List.of("a"), ids((PosterBatch) full.getBody()));
+  }
+}
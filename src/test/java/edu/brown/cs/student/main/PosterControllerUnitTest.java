@@ -0,0 +1,155 @@
+package edu.brown.cs.student.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.brown.cs.student.main.responses.ServiceResponse;
+import edu.brown.cs.student.main.types.Draft;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.user.User;
+import edu.brown.cs.student.main.user.UserService;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+class PosterControllerUnitTest {
+  private static final String DRAFT_ID = "draft-1";
+  private static final String USER_ID = "user-1";
+
+  private PosterService posterService;
+  private DraftService draftService;
+  private UserService userService;
+  private PosterController controller;
+  private Draft draft;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    this.posterService = mock(PosterService.class);
+    this.draftService = mock(DraftService.class);
+    this.userService = mock(UserService.class);
+    this.controller =
+        new PosterController(
+            this.posterService,
+            null,
+            this.userService,
+            this.draftService,
+            null,
+            new MappingJackson2HttpMessageConverter(),
+            mock(ObjectProvider.class),
+            1000L);
+    this.draft = new Draft();
+    this.draft.setID(DRAFT_ID);
+    this.draft.setUserId(USER_ID);
+    this.draft.setTitle("Spring concert");
+    this.draft.setStartDate(LocalDateTime.of(2024, 3, 1, 19, 0));
+    when(this.draftService.getDraftById(DRAFT_ID))
+        .thenReturn(
+            CompletableFuture.completedFuture(new ServiceResponse<Poster>(this.draft, "found")));
+    when(this.posterService.createPoster(any(Poster.class), eq(USER_ID)))
+        .thenAnswer(
+            invocation ->
+                new ServiceResponse<Poster>(invocation.getArgument(0), "added to database"));
+    when(this.userService.removeFromDrafts(USER_ID, this.draft))
+        .thenReturn(CompletableFuture.completedFuture(new ServiceResponse<>(new User(), "ok")));
+    when(this.draftService.removeDraftFromDatabase(DRAFT_ID))
+        .thenReturn(CompletableFuture.completedFuture(new ServiceResponse<>("removed")));
+  }
+
+  private void updateAnswers(CompletableFuture<ServiceResponse<Poster>> update) {
+    when(this.posterService.updatePoster(any(Poster.class), eq(this.draft), isNull()))
+        .thenReturn(update);
+  }
+
+  @Test
+  public void testDraftIsDeletedAfterThePosterIsUpdated() {
+    CompletableFuture<ServiceResponse<Poster>> update = new CompletableFuture<>();
+    this.updateAnswers(update);
+
+    CompletableFuture<ResponseEntity<ServiceResponse<String>>> published =
+        this.controller.createPoster(DRAFT_ID);
+
+    assertFalse(published.isDone());
+    verify(this.userService, never()).removeFromDrafts(anyString(), any(Poster.class));
+    verify(this.draftService, never()).removeDraftFromDatabase(anyString());
+
+    update.complete(new ServiceResponse<>(new Poster(), "Poster updated"));
+
+    ResponseEntity<ServiceResponse<String>> response = published.join();
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("removed", response.getBody().getMessage());
+    InOrder order = inOrder(this.posterService, this.userService, this.draftService);
+    order.verify(this.posterService).createPoster(any(Poster.class), eq(USER_ID));
+    order.verify(this.posterService).updatePoster(any(Poster.class), eq(this.draft), isNull());
+    order.verify(this.userService).removeFromDrafts(USER_ID, this.draft);
+    order.verify(this.draftService).removeDraftFromDatabase(DRAFT_ID);
+  }
+
+  @Test
+  public void testConflictKeepsTheDraft() {
+    this.updateAnswers(
+        CompletableFuture.failedFuture(
+            new OptimisticLockingFailureException("Poster draft-1 kept changing")));
+
+    ResponseEntity<ServiceResponse<String>> response =
+        this.controller.createPoster(DRAFT_ID).join();
+
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    assertEquals("Poster draft-1 kept changing", response.getBody().getMessage());
+    verify(this.userService, never()).removeFromDrafts(anyString(), any(Poster.class));
+    verify(this.draftService, never()).removeDraftFromDatabase(anyString());
+  }
+
+  @Test
+  public void testFailedUpdateKeepsTheDraft() {
+    this.updateAnswers(
+        CompletableFuture.completedFuture(
+            new ServiceResponse<>("Failed to update poster - Poster not found")));
+
+    ResponseEntity<ServiceResponse<String>> response =
+        this.controller.createPoster(DRAFT_ID).join();
+
+    assertEquals("Failed to update poster - Poster not found", response.getBody().getMessage());
+    verify(this.draftService, never()).removeDraftFromDatabase(anyString());
+  }
+
+  @Test
+  public void testMissingAuthorWritesNothing() {
+    when(this.posterService.createPoster(any(Poster.class), eq(USER_ID)))
+        .thenReturn(new ServiceResponse<>("Invalid user ID provided"));
+
+    ResponseEntity<ServiceResponse<String>> response =
+        this.controller.createPoster(DRAFT_ID).join();
+
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    verify(this.posterService, never()).updatePoster(any(), any(), any());
+    verify(this.draftService, never()).removeDraftFromDatabase(anyString());
+  }
+
+  @Test
+  public void testUndatedDraftIsNotPublished() {
+    this.draft.setStartDate(null);
+
+    ResponseEntity<ServiceResponse<String>> response =
+        this.controller.createPoster(DRAFT_ID).join();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    verify(this.posterService, never()).createPoster(any(Poster.class), anyString());
+  }
+}
@@ -0,0 +1,141 @@
+package edu.brown.cs.student.main.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.brown.cs.student.main.index.PosterTimeIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConditionalGetInterceptorUnitTest {
+  private CollectionVersions versions;
+  private PosterTimeIndex timeIndex;
+  private PosterCache posterCache;
+  private ConditionalGetInterceptor interceptor;
+
+  @BeforeEach
+  public void setUp() {
+    this.versions = new CollectionVersions();
+    this.timeIndex = mock(PosterTimeIndex.class);
+    this.posterCache = mock(PosterCache.class);
+    when(this.posterCache.isReady()).thenReturn(true);
+    this.interceptor =
+        new ConditionalGetInterceptor(
+            new FeedResponseCache(this.versions, this.timeIndex, new SimpleMeterRegistry()),
+            this.posterCache);
+  }
+
+  private static MockHttpServletRequest get(String query, String ifNoneMatch) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/posters/upcoming");
+    request.setQueryString(query);
+    if (ifNoneMatch != null) {
+      request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    }
+    return request;
+  }
+
+  /** Runs the interceptor, checking whether it let the request through to the controller */
+  private MockHttpServletResponse handle(MockHttpServletRequest request, boolean proceeds)
+      throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertEquals(proceeds, this.interceptor.preHandle(request, response, new Object()));
+    return response;
+  }
+
+  @Test
+  public void testUnchangedCollectionIsNotModified() throws Exception {
+    MockHttpServletResponse first = this.handle(get("limit=10", null), true);
+    String etag = first.getHeader(HttpHeaders.ETAG);
+    assertNotNull(etag);
+    assertTrue(etag.startsWith("W/\""));
+    assertEquals("no-cache", first.getHeader(HttpHeaders.CACHE_CONTROL));
+
+    MockHttpServletResponse second = this.handle(get("limit=10", etag), false);
+    assertEquals(304, second.getStatus());
+    assertEquals(etag, second.getHeader(HttpHeaders.ETAG));
+    // a strong copy of the tag, or one of several, matches too
+    this.handle(get("limit=10", etag.substring(2)), false);
+    this.handle(get("limit=10", "\"other\", " + etag), false);
+    this.handle(get("limit=10", "*"), false);
+  }
+
+  @Test
+  public void testWritesChangeTheTag() throws Exception {
+    String etag = this.handle(get("limit=10", null), true).getHeader(HttpHeaders.ETAG);
+
+    this.versions.bumpPosters();
+    MockHttpServletResponse afterPosterWrite = this.handle(get("limit=10", etag), true);
+    String posterTag = afterPosterWrite.getHeader(HttpHeaders.ETAG);
+    assertNotEquals(etag, posterTag);
+    assertEquals(200, afterPosterWrite.getStatus());
+
+    this.versions.bumpDrafts();
+    MockHttpServletResponse afterDraftWrite = this.handle(get("limit=10", posterTag), true);
+    assertNotEquals(posterTag, afterDraftWrite.getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void testTheFeedWindowChangesTheTag() throws Exception {
+    when(this.timeIndex.nextChange(any(LocalDateTime.class)))
+        .thenReturn(LocalDateTime.of(2030, 3, 1, 19, 0));
+    String etag = this.handle(get("limit=10", null), true).getHeader(HttpHeaders.ETAG);
+
+    // a poster started or ended, so the upcoming and archive feeds moved
+    when(this.timeIndex.nextChange(any(LocalDateTime.class)))
+        .thenReturn(LocalDateTime.of(2030, 3, 1, 21, 0));
+    assertNotEquals(etag, this.handle(get("limit=10", etag), true).getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void testEachQueryHasItsOwnTag() throws Exception {
+    String etag = this.handle(get("limit=10", null), true).getHeader(HttpHeaders.ETAG);
+
+    MockHttpServletResponse other = this.handle(get("limit=20", etag), true);
+
+    assertNotEquals(etag, other.getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void testRequestsTheCacheCantAnswerPassThrough() throws Exception {
+    when(this.posterCache.isReady()).thenReturn(false);
+    assertNull(this.handle(get("limit=10", "*"), true).getHeader(HttpHeaders.ETAG));
+    when(this.posterCache.isReady()).thenReturn(true);
+
+    MockHttpServletRequest post = get("limit=10", "*");
+    post.setMethod("POST");
+    assertNull(this.handle(post, true).getHeader(HttpHeaders.ETAG));
+
+    MockHttpServletRequest export = get("limit=10", "*");
+    export.addHeader(HttpHeaders.ACCEPT, "application/x-ndjson");
+    assertNull(this.handle(export, true).getHeader(HttpHeaders.ETAG));
+
+    MockHttpServletRequest async = get("limit=10", "*");
+    async.setDispatcherType(DispatcherType.ASYNC);
+    assertFalse(this.handle(async, true).containsHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void testMissesAreMarkedForTheAdvice() throws Exception {
+    MockHttpServletRequest request = get("limit=10", null);
+
+    this.handle(request, true);
+
+    assertNotNull(request.getAttribute(ConditionalGetInterceptor.STAMP_ATTRIBUTE));
+    assertEquals(
+        "/posters/upcoming?limit=10",
+        request.getAttribute(ConditionalGetInterceptor.KEY_ATTRIBUTE));
+  }
+}
@@ -0,0 +1,236 @@
+package edu.brown.cs.student.main.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.brown.cs.student.main.PosterController;
+import edu.brown.cs.student.main.index.PosterTimeIndex;
+import edu.brown.cs.student.main.responses.FieldSet;
+import edu.brown.cs.student.main.types.Poster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/** FeedResponseCache together with the interceptor that reads it and the advice that fills it */
+class FeedResponseCacheUnitTest {
+  private CollectionVersions versions;
+  private FeedResponseCache responseCache;
+  private ConditionalGetInterceptor interceptor;
+  private FeedResponseCacheAdvice advice;
+  private ObjectMapper objectMapper;
+
+  @BeforeEach
+  public void setUp() {
+    this.versions = new CollectionVersions();
+    this.responseCache =
+        new FeedResponseCache(
+            this.versions, mock(PosterTimeIndex.class), new SimpleMeterRegistry());
+    PosterCache posterCache = mock(PosterCache.class);
+    when(posterCache.isReady()).thenReturn(true);
+    this.interceptor = new ConditionalGetInterceptor(this.responseCache, posterCache);
+    MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
+    converter.getObjectMapper().setFilterProvider(FieldSet.ALL_FIELDS);
+    this.objectMapper = converter.getObjectMapper();
+    this.advice = new FeedResponseCacheAdvice(this.responseCache, converter);
+  }
+
+  /** The response to a listing request, and whether the controller had to build it */
+  private static final class Served {
+    private final MockHttpServletResponse response;
+    private final boolean built;
+
+    private Served(MockHttpServletResponse response, boolean built) {
+      this.response = response;
+      this.built = built;
+    }
+
+    private String body() {
+      byte[] bytes = this.response.getContentAsByteArray();
+      if ("gzip".equals(this.response.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+          bytes = gzip.readAllBytes();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+
+  /** Serves a request the way the dispatcher would, with body standing in for the controller */
+  private Served serve(String query, String acceptEncoding, Object body) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/posters/upcoming");
+    request.setQueryString(query);
+    if (acceptEncoding != null) {
+      request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    if (!this.interceptor.preHandle(request, response, new Object())) {
+      return new Served(response, false);
+    }
+    ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+    Object written =
+        this.advice.beforeBodyWrite(
+            body,
+            null,
+            MediaType.APPLICATION_JSON,
+            MappingJackson2HttpMessageConverter.class,
+            new ServletServerHttpRequest(request),
+            serverResponse);
+    if (written != null) {
+      serverResponse.getBody().write(this.objectMapper.writeValueAsBytes(written));
+    }
+    serverResponse.flush();
+    return new Served(response, true);
+  }
+
+  private static Poster poster() {
+    Poster poster = new Poster();
+    poster.setID("p1");
+    poster.setTitle("Spring concert");
+    poster.setDescription("Live jazz on the main green");
+    return poster;
+  }
+
+  @Test
+  public void testGzipAndIdentityComeFromTheSameEntry() throws Exception {
+    Map<String, Object> body = Map.of("posters", List.of("p1", "p2"));
+    String json = this.objectMapper.writeValueAsString(body);
+
+    Served built = this.serve("limit=10", "gzip, deflate", body);
+    assertTrue(built.built);
+    assertEquals("gzip", built.response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(json, built.body());
+
+    Served identity = this.serve("limit=10", null, "not used");
+    assertFalse(identity.built);
+    assertNull(identity.response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(json, identity.body());
+    assertEquals(json.length(), identity.response.getContentLength());
+
+    Served gzipped = this.serve("limit=10", "gzip", "not used");
+    assertFalse(gzipped.built);
+    assertEquals("gzip", gzipped.response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(json, gzipped.body());
+    assertNotEquals(json.length(), gzipped.response.getContentLength());
+  }
+
+  @Test
+  public void testNextCursorIsCachedWithTheBody() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/posters/upcoming");
+    request.setQueryString("limit=1");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    this.interceptor.preHandle(request, response, new Object());
+    ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+    serverResponse.getHeaders().set(PosterController.NEXT_CURSOR, "cursor-1");
+    this.advice.beforeBodyWrite(
+        List.of("p1"),
+        null,
+        MediaType.APPLICATION_JSON,
+        MappingJackson2HttpMessageConverter.class,
+        new ServletServerHttpRequest(request),
+        serverResponse);
+
+    Served cached = this.serve("limit=1", null, "not used");
+
+    assertFalse(cached.built);
+    assertEquals("cursor-1", cached.response.getHeader(PosterController.NEXT_CURSOR));
+  }
+
+  @Test
+  public void testVersionBumpDropsTheGeneration() throws Exception {
+    this.serve("limit=10", null, List.of("p1"));
+    String oldStamp = this.responseCache.stamp();
+    assertFalse(this.serve("limit=10", null, "not used").built);
+
+    this.versions.bumpPosters();
+
+    Served rebuilt = this.serve("limit=10", null, List.of("p1", "p2"));
+    assertTrue(rebuilt.built);
+    assertEquals("[\"p1\",\"p2\"]", rebuilt.body());
+    assertEquals("[\"p1\",\"p2\"]", this.serve("limit=10", null, "not used").body());
+    // the old generation is gone, not just shadowed
+    assertNull(this.responseCache.get(oldStamp, "/posters/upcoming?limit=10"));
+  }
+
+  @Test
+  public void testBodiesBuiltAcrossAWriteAreNotCached() throws Exception {
+    String stamp = this.responseCache.stamp();
+    this.versions.bumpPosters();
+
+    FeedResponseCache.Entry entry =
+        this.responseCache.put(stamp, "/posters/upcoming?limit=10", new byte[] {'[', ']'}, null);
+
+    assertEquals("[]", new String(entry.bodyFor(null), StandardCharsets.UTF_8));
+    assertNull(this.responseCache.get(stamp, "/posters/upcoming?limit=10"));
+    assertNull(this.responseCache.get(this.responseCache.stamp(), "/posters/upcoming?limit=10"));
+  }
+
+  @Test
+  public void testFieldsAndViewsAreCachedSeparately() throws Exception {
+    Poster poster = poster();
+    String full = this.objectMapper.writeValueAsString(List.of(poster));
+    String idsOnly = "[{\"id\":\"p1\"}]";
+
+    assertEquals(full, this.serve("view=full", "gzip", List.of(poster)).body());
+    Served selected =
+        this.serve(
+            "fields=id",
+            "gzip",
+            FieldSet.select(List.of(poster), FieldSet.parse(FieldSet.POSTER_FILTER, "id")));
+    assertEquals(idsOnly, selected.body());
+    Served summary = this.serve("view=summary", null, List.of(Map.of("id", "p1")));
+    assertTrue(summary.built);
+
+    Served fullAgain = this.serve("view=full", null, "not used");
+    Served selectedAgain = this.serve("fields=id", "gzip", "not used");
+    assertFalse(fullAgain.built);
+    assertFalse(selectedAgain.built);
+    assertEquals(full, fullAgain.body());
+    assertEquals(idsOnly, selectedAgain.body());
+    assertTrue(this.serve("fields=id,title", null, List.of(poster)).built);
+  }
+
+  @Test
+  public void testFailedResponsesAreNotCached() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/posters/upcoming");
+    request.setQueryString("limit=10");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    this.interceptor.preHandle(request, response, new Object());
+    response.setStatus(400);
+    Object body = Map.of("message", "bad cursor");
+
+    Object written =
+        this.advice.beforeBodyWrite(
+            body,
+            null,
+            MediaType.APPLICATION_JSON,
+            MappingJackson2HttpMessageConverter.class,
+            new ServletServerHttpRequest(request),
+            new ServletServerHttpResponse(response));
+
+    assertSame(body, written);
+    assertTrue(this.serve("limit=10", null, List.of()).built);
+  }
+}
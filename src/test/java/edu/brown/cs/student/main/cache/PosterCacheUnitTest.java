@@ -0,0 +1,286 @@
+package edu.brown.cs.student.main.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.brown.cs.student.main.index.AuthorIndex;
+import edu.brown.cs.student.main.index.PosterTimeIndex;
+import edu.brown.cs.student.main.index.TagIndex;
+import edu.brown.cs.student.main.index.TextIndex;
+import edu.brown.cs.student.main.index.TimeKey;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.types.PosterRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PosterCacheUnitTest {
+  private static final LocalDateTime START = LocalDateTime.of(2030, 3, 1, 19, 0);
+
+  private PosterRepository posterRepository;
+  private CollectionVersions versions;
+  private TagIndex tagIndex;
+  private PosterTimeIndex timeIndex;
+  private TextIndex textIndex;
+  private AuthorIndex authorIndex;
+  private PosterCache cache;
+
+  @BeforeEach
+  public void setUp() {
+    this.posterRepository = mock(PosterRepository.class);
+    this.versions = new CollectionVersions();
+    this.tagIndex = new TagIndex();
+    this.timeIndex = new PosterTimeIndex();
+    this.textIndex = new TextIndex();
+    this.authorIndex = new AuthorIndex();
+    this.cache =
+        new PosterCache(
+            this.posterRepository,
+            List.of(this.tagIndex, this.timeIndex, this.textIndex, this.authorIndex),
+            this.versions,
+            new SimpleMeterRegistry());
+  }
+
+  private static Poster poster(String id, String title, String... tags) {
+    Poster poster = new Poster();
+    poster.setID(id);
+    poster.setTitle(title);
+    poster.setUserId("author-" + id);
+    poster.setCreatedAt(START.minusDays(7));
+    poster.setStartDate(START);
+    poster.setTags(new HashSet<>(Set.of(tags)));
+    return poster;
+  }
+
+  private void load(Poster... posters) {
+    when(this.posterRepository.findAll()).thenReturn(List.of(posters));
+    this.cache.refresh();
+  }
+
+  private static Set<String> ids(List<Poster> posters) {
+    return posters.stream().map(Poster::getID).collect(Collectors.toSet());
+  }
+
+  @Test
+  public void testNotReadyUntilFirstLoad() {
+    assertFalse(this.cache.isReady());
+    assertTrue(this.cache.getAll().isEmpty());
+    assertTrue(this.tagIndex.withAllTags(List.of()).isEmpty());
+
+    this.load(poster("p1", "Spring concert", "music"));
+
+    assertTrue(this.cache.isReady());
+    assertEquals(Set.of("p1"), ids(this.cache.getAll()));
+    assertEquals(Set.of("p1"), ids(this.tagIndex.withAllTags(List.of("music"))));
+  }
+
+  @Test
+  public void testWritesSwapTheSnapshot() {
+    this.load(poster("p1", "Spring concert", "music"), poster("p2", "Book talk", "talk"));
+    List<Poster> before = this.cache.getAll();
+
+    this.cache.put(poster("p1", "Spring dance", "dance"));
+    this.cache.put(poster("p3", "Open mic", "music"));
+    this.cache.remove("p2");
+
+    // a list handed out earlier never changes
+    assertEquals(Set.of("p1", "p2"), ids(before));
+    assertEquals("Spring concert", before.get(0).getTitle());
+    assertEquals(Set.of("p1", "p3"), ids(this.cache.getAll()));
+    assertEquals("Spring dance", this.cache.get("p1").get().getTitle());
+    assertFalse(this.cache.get("p2").isPresent());
+    // and every index has the same posters
+    assertEquals(Set.of("p3"), ids(this.tagIndex.withAllTags(List.of("music"))));
+    assertEquals(Set.of("p1"), ids(this.tagIndex.withAllTags(List.of("dance"))));
+    assertTrue(this.tagIndex.withAllTags(List.of("talk")).isEmpty());
+    assertEquals(Set.of("p1"), ids(this.textIndex.search("spring")));
+    assertTrue(this.textIndex.search("book talk").isEmpty());
+    assertEquals(
+        Set.of("p1", "p3"),
+        ids(this.timeIndex.startingAfter(TimeKey.before(START)).collect(Collectors.toList())));
+    assertTrue(this.authorIndex.byUsers(List.of("author-p2")).isEmpty());
+  }
+
+  @Test
+  public void testClearEmptiesEverything() {
+    this.load(poster("p1", "Spring concert", "music"));
+
+    this.cache.clear();
+
+    assertTrue(this.cache.isReady());
+    assertTrue(this.cache.getAll().isEmpty());
+    assertTrue(this.tagIndex.withAllTags(List.of()).isEmpty());
+    assertTrue(this.textIndex.search("spring").isEmpty());
+  }
+
+  @Test
+  public void testWritesDuringRefreshAreReplayed() throws Exception {
+    this.load(poster("p1", "Spring concert", "music"), poster("p2", "Book talk", "talk"));
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch written = new CountDownLatch(1);
+    // the refresh reads the collection as it was before the writes below
+    when(this.posterRepository.findAll())
+        .thenAnswer(
+            invocation -> {
+              reading.countDown();
+              assertTrue(written.await(5, TimeUnit.SECONDS));
+              return List.of(poster("p1", "Spring concert", "music"), poster("p2", "Book talk"));
+            });
+
+    CompletableFuture<Void> refresh = CompletableFuture.runAsync(this.cache::refresh);
+    assertTrue(reading.await(5, TimeUnit.SECONDS));
+    this.cache.put(poster("p1", "Spring dance", "dance"));
+    this.cache.put(poster("p3", "Open mic", "music"));
+    this.cache.remove("p2");
+    written.countDown();
+    refresh.get(5, TimeUnit.SECONDS);
+
+    assertEquals(Set.of("p1", "p3"), ids(this.cache.getAll()));
+    assertEquals("Spring dance", this.cache.get("p1").get().getTitle());
+    assertEquals(Set.of("p3"), ids(this.tagIndex.withAllTags(List.of("music"))));
+    assertEquals(Set.of("p1"), ids(this.textIndex.search("spring")));
+  }
+
+  @Test
+  public void testClearDuringRefreshIsReplayed() throws Exception {
+    this.load(poster("p1", "Spring concert", "music"));
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch cleared = new CountDownLatch(1);
+    when(this.posterRepository.findAll())
+        .thenAnswer(
+            invocation -> {
+              reading.countDown();
+              assertTrue(cleared.await(5, TimeUnit.SECONDS));
+              return List.of(poster("p1", "Spring concert", "music"));
+            });
+
+    CompletableFuture<Void> refresh = CompletableFuture.runAsync(this.cache::refresh);
+    assertTrue(reading.await(5, TimeUnit.SECONDS));
+    this.cache.clear();
+    this.cache.put(poster("p2", "Book talk", "talk"));
+    cleared.countDown();
+    refresh.get(5, TimeUnit.SECONDS);
+
+    assertEquals(Set.of("p2"), ids(this.cache.getAll()));
+    assertEquals(Set.of("p2"), ids(this.tagIndex.withAllTags(List.of())));
+  }
+
+  @Test
+  public void testFailedRefreshKeepsTheSnapshot() {
+    this.load(poster("p1", "Spring concert", "music"));
+    when(this.posterRepository.findAll()).thenThrow(new IllegalStateException("mongo down"));
+
+    this.cache.refresh();
+    this.cache.put(poster("p2", "Book talk", "talk"));
+
+    assertEquals(Set.of("p1", "p2"), ids(this.cache.getAll()));
+  }
+
+  @Test
+  public void testVersionOnlyMovesWhenSomethingChanged() {
+    long initial = this.versions.getPosters();
+    this.load(poster("p1", "Spring concert", "music"), poster("p2", "Book talk", "talk"));
+    long loaded = this.versions.getPosters();
+    assertNotEquals(initial, loaded);
+
+    // the same posters, read again and in another order
+    this.load(poster("p2", "Book talk", "talk"), poster("p1", "Spring concert", "music"));
+    assertEquals(loaded, this.versions.getPosters());
+
+    // another instance edited a poster
+    this.load(poster("p2", "Book talk", "talk"), poster("p1", "Spring concert", "dance"));
+    long edited = this.versions.getPosters();
+    assertNotEquals(loaded, edited);
+
+    // a write made here bumps the version once; the refresh that reads it back doesn't
+    this.cache.put(poster("p3", "Open mic", "music"));
+    long written = this.versions.getPosters();
+    assertNotEquals(edited, written);
+    this.load(
+        poster("p2", "Book talk", "talk"),
+        poster("p1", "Spring concert", "dance"),
+        poster("p3", "Open mic", "music"));
+    assertEquals(written, this.versions.getPosters());
+  }
+
+  @Test
+  public void testReadersNeverSeeAHalfAppliedWrite() throws Exception {
+    Poster stable = poster("p1", "Spring concert", "music");
+    this.load(stable, poster("p2", "Book talk", "talk"));
+    AtomicBoolean done = new AtomicBoolean();
+    ConcurrentLinkedQueue<String> problems = new ConcurrentLinkedQueue<>();
+
+    // p1 is rewritten over and over (its start date and title words never change) while other
+    // posters come and go and the cache refreshes; every index must always have it exactly once
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int i = 0; i < 2000; i++) {
+                this.cache.put(poster("p1", "Spring concert " + i, i % 2 == 0 ? "music" : "dance"));
+                this.cache.put(poster("n" + i, "Open mic", "music"));
+                this.cache.remove("n" + (i - 1));
+              }
+            });
+    Thread refresher =
+        new Thread(
+            () -> {
+              while (!done.get()) {
+                this.cache.refresh();
+              }
+            });
+    List<Thread> readers = new ArrayList<>();
+    for (int r = 0; r < 3; r++) {
+      readers.add(
+          new Thread(
+              () -> {
+                while (!done.get()) {
+                  long inTime =
+                      this.timeIndex
+                          .startingAfter(TimeKey.before(START))
+                          .filter(poster -> poster.getID().equals("p1"))
+                          .count();
+                  long inTags =
+                      this.tagIndex.withAllTags(List.of()).stream()
+                          .filter(poster -> poster.getID().equals("p1"))
+                          .count();
+                  long inText =
+                      this.textIndex.search("spring concert").stream()
+                          .filter(poster -> poster.getID().equals("p1"))
+                          .count();
+                  long inAuthors = this.authorIndex.byUsers(List.of("author-p1")).size();
+                  if (inTime != 1 || inTags != 1 || inText != 1 || inAuthors != 1) {
+                    problems.add(inTime + " " + inTags + " " + inText + " " + inAuthors);
+                  }
+                }
+              }));
+    }
+    when(this.posterRepository.findAll()).thenReturn(List.of(stable));
+
+    readers.forEach(Thread::start);
+    refresher.start();
+    writer.start();
+    writer.join(60_000);
+    done.set(true);
+    refresher.join(10_000);
+    for (Thread reader : readers) {
+      reader.join(10_000);
+    }
+
+    assertTrue(problems.isEmpty(), "p1 missing or repeated: " + problems.peek());
+  }
+}
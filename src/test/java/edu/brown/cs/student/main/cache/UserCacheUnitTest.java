@@ -0,0 +1,196 @@
+package edu.brown.cs.student.main.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.brown.cs.student.main.reactive.ReactiveUserRepository;
+import edu.brown.cs.student.main.reactive.ReactiveUserService;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.user.User;
+import edu.brown.cs.student.main.user.UserNameIndex;
+import edu.brown.cs.student.main.user.UserRepository;
+import edu.brown.cs.student.main.user.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Mono;
+
+class UserCacheUnitTest {
+  private static final String ID = "user-1";
+
+  private UserRepository userRepository;
+  private UserCache userCache;
+  private User stored;
+
+  @BeforeEach
+  public void setUp() {
+    this.userRepository = mock(UserRepository.class);
+    this.userCache = new UserCache(this.userRepository, new SimpleMeterRegistry(), 100, 60_000);
+    this.stored = user(ID, "Ada Lovelace");
+    when(this.userRepository.findById(ID)).thenReturn(Optional.of(this.stored));
+  }
+
+  private static User user(String id, String name) {
+    User user = new User();
+    user.setId(id);
+    user.setName(name);
+    return user;
+  }
+
+  private static Poster poster() {
+    Poster poster = new Poster();
+    poster.setID("poster-1");
+    return poster;
+  }
+
+  @Test
+  public void testGetLoadsOnceThenServesFromMemory() {
+    assertSame(this.stored, this.userCache.get(ID).get());
+    assertSame(this.stored, this.userCache.get(ID).get());
+
+    verify(this.userRepository, times(1)).findById(ID);
+  }
+
+  @Test
+  public void testGetIfPresentNeverLoads() {
+    assertFalse(this.userCache.getIfPresent(ID).isPresent());
+    verify(this.userRepository, never()).findById(anyString());
+
+    this.userCache.get(ID);
+    assertSame(this.stored, this.userCache.getIfPresent(ID).get());
+  }
+
+  @Test
+  public void testMissingUsersAreNotCached() {
+    assertFalse(this.userCache.get("nobody").isPresent());
+    assertFalse(this.userCache.get("nobody").isPresent());
+    assertFalse(this.userCache.getIfPresent("nobody").isPresent());
+    assertFalse(this.userCache.get(null).isPresent());
+    assertFalse(this.userCache.getIfPresent(null).isPresent());
+
+    // so a user created meanwhile by another instance is found on the next read
+    verify(this.userRepository, times(2)).findById("nobody");
+    verify(this.userRepository, never()).findById(null);
+  }
+
+  @Test
+  public void testPutAndInvalidate() {
+    User written = user(ID, "Ada King");
+    this.userCache.put(written);
+    assertSame(written, this.userCache.get(ID).get());
+    verify(this.userRepository, never()).findById(anyString());
+
+    this.userCache.invalidate(ID);
+    assertFalse(this.userCache.getIfPresent(ID).isPresent());
+    assertSame(this.stored, this.userCache.get(ID).get());
+  }
+
+  /** Caches the user, runs a write and checks it dropped the cached user */
+  private void assertInvalidates(Consumer<String> write) {
+    this.userCache.invalidate(ID);
+    this.userCache.get(ID);
+    assertTrue(this.userCache.getIfPresent(ID).isPresent());
+
+    write.accept(ID);
+
+    assertFalse(this.userCache.getIfPresent(ID).isPresent());
+  }
+
+  @Test
+  public void testUserServiceWritesDropTheUser() {
+    UserService userService =
+        new UserService(
+            this.userRepository,
+            this.userCache,
+            mock(UserNameIndex.class),
+            mock(ApplicationEventPublisher.class));
+    when(this.userRepository.addPoster(eq(ID), anyString(), anyString()))
+        .thenReturn(Optional.of(this.stored));
+    when(this.userRepository.removePoster(eq(ID), anyString(), anyString()))
+        .thenReturn(Optional.of(this.stored));
+
+    this.assertInvalidates(id -> userService.associatePosterWithUser(id, poster(), true).join());
+    this.assertInvalidates(id -> userService.associatePosterWithUser(id, poster(), false).join());
+    this.assertInvalidates(id -> userService.removeFromDrafts(id, poster()).join());
+    this.assertInvalidates(id -> userService.removeFromCreatedPosters(id, "poster-1").join());
+    this.assertInvalidates(id -> userService.savePoster(id, poster()).join());
+    this.assertInvalidates(id -> userService.unsavePoster(id, "poster-1").join());
+    this.assertInvalidates(
+        id -> userService.addInterests(id, new HashSet<>(Set.of("dance"))).join());
+    this.assertInvalidates(id -> userService.removeInterests(id, Set.of("dance")).join());
+    this.assertInvalidates(id -> userService.deleteUserById(id).toCompletableFuture().join());
+  }
+
+  @Test
+  public void testUserServiceCachesWholeUsersItWrites() {
+    UserService userService =
+        new UserService(
+            this.userRepository,
+            this.userCache,
+            mock(UserNameIndex.class),
+            mock(ApplicationEventPublisher.class));
+    User renamed = user(ID, "Ada King");
+    when(this.userRepository.updateProfile(any(User.class))).thenReturn(Optional.of(renamed));
+
+    userService.updateUser(renamed).join();
+
+    assertSame(renamed, this.userCache.getIfPresent(ID).get());
+  }
+
+  @Test
+  public void testReactiveUserServiceWritesDropTheUser() {
+    ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+    when(mongoTemplate.findAndModify(
+            any(Query.class),
+            any(UpdateDefinition.class),
+            any(FindAndModifyOptions.class),
+            eq(User.class)))
+        .thenReturn(Mono.just(this.stored));
+    when(mongoTemplate.findOne(any(Query.class), eq(User.class))).thenReturn(Mono.empty());
+    ReactiveUserService userService =
+        new ReactiveUserService(mock(ReactiveUserRepository.class), mongoTemplate, this.userCache);
+
+    this.assertInvalidates(id -> userService.associatePosterWithUser(id, poster(), true).block());
+    this.assertInvalidates(id -> userService.removeFromDrafts(id, "poster-1").block());
+    this.assertInvalidates(id -> userService.savePoster(id, poster()).block());
+    this.assertInvalidates(id -> userService.unsavePoster(id, "poster-1").block());
+    this.assertInvalidates(
+        id -> userService.addInterests(id, new HashSet<>(Set.of("dance"))).block());
+    this.assertInvalidates(id -> userService.removeInterests(id, Set.of("dance")).block());
+  }
+
+  @Test
+  public void testReactiveReadsUseTheCache() {
+    ReactiveUserRepository reactiveRepository = mock(ReactiveUserRepository.class);
+    when(reactiveRepository.findById(ID)).thenReturn(Mono.just(user(ID, "from mongo")));
+    ReactiveUserService userService =
+        new ReactiveUserService(
+            reactiveRepository, mock(ReactiveMongoTemplate.class), this.userCache);
+
+    this.userCache.get(ID);
+    assertSame(this.stored, userService.getUserById(ID, null).block().getData());
+    verify(reactiveRepository, never()).findById(anyString());
+
+    this.userCache.invalidate(ID);
+    assertEquals("from mongo", userService.getUserById(ID, null).block().getData().getName());
+  }
+}
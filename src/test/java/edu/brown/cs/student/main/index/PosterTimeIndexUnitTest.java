@@ -0,0 +1,185 @@
+package edu.brown.cs.student.main.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PosterTimeIndexUnitTest {
+  private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+  private PosterTimeIndex index;
+  private AtomicReference<PosterTimeIndex.Maps> maps;
+
+  @BeforeEach
+  public void setUp() {
+    this.index = new PosterTimeIndex();
+    this.maps = new AtomicReference<>();
+    this.index.bind(this.maps::get);
+  }
+
+  private static Poster poster(String id, LocalDateTime start, LocalDateTime end) {
+    Poster poster = new Poster();
+    poster.setID(id);
+    poster.setCreatedAt(NOW.minusDays(30));
+    poster.setStartDate(start);
+    poster.setEndDate(end);
+    return poster;
+  }
+
+  private void build(Poster... posters) {
+    this.maps.set(this.index.build(List.of(posters)));
+  }
+
+  private void write(Poster previous, Poster updated) {
+    this.maps.set(this.index.update(this.maps.get(), previous, updated));
+  }
+
+  private static List<String> ids(Stream<Poster> posters) {
+    return posters.map(Poster::getID).collect(Collectors.toList());
+  }
+
+  private static List<String> ids(List<Poster> posters) {
+    return ids(posters.stream());
+  }
+
+  @Test
+  public void testUpcomingAndStartedAreSplitAtNow() {
+    this.build(
+        poster("past", NOW.minusHours(2), null),
+        poster("now", NOW, null),
+        poster("soon", NOW.plusHours(1), null),
+        poster("later", NOW.plusDays(1), null),
+        poster("undated", null, null));
+
+    assertEquals(List.of("soon", "later"), ids(this.index.upcoming(NOW)));
+    assertEquals(List.of("now", "past"), ids(this.index.startingBefore(TimeKey.after(NOW))));
+    assertEquals(List.of("past"), ids(this.index.startingBefore(TimeKey.before(NOW))));
+  }
+
+  @Test
+  public void testEqualStartTimesPageById() {
+    this.build(
+        poster("c", NOW.plusHours(1), null),
+        poster("a", NOW.plusHours(1), null),
+        poster("b", NOW.plusHours(1), null),
+        poster("d", NOW.plusHours(2), null));
+
+    assertEquals(List.of("a", "b", "c", "d"), ids(this.index.upcoming(NOW)));
+    // a cursor left on a tie resumes right after it, skipping nothing and repeating nothing
+    assertEquals(
+        List.of("c", "d"), ids(this.index.startingAfter(TimeKey.of(NOW.plusHours(1), "b"))));
+    assertEquals(
+        List.of("b", "a"), ids(this.index.startingBefore(TimeKey.of(NOW.plusHours(1), "c"))));
+  }
+
+  @Test
+  public void testCreatedBeforeIsNewestFirst() {
+    Poster first = poster("first", null, null);
+    first.setCreatedAt(NOW.minusDays(2));
+    Poster second = poster("second", null, null);
+    second.setCreatedAt(NOW.minusDays(1));
+    Poster tie = poster("tie", null, null);
+    tie.setCreatedAt(NOW.minusDays(1));
+    this.build(first, second, tie);
+
+    assertEquals(List.of("tie", "second", "first"), ids(this.index.createdBefore(null)));
+    assertEquals(
+        List.of("second", "first"),
+        ids(this.index.createdBefore(TimeKey.of(NOW.minusDays(1), "tie"))));
+  }
+
+  @Test
+  public void testEndedBeforeStartingFindsTheArchiveStragglers() {
+    this.build(
+        // ended and started in the past: found by the start date walk, not here
+        poster("done", NOW.minusDays(2), NOW.minusDays(1)),
+        // ended before it starts, and the end has passed
+        poster("backwards", NOW.plusDays(1), NOW.minusHours(1)),
+        // only an end date, already passed
+        poster("endOnly", null, NOW.minusHours(3)),
+        // ends before it starts but hasn't ended yet
+        poster("notYet", NOW.plusDays(2), NOW.plusDays(1)),
+        // ended before starting, but the start has also passed: the start walk has it
+        poster("bothPast", NOW.minusHours(1), NOW.minusHours(2)),
+        poster("running", NOW.minusHours(1), NOW.plusHours(1)));
+
+    assertEquals(List.of("endOnly", "backwards"), ids(this.index.endedBeforeStarting(NOW)));
+  }
+
+  @Test
+  public void testArchiveSegmentsCoverEveryEndedPosterOnce() {
+    this.build(
+        poster("done", NOW.minusDays(2), NOW.minusDays(1)),
+        poster("backwards", NOW.plusDays(1), NOW.minusHours(1)),
+        poster("endOnly", null, NOW.minusHours(3)),
+        poster("running", NOW.minusHours(1), NOW.plusHours(1)),
+        poster("upcoming", NOW.plusHours(1), NOW.plusHours(2)));
+
+    // the archive is the stragglers plus a walk down the start dates from now
+    List<String> archived =
+        Stream.concat(
+                this.index.endedBeforeStarting(NOW).stream(),
+                this.index
+                    .startingBefore(TimeKey.before(NOW))
+                    .filter(poster -> poster.getEndDate() != null)
+                    .filter(poster -> poster.getEndDate().isBefore(NOW)))
+            .map(Poster::getID)
+            .collect(Collectors.toList());
+
+    assertEquals(List.of("endOnly", "backwards", "done"), archived);
+  }
+
+  @Test
+  public void testNextChangeIsTheNearestDateAhead() {
+    this.build(
+        poster("running", NOW.minusHours(1), NOW.plusHours(3)),
+        poster("soon", NOW.plusHours(2), NOW.plusHours(5)),
+        poster("past", NOW.minusDays(2), NOW.minusDays(1)));
+
+    assertEquals(NOW.plusHours(2), this.index.nextChange(NOW));
+    assertEquals(NOW.plusHours(3), this.index.nextChange(NOW.plusHours(2).plusSeconds(1)));
+    // a date exactly at now still counts as ahead
+    assertEquals(NOW.plusHours(2), this.index.nextChange(NOW.plusHours(2)));
+    assertEquals(NOW.plusHours(5), this.index.nextChange(NOW.plusHours(4)));
+    assertNull(this.index.nextChange(NOW.plusHours(6)));
+  }
+
+  @Test
+  public void testNextChangeWithOnlyStartsOrOnlyEnds() {
+    this.build(poster("open", NOW.plusHours(1), null));
+    assertEquals(NOW.plusHours(1), this.index.nextChange(NOW));
+
+    this.build(poster("endOnly", null, NOW.plusHours(2)));
+    assertEquals(NOW.plusHours(2), this.index.nextChange(NOW));
+
+    this.build();
+    assertNull(this.index.nextChange(NOW));
+  }
+
+  @Test
+  public void testUpdateMovesAPosterAndKeepsThePublishedMaps() {
+    Poster before = poster("p1", NOW.plusHours(1), null);
+    this.build(before, poster("p2", NOW.plusHours(2), null));
+    PosterTimeIndex.Maps published = this.maps.get();
+
+    Poster moved = poster("p1", NOW.plusHours(3), NOW.minusHours(1));
+    this.write(before, moved);
+
+    assertEquals(List.of("p2", "p1"), ids(this.index.upcoming(NOW)));
+    assertEquals(List.of("p1"), ids(this.index.endedBeforeStarting(NOW)));
+    this.write(moved, null);
+    assertEquals(List.of("p2"), ids(this.index.upcoming(NOW)));
+    assertEquals(List.of(), ids(this.index.endedBeforeStarting(NOW)));
+
+    this.maps.set(published);
+    assertEquals(List.of("p1", "p2"), ids(this.index.upcoming(NOW)));
+  }
+}
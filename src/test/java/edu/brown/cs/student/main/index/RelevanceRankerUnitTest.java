@@ -0,0 +1,102 @@
+package edu.brown.cs.student.main.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class RelevanceRankerUnitTest {
+  private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+  private static Poster poster(String id, LocalDateTime startDate) {
+    Poster poster = new Poster();
+    poster.setID(id);
+    poster.setStartDate(startDate);
+    return poster;
+  }
+
+  private static List<String> ids(List<Poster> posters) {
+    List<String> ids = new ArrayList<>();
+    for (Poster poster : posters) {
+      ids.add(poster.getID());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testOrdersByScoreThenStartDateThenId() {
+    Map<String, Integer> scores = new HashMap<>();
+    scores.put("a", 1);
+    scores.put("b", 3);
+    scores.put("c", 3);
+    scores.put("d", 3);
+    scores.put("e", 2);
+    List<Poster> posters =
+        List.of(
+            poster("a", NOW),
+            poster("b", NOW.plusDays(2)),
+            poster("c", null),
+            poster("d", NOW.plusDays(1)),
+            poster("e", NOW));
+
+    List<Poster> ranked =
+        RelevanceRanker.rank(posters.stream(), poster -> scores.get(poster.getID()), 0);
+
+    // a missing start date sorts after every date
+    assertEquals(List.of("d", "b", "c", "e", "a"), ids(ranked));
+  }
+
+  @Test
+  public void testTiesOnStartDateBreakById() {
+    List<Poster> posters = List.of(poster("z", NOW), poster("m", NOW), poster("a", NOW));
+
+    assertEquals(List.of("a", "m", "z"), ids(RelevanceRanker.rank(posters.stream(), p -> 0, 0)));
+  }
+
+  @Test
+  public void testLimitKeepsTheBest() {
+    Random random = new Random(42);
+    List<Poster> posters = new ArrayList<>();
+    Map<String, Integer> scores = new HashMap<>();
+    for (int i = 0; i < 200; i++) {
+      String id = String.format("p%03d", i);
+      posters.add(poster(id, NOW.plusHours(random.nextInt(20))));
+      scores.put(id, random.nextInt(5));
+    }
+    List<Poster> all =
+        RelevanceRanker.rank(posters.stream(), poster -> scores.get(poster.getID()), 0);
+    List<Poster> sorted = new ArrayList<>(posters);
+    sorted.sort(
+        Comparator.<Poster>comparingInt(poster -> -scores.get(poster.getID()))
+            .thenComparing(Poster::getStartDate)
+            .thenComparing(Poster::getID));
+    assertEquals(ids(sorted), ids(all));
+
+    for (int limit : new int[] {1, 7, 200, 500}) {
+      List<Poster> best =
+          RelevanceRanker.rank(posters.stream(), poster -> scores.get(poster.getID()), limit);
+      assertEquals(ids(sorted).subList(0, Math.min(limit, sorted.size())), ids(best));
+    }
+  }
+
+  @Test
+  public void testScoresEachPosterOnce() {
+    List<Poster> posters = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      posters.add(poster("p" + i, NOW.plusHours(i)));
+    }
+    AtomicInteger calls = new AtomicInteger();
+
+    RelevanceRanker.rank(posters.stream(), poster -> calls.incrementAndGet() % 4, 10);
+
+    assertEquals(50, calls.get());
+  }
+}
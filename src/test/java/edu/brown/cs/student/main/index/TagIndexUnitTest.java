@@ -0,0 +1,125 @@
+package edu.brown.cs.student.main.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.types.Poster;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TagIndexUnitTest {
+  private TagIndex index;
+  private AtomicReference<TagIndex.State> state;
+
+  @BeforeEach
+  public void setUp() {
+    this.index = new TagIndex();
+    this.state = new AtomicReference<>();
+    this.index.bind(this.state::get);
+  }
+
+  private static Poster poster(String id, String... tags) {
+    Poster poster = new Poster();
+    poster.setID(id);
+    poster.setTags(new HashSet<>(Set.of(tags)));
+    return poster;
+  }
+
+  private void build(Poster... posters) {
+    this.state.set(this.index.build(List.of(posters)));
+  }
+
+  private void write(Poster previous, Poster updated) {
+    this.state.set(this.index.update(this.state.get(), previous, updated));
+  }
+
+  private Set<String> withAllTags(String... tags) {
+    return this.index.withAllTags(List.of(tags)).stream()
+        .map(Poster::getID)
+        .collect(Collectors.toSet());
+  }
+
+  @Test
+  public void testAllTagsMustMatch() {
+    this.build(
+        poster("p1", "dance", "live music"),
+        poster("p2", "dance"),
+        poster("p3", "live music", "free food"),
+        poster("p4"));
+
+    assertEquals(Set.of("p1", "p2"), this.withAllTags("dance"));
+    assertEquals(Set.of("p1"), this.withAllTags("dance", "live music"));
+    assertEquals(Set.of("p3"), this.withAllTags("free food", "live music"));
+    assertTrue(this.withAllTags("dance", "free food").isEmpty());
+    assertEquals(Set.of("p1", "p2", "p3", "p4"), this.withAllTags());
+  }
+
+  @Test
+  public void testUnknownTagsMatchNothing() {
+    this.build(poster("p1", "dance"));
+
+    assertTrue(this.withAllTags("not a tag").isEmpty());
+    assertTrue(this.withAllTags("dance", "not a tag").isEmpty());
+    assertEquals(0, this.index.tagCounter(List.of("not a tag")).applyAsInt(poster("p1")));
+  }
+
+  @Test
+  public void testTagCounterCountsAnyOfTheTags() {
+    Poster both = poster("p1", "dance", "live music");
+    Poster one = poster("p2", "dance", "free food");
+    Poster none = poster("p3", "free food");
+    this.build(both, one, none);
+
+    ToIntFunction<Poster> counter = this.index.tagCounter(List.of("dance", "live music"));
+
+    assertEquals(2, counter.applyAsInt(both));
+    assertEquals(1, counter.applyAsInt(one));
+    assertEquals(0, counter.applyAsInt(none));
+    assertEquals(0, counter.applyAsInt(poster("unknown", "dance")));
+    assertEquals(0, this.index.tagCounter(List.of()).applyAsInt(both));
+  }
+
+  @Test
+  public void testRemovedAndReaddedIdsDontInheritOldTags() {
+    Poster dancing = poster("p1", "dance", "live music");
+    this.build(dancing, poster("p2", "dance"));
+
+    this.write(dancing, null);
+    assertEquals(Set.of("p2"), this.withAllTags("dance"));
+    assertTrue(this.withAllTags("live music").isEmpty());
+
+    // the same id comes back with other tags
+    Poster eating = poster("p1", "free food");
+    this.write(null, eating);
+    assertEquals(Set.of("p2"), this.withAllTags("dance"));
+    assertEquals(Set.of("p1"), this.withAllTags("free food"));
+    assertEquals(Set.of("p1", "p2"), this.withAllTags());
+    ToIntFunction<Poster> counter = this.index.tagCounter(List.of("dance", "free food"));
+    assertEquals(1, counter.applyAsInt(eating));
+
+    // and an edit moves it between tags
+    this.write(eating, poster("p1", "dance"));
+    assertEquals(Set.of("p1", "p2"), this.withAllTags("dance"));
+    assertTrue(this.withAllTags("free food").isEmpty());
+  }
+
+  @Test
+  public void testUpdateLeavesThePublishedStateAlone() {
+    Poster dancing = poster("p1", "dance");
+    this.build(dancing);
+    TagIndex.State published = this.state.get();
+
+    this.write(dancing, poster("p1", "free food"));
+    this.write(null, poster("p2", "dance"));
+
+    this.state.set(published);
+    assertEquals(Set.of("p1"), this.withAllTags("dance"));
+    assertTrue(this.withAllTags("free food").isEmpty());
+  }
+}
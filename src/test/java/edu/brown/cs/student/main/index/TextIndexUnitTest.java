@@ -0,0 +1,177 @@
+package edu.brown.cs.student.main.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.BMSearch;
+import edu.brown.cs.student.main.types.Poster;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TextIndexUnitTest {
+  private TextIndex index;
+  private AtomicReference<TextIndex.State> state;
+
+  @BeforeEach
+  public void setUp() {
+    this.index = new TextIndex();
+    this.state = new AtomicReference<>();
+    this.index.bind(this.state::get);
+  }
+
+  private static Poster poster(String id, String title, String description, String... tags) {
+    Poster poster = new Poster();
+    poster.setID(id);
+    poster.setTitle(title);
+    poster.setDescription(description);
+    poster.setTags(new HashSet<>(Set.of(tags)));
+    return poster;
+  }
+
+  private void build(Poster... posters) {
+    this.state.set(this.index.build(List.of(posters)));
+  }
+
+  private void write(Poster previous, Poster updated) {
+    this.state.set(this.index.update(this.state.get(), previous, updated));
+  }
+
+  private Set<String> search(String term) {
+    return this.index.search(term).stream().map(Poster::getID).collect(Collectors.toSet());
+  }
+
+  @Test
+  public void testMatchesWordsPhrasesAndSubstrings() {
+    this.build(
+        poster("p1", "Spring Concert", "Live jazz on the main green", "music"),
+        poster("p2", "Book talk", "Meet the author of Green Fields", "talk"));
+
+    assertEquals(Set.of("p1"), this.search("concert"));
+    assertEquals(Set.of("p1"), this.search("SPRING CONCERT"));
+    assertEquals(Set.of("p1"), this.search("jazz on the"));
+    assertEquals(Set.of("p1"), this.search("ncer"));
+    assertEquals(Set.of("p1", "p2"), this.search("green"));
+    // the phrase has to be contiguous, not just all its trigrams somewhere in the text
+    assertTrue(this.search("concert spring").isEmpty());
+    assertTrue(this.search("green main").isEmpty());
+    // tags are part of the search text
+    assertEquals(Set.of("p2"), this.search("talk"));
+  }
+
+  @Test
+  public void testShortAndEmptyTerms() {
+    this.build(
+        poster("p1", "Spring Concert", "Live jazz", "music"),
+        poster("p2", "Book talk", "Q&A after", "talk"));
+
+    assertEquals(Set.of("p1"), this.search("jA"));
+    assertEquals(Set.of("p2"), this.search("&"));
+    assertEquals(Set.of("p1", "p2"), this.search("a"));
+    assertTrue(this.search("zz!").isEmpty());
+    assertTrue(this.search("").isEmpty());
+    assertTrue(this.search(null).isEmpty());
+  }
+
+  @Test
+  public void testEditsAndDeletesLeaveNoStaleMatches() {
+    Poster concert = poster("p1", "Spring Concert", "Live jazz", "music");
+    Poster talk = poster("p2", "Book talk", "Meet the author", "talk");
+    this.build(concert, talk);
+
+    Poster renamed = poster("p1", "Spring Dance", "Live swing", "dance");
+    this.write(concert, renamed);
+    this.write(talk, null);
+    Poster mic = poster("p3", "Open mic", "Bring a poem", "music");
+    this.write(null, mic);
+
+    assertTrue(this.search("concert").isEmpty());
+    assertTrue(this.search("ja").isEmpty());
+    assertTrue(this.search("book").isEmpty());
+    assertEquals(Set.of("p1"), this.search("spring"));
+    assertEquals(Set.of("p1"), this.search("swing"));
+    assertEquals(Set.of("p3"), this.search("poem"));
+    assertEquals(Set.of("p1", "p3"), this.search("n"));
+
+    // edits of a poster already in the delta replace the delta entry
+    Poster renamedAgain = poster("p1", "Winter Dance", "Live swing", "dance");
+    this.write(renamed, renamedAgain);
+    this.write(mic, null);
+    assertTrue(this.search("spring").isEmpty());
+    assertTrue(this.search("poem").isEmpty());
+    assertEquals(1, this.index.search("dance").size());
+  }
+
+  @Test
+  public void testUpdateLeavesThePublishedStateAlone() {
+    Poster concert = poster("p1", "Spring Concert", "Live jazz", "music");
+    this.build(concert);
+    TextIndex.State before = this.state.get();
+
+    this.index.update(before, concert, null);
+
+    assertEquals(Set.of("p1"), this.search("concert"));
+  }
+
+  @Test
+  public void testAgreesWithBMSearch() {
+    Random random = new Random(42);
+    String alphabet = "abc de";
+    List<Poster> posters = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      posters.add(
+          poster(
+              "p" + i,
+              randomText(random, alphabet, 12),
+              randomText(random, alphabet, 20),
+              randomText(random, alphabet, 4)));
+    }
+    this.state.set(this.index.build(posters));
+    // edit and delete some posters so the delta and the mask are searched too
+    for (int i = 0; i < 40; i++) {
+      int slot = random.nextInt(posters.size());
+      Poster previous = posters.get(slot);
+      Poster updated =
+          i % 4 == 0
+              ? null
+              : poster(
+                  previous.getID(),
+                  randomText(random, alphabet, 12),
+                  randomText(random, alphabet, 20),
+                  randomText(random, alphabet, 4));
+      this.write(previous, updated);
+      if (updated == null) {
+        posters.remove(slot);
+      } else {
+        posters.set(slot, updated);
+      }
+    }
+
+    for (int i = 0; i < 500; i++) {
+      String term = randomText(random, alphabet + "ABC", 1 + random.nextInt(6));
+      BMSearch.Pattern pattern = BMSearch.compile(term);
+      Set<String> expected =
+          posters.stream()
+              .filter(poster -> pattern.matches(poster.returnHaystack()))
+              .map(Poster::getID)
+              .collect(Collectors.toSet());
+      List<Poster> found = this.index.search(term);
+      assertEquals(expected, this.search(term), term);
+      assertEquals(expected.size(), found.size(), term);
+    }
+  }
+
+  private static String randomText(Random random, String alphabet, int length) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    }
+    return text.toString();
+  }
+}
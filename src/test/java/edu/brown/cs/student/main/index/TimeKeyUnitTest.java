@@ -0,0 +1,47 @@
+package edu.brown.cs.student.main.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.junit.jupiter.api.Test;
+
+class TimeKeyUnitTest {
+  private static final LocalDateTime NOON = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+  @Test
+  public void testEqualTimesAreOrderedById() {
+    assertTrue(TimeKey.of(NOON, "a").compareTo(TimeKey.of(NOON, "b")) < 0);
+    assertTrue(TimeKey.of(NOON, "b").compareTo(TimeKey.of(NOON, "a")) > 0);
+    assertEquals(0, TimeKey.of(NOON, "a").compareTo(TimeKey.of(NOON, "a")));
+    assertEquals(TimeKey.of(NOON, "a"), TimeKey.of(NOON, "a"));
+    assertEquals(TimeKey.of(NOON, "a").hashCode(), TimeKey.of(NOON, "a").hashCode());
+    assertNotEquals(TimeKey.of(NOON, "a"), TimeKey.of(NOON, "b"));
+  }
+
+  @Test
+  public void testTimeComesBeforeId() {
+    assertTrue(TimeKey.of(NOON, "z").compareTo(TimeKey.of(NOON.plusSeconds(1), "a")) < 0);
+  }
+
+  @Test
+  public void testBoundsSurroundEveryKeyAtTheirTime() {
+    ConcurrentSkipListMap<TimeKey, String> keys = new ConcurrentSkipListMap<>();
+    for (String id : List.of("", "a", "m", "zzz")) {
+      keys.put(TimeKey.of(NOON, id), id);
+    }
+    keys.put(TimeKey.of(NOON.minusNanos(1), "before"), "before");
+    keys.put(TimeKey.of(NOON.plusNanos(1), "after"), "after");
+
+    assertEquals(
+        List.of("", "a", "m", "zzz", "after"),
+        List.copyOf(keys.tailMap(TimeKey.before(NOON)).values()));
+    assertEquals(List.of("after"), List.copyOf(keys.tailMap(TimeKey.after(NOON)).values()));
+    assertEquals(List.of("before"), List.copyOf(keys.headMap(TimeKey.before(NOON)).values()));
+    assertTrue(TimeKey.before(NOON).compareTo(TimeKey.after(NOON)) < 0);
+    assertNotEquals(TimeKey.before(NOON), TimeKey.after(NOON));
+  }
+}
@@ -0,0 +1,90 @@
+package edu.brown.cs.student.main.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.brown.cs.student.main.Tags;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class TagMatcherUnitTest {
+
+  private static TagMatcher matcher() {
+    Map<String, List<String>> keywords = new LinkedHashMap<>();
+    keywords.put("music", List.of("jazz", "concert", "band"));
+    keywords.put("food", List.of("pizza", "snack"));
+    keywords.put("art", List.of(" art", "gallery", "Stonewall"));
+    keywords.put("sports", List.of("ball"));
+    keywords.put("dance", List.of("ballroom"));
+    keywords.put("cafe", List.of("café"));
+    return new TagMatcher(keywords);
+  }
+
+  /** The word-by-word check the automaton replaced */
+  private static Set<String> naive(Map<String, List<String>> keywords, String[] words) {
+    Set<String> tags = new HashSet<>();
+    for (String word : words) {
+      if (word.length() > 2) {
+        for (Map.Entry<String, List<String>> entry : keywords.entrySet()) {
+          for (String keyword : entry.getValue()) {
+            if (word.toLowerCase().contains(keyword)) {
+              tags.add(entry.getKey());
+            }
+          }
+        }
+      }
+    }
+    return tags;
+  }
+
+  @Test
+  public void testMatchesKeywordsInsideWords() {
+    Set<String> tags = matcher().tagsIn("Free PIZZA at the JazzFest concerts".split(" "));
+
+    assertEquals(Set.of("food", "music"), tags);
+  }
+
+  @Test
+  public void testOverlappingKeywords() {
+    // "ballroom" contains "ball", so both tags apply
+    assertEquals(Set.of("sports", "dance"), matcher().tagsIn(new String[] {"Ballroom"}));
+    assertEquals(Set.of("sports"), matcher().tagsIn(new String[] {"basketball"}));
+  }
+
+  @Test
+  public void testKeywordsNeverSpanWords() {
+    assertTrue(matcher().tagsIn("jaz zconcer t".split(" ")).isEmpty());
+    assertTrue(matcher().tagsIn("big band".split(" ")).contains("music"));
+    assertTrue(matcher().tagsIn("pizzeria pi zza".split(" ")).isEmpty());
+  }
+
+  @Test
+  public void testShortWordsAndUnmatchableKeywordsAreIgnored() {
+    // words of two characters or fewer are skipped, keywords with a space or capitals never match
+    assertTrue(matcher().tagsIn(new String[] {"ba", "an", "art", "stonewall"}).isEmpty());
+  }
+
+  @Test
+  public void testNonAsciiKeywords() {
+    assertEquals(Set.of("cafe"), matcher().tagsIn(new String[] {"CAFÉ"}));
+    assertTrue(matcher().tagsIn(new String[] {"cafe"}).isEmpty());
+  }
+
+  @Test
+  public void testAgreesWithWordByWordCheckOnJumboTags() {
+    Map<String, List<String>> keywords = new Tags().getJumboTags();
+    TagMatcher matcher = new TagMatcher(keywords);
+    String[] words =
+        ("Join the Brown Jazz Band for a sober sub-free ballroom dance night! Free pizza,"
+                + " booze-free drinks and snacks. Talk by visiting professor on climate and"
+                + " sustainability. Gallery opening, hackathon, volunteer fair, basketball game,"
+                + " résumé workshop")
+            .split(" ");
+
+    assertEquals(naive(keywords, words), matcher.tagsIn(words));
+  }
+}
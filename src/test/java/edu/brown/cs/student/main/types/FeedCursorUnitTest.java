@@ -0,0 +1,157 @@
+package edu.brown.cs.student.main.types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FeedCursorUnitTest {
+  private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+  private static Poster poster(String id, LocalDateTime startDate) {
+    Poster poster = new Poster();
+    poster.setID(id);
+    poster.setStartDate(startDate);
+    return poster;
+  }
+
+  private static String encodeRaw(String raw) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    FeedCursor cursor =
+        new FeedCursor(FeedOrder.SOONEST, 1, NOW.minusDays(3), "poster|with|bars", NOW);
+
+    FeedCursor decoded = FeedCursor.decode(cursor.encode(), FeedOrder.SOONEST);
+
+    assertEquals(FeedOrder.SOONEST, decoded.getOrder());
+    assertEquals(1, decoded.getSegment());
+    assertEquals(NOW.minusDays(3), decoded.getTime());
+    assertEquals("poster|with|bars", decoded.getId());
+    assertEquals(NOW, decoded.getAsOf());
+    assertEquals(0, FeedOrder.SOONEST.compare(cursor, decoded));
+  }
+
+  @Test
+  public void testRoundTripWithoutTime() {
+    FeedCursor cursor = FeedOrder.CREATED.positionOf(poster("p1", null), NOW);
+    cursor = new FeedCursor(FeedOrder.ARCHIVE, 0, null, cursor.getId(), NOW);
+
+    FeedCursor decoded = FeedCursor.decode(cursor.encode(), FeedOrder.ARCHIVE);
+
+    assertNull(decoded.getTime());
+    assertEquals("p1", decoded.getId());
+  }
+
+  @Test
+  public void testEncodingIsUrlSafe() {
+    FeedCursor cursor = new FeedCursor(FeedOrder.UPCOMING, 0, NOW, "???>>>~~~", NOW);
+
+    assertTrue(cursor.encode().matches("[A-Za-z0-9_-]+"));
+  }
+
+  @Test
+  public void testCursorFromAnotherFeedIsRejected() {
+    String cursor = new FeedCursor(FeedOrder.UPCOMING, 0, NOW, "p1", NOW).encode();
+
+    assertThrows(
+        IllegalArgumentException.class, () -> FeedCursor.decode(cursor, FeedOrder.ARCHIVE));
+  }
+
+  @Test
+  public void testTamperedCursorIsRejected() {
+    String time = NOW.toString();
+    for (String raw :
+        new String[] {
+          "SOONEST|2|" + time + "|" + time + "|p1", // no such segment
+          "SOONEST|-1|" + time + "|" + time + "|p1",
+          "UPCOMING|0|" + time + "|" + time + "|p1", // another feed
+          "NEWEST|0|" + time + "|" + time + "|p1", // no such order
+          "SOONEST|one|" + time + "|" + time + "|p1",
+          "SOONEST|0|yesterday|" + time + "|p1",
+          "SOONEST|0|" + time + "||p1", // no read time
+          "SOONEST|0|" + time + "|" + time, // too few parts
+          ""
+        }) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> FeedCursor.decode(encodeRaw(raw), FeedOrder.SOONEST),
+          raw);
+    }
+  }
+
+  @Test
+  public void testMalformedCursorIsRejected() {
+    for (String cursor : new String[] {"not base64!", "a", "%%%%", "abc=def"}) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> FeedCursor.decode(cursor, FeedOrder.SOONEST),
+          cursor);
+    }
+  }
+
+  @Test
+  public void testSoonestPutsUpcomingBeforePast() {
+    List<Poster> posters =
+        List.of(
+            poster("past-recent", NOW.minusDays(1)),
+            poster("upcoming-later", NOW.plusDays(5)),
+            poster("past-old", NOW.minusDays(9)),
+            poster("upcoming-b", NOW.plusDays(1)),
+            poster("upcoming-a", NOW.plusDays(1)),
+            poster("undated", null));
+    List<FeedCursor> positions = new ArrayList<>();
+    for (Poster poster : posters) {
+      FeedCursor position = FeedOrder.SOONEST.positionOf(poster, NOW);
+      if (position != null) {
+        positions.add(position);
+      }
+    }
+    positions.sort(FeedOrder.SOONEST::compare);
+
+    List<String> ids = new ArrayList<>();
+    for (FeedCursor position : positions) {
+      ids.add(position.getId());
+    }
+    // posters without a start date aren't in the feed
+    assertEquals(
+        List.of("upcoming-a", "upcoming-b", "upcoming-later", "past-recent", "past-old"), ids);
+  }
+
+  @Test
+  public void testPagingResumesStrictlyAfterCursor() {
+    Poster last = poster("b", NOW.plusDays(1));
+    String cursor = FeedOrder.SOONEST.positionOf(last, NOW).encode();
+    FeedCursor decoded = FeedCursor.decode(cursor, FeedOrder.SOONEST);
+
+    assertFalse(FeedOrder.SOONEST.isAfter(last, decoded));
+    assertFalse(FeedOrder.SOONEST.isAfter(poster("a", NOW.plusDays(1)), decoded));
+    assertTrue(FeedOrder.SOONEST.isAfter(poster("c", NOW.plusDays(1)), decoded));
+    assertTrue(FeedOrder.SOONEST.isAfter(poster("a", NOW.minusDays(1)), decoded));
+    assertFalse(FeedOrder.SOONEST.isAfter(poster("a", null), decoded));
+  }
+
+  @Test
+  public void testPagingKeepsTheFirstPagesReadTime() {
+    // a poster that started after the first page was read stays in the upcoming section
+    Poster poster = poster("p1", NOW.plusMinutes(30));
+    FeedCursor cursor = new FeedCursor(FeedOrder.SOONEST, 0, NOW.plusMinutes(10), "p0", NOW);
+
+    FeedCursor decoded = FeedCursor.decode(cursor.encode(), FeedOrder.SOONEST);
+
+    assertEquals(0, FeedOrder.SOONEST.positionOf(poster, decoded.getAsOf()).getSegment());
+    assertTrue(FeedOrder.SOONEST.isAfter(poster, decoded));
+  }
+}
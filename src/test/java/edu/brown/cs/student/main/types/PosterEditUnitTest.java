@@ -0,0 +1,105 @@
+package edu.brown.cs.student.main.types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PosterEditUnitTest {
+  private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 19, 0);
+
+  private static Poster stored() {
+    Poster poster = new Poster();
+    poster.setID("p1");
+    poster.setTitle("Spring concert");
+    poster.setDescription("Songs and snacks");
+    poster.setLocation("Sayles Hall");
+    poster.setStartDate(START);
+    poster.setTags(new HashSet<>(Set.of("live music", "performance")));
+    return poster;
+  }
+
+  private static Poster edit(Set<String> tags) {
+    Poster edit = new Poster();
+    edit.setTags(tags == null ? null : new HashSet<>(tags));
+    return edit;
+  }
+
+  @Test
+  public void testCopiesOnlyTheFieldsTheEditSets() {
+    Poster poster = stored();
+    Poster edit = edit(null);
+    edit.setTitle("Spring concert (moved)");
+    edit.setLocation("Alumnae Hall");
+
+    PosterEdit.apply(poster, edit, PosterEdit.tagsOf(poster));
+
+    assertEquals("Spring concert (moved)", poster.getTitle());
+    assertEquals("Alumnae Hall", poster.getLocation());
+    assertEquals("Songs and snacks", poster.getDescription());
+    assertEquals(START, poster.getStartDate());
+    assertEquals(Set.of("live music", "performance"), poster.getTags());
+  }
+
+  @Test
+  public void testTagsReplaceWhenNothingChangedInBetween() {
+    Poster poster = stored();
+
+    PosterEdit.apply(poster, edit(Set.of("live music", "dance")), PosterEdit.tagsOf(poster));
+
+    assertEquals(Set.of("live music", "dance"), poster.getTags());
+  }
+
+  @Test
+  public void testTagsMergeWithConcurrentEdit() {
+    Poster poster = stored();
+    Set<String> base = PosterEdit.tagsOf(poster);
+    // someone else adds "alcohol" and removes "live music" before this edit is re-applied
+    poster.setTags(new HashSet<>(Set.of("performance", "alcohol")));
+
+    // this edit removed "performance" and added "dance"
+    PosterEdit.apply(poster, edit(Set.of("live music", "dance")), base);
+
+    assertEquals(Set.of("alcohol", "dance"), poster.getTags());
+  }
+
+  @Test
+  public void testReapplyingIsIdempotent() {
+    Poster poster = stored();
+    Set<String> base = PosterEdit.tagsOf(poster);
+    Poster edit = edit(Set.of("dance"));
+    edit.setDescription("Now with dancing");
+
+    PosterEdit.apply(poster, edit, base);
+    PosterEdit.apply(poster, edit, base);
+
+    assertEquals(Set.of("dance"), poster.getTags());
+    assertEquals("Now with dancing", poster.getDescription());
+  }
+
+  @Test
+  public void testMergedTagsUpdateTheMask() {
+    Poster poster = stored();
+    TagMask dance = TagDictionary.encode(Set.of("dance"));
+    poster.getTagMask();
+
+    PosterEdit.apply(
+        poster, edit(Set.of("live music", "performance", "dance")), PosterEdit.tagsOf(poster));
+
+    assertTrue(poster.containsAllTags(dance));
+  }
+
+  @Test
+  public void testTagsOfCopies() {
+    Poster poster = stored();
+    Set<String> base = PosterEdit.tagsOf(poster);
+    poster.setTag("dance");
+
+    assertEquals(Set.of("live music", "performance"), base);
+    poster.setTags(null);
+    assertEquals(Set.of(), PosterEdit.tagsOf(poster));
+  }
+}
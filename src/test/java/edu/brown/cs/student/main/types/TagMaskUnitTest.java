@@ -0,0 +1,99 @@
+package edu.brown.cs.student.main.types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class TagMaskUnitTest {
+
+  @Test
+  public void testEmptyTags() {
+    assertSame(TagMask.EMPTY, TagDictionary.encode(null));
+    assertSame(TagMask.EMPTY, TagDictionary.encode(Set.of()));
+    assertTrue(TagMask.EMPTY.isEmpty());
+    assertFalse(TagDictionary.encode(Set.of("dance")).isEmpty());
+    assertFalse(TagDictionary.encode(Set.of("not a known tag")).isEmpty());
+  }
+
+  @Test
+  public void testContainsAllKnownTags() {
+    TagMask poster = TagDictionary.encode(Set.of("dance", "alcohol", "live music"));
+
+    assertTrue(poster.containsAll(TagDictionary.encode(Set.of("dance"))));
+    assertTrue(poster.containsAll(TagDictionary.encode(Set.of("dance", "live music"))));
+    assertTrue(poster.containsAll(TagMask.EMPTY));
+    assertFalse(poster.containsAll(TagDictionary.encode(Set.of("dance", "subfree"))));
+    assertFalse(TagMask.EMPTY.containsAll(poster));
+  }
+
+  @Test
+  public void testContainsAllOverflowTags() {
+    TagMask poster = TagDictionary.encode(Set.of("dance", "brown-only", "cs32"));
+
+    assertTrue(poster.containsAll(TagDictionary.encode(Set.of("cs32"))));
+    assertTrue(poster.containsAll(TagDictionary.encode(Set.of("dance", "brown-only"))));
+    assertFalse(poster.containsAll(TagDictionary.encode(Set.of("dance", "cs33"))));
+    assertFalse(
+        TagDictionary.encode(Set.of("dance")).containsAll(TagDictionary.encode(Set.of("cs32"))));
+  }
+
+  @Test
+  public void testCountShared() {
+    TagMask poster = TagDictionary.encode(Set.of("dance", "alcohol", "cs32", "brown-only"));
+    TagMask interests = TagDictionary.encode(Set.of("dance", "subfree", "cs32", "cs33"));
+
+    assertEquals(2, poster.countShared(interests));
+    assertEquals(2, interests.countShared(poster));
+    assertEquals(4, poster.countShared(poster));
+    assertEquals(0, poster.countShared(TagMask.EMPTY));
+  }
+
+  @Test
+  public void testAgreesWithSetOperations() {
+    List<String> vocabulary =
+        List.of("dance", "alcohol", "subfree", "performance", "live music", "cs32", "cs33", "xyz");
+    for (int a = 0; a < 1 << vocabulary.size(); a += 7) {
+      for (int b = 0; b < 1 << vocabulary.size(); b += 5) {
+        Set<String> first = subset(vocabulary, a);
+        Set<String> second = subset(vocabulary, b);
+        Set<String> shared = new HashSet<>(first);
+        shared.retainAll(second);
+
+        TagMask firstMask = TagDictionary.encode(first);
+        TagMask secondMask = TagDictionary.encode(second);
+        assertEquals(first.containsAll(second), firstMask.containsAll(secondMask));
+        assertEquals(shared.size(), firstMask.countShared(secondMask));
+      }
+    }
+  }
+
+  @Test
+  public void testPosterMaskFollowsTagChanges() {
+    Poster poster = new Poster();
+    poster.setTag("dance");
+    TagMask dance = TagDictionary.encode(Set.of("dance"));
+    assertTrue(poster.containsAllTags(dance));
+
+    poster.deleteTag("dance");
+    assertFalse(poster.containsAllTags(dance));
+
+    poster.setTags(new HashSet<>(Set.of("dance", "cs32")));
+    assertEquals(2, poster.numRelevantTags(TagDictionary.encode(Set.of("dance", "cs32", "x"))));
+  }
+
+  private static Set<String> subset(List<String> vocabulary, int bits) {
+    Set<String> subset = new HashSet<>();
+    for (int i = 0; i < vocabulary.size(); i++) {
+      if ((bits & (1 << i)) != 0) {
+        subset.add(vocabulary.get(i));
+      }
+    }
+    return subset;
+  }
+}
@@ -0,0 +1,170 @@
+package edu.brown.cs.student.main.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.brown.cs.student.main.DraftRepository;
+import edu.brown.cs.student.main.PosterService;
+import edu.brown.cs.student.main.cache.CollectionVersions;
+import edu.brown.cs.student.main.cache.PosterCache;
+import edu.brown.cs.student.main.cache.UserCache;
+import edu.brown.cs.student.main.types.Poster;
+import edu.brown.cs.student.main.types.PosterRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+
+class UserNameIndexUnitTest {
+  private UserRepository userRepository;
+  private UserNameIndex index;
+
+  @BeforeEach
+  public void setUp() {
+    this.userRepository = mock(UserRepository.class);
+    this.index = new UserNameIndex(this.userRepository);
+  }
+
+  private static User user(String id, String name) {
+    User user = new User();
+    user.setId(id);
+    user.setName(name);
+    return user;
+  }
+
+  @Test
+  public void testNamesIgnoreCaseAndSurroundingSpace() {
+    this.index.put("u1", "Ada Lovelace");
+    this.index.put("u2", "ada lovelace ");
+    this.index.put("u3", "Grace Hopper");
+
+    assertEquals(Set.of("u1", "u2"), this.index.idsNamed("ADA LOVELACE"));
+    assertEquals(Set.of("u3"), this.index.idsNamed(" grace hopper"));
+    assertTrue(this.index.idsNamed("Ada").isEmpty());
+  }
+
+  @Test
+  public void testPrefixLookup() {
+    this.index.put("u1", "Ada Lovelace");
+    this.index.put("u2", "Adam Smith");
+    this.index.put("u3", "Grace Hopper");
+    this.index.put("u4", "Ad");
+
+    assertEquals(Set.of("u1", "u2", "u4"), this.index.idsWithPrefix("ad"));
+    assertEquals(Set.of("u2"), this.index.idsWithPrefix("ADAM"));
+    assertEquals(Set.of("u1"), this.index.idsWithPrefix("ada l"));
+    assertTrue(this.index.idsWithPrefix("b").isEmpty());
+    assertEquals(Set.of("u1", "u2", "u3", "u4"), this.index.idsWithPrefix(""));
+  }
+
+  @Test
+  public void testRenameAndRemove() {
+    this.index.put("u1", "Ada Lovelace");
+    this.index.put("u2", "Ada Lovelace");
+
+    this.index.put("u1", "Ada King");
+    assertEquals(Set.of("u2"), this.index.idsNamed("ada lovelace"));
+    assertEquals(Set.of("u1"), this.index.idsNamed("ada king"));
+
+    this.index.remove("u2");
+    assertTrue(this.index.idsNamed("ada lovelace").isEmpty());
+    assertTrue(this.index.idsWithPrefix("ada l").isEmpty());
+    this.index.remove("not a user");
+
+    // a user whose name is cleared drops out of the index
+    this.index.put("u1", null);
+    assertTrue(this.index.idsWithPrefix("").isEmpty());
+  }
+
+  @Test
+  public void testReloadReplacesEverything() {
+    this.index.put("u1", "Ada Lovelace");
+    this.index.put("gone", "Someone Deleted Elsewhere");
+    when(this.userRepository.findAllNames())
+        .thenReturn(List.of(user("u1", "Ada King"), user("u2", "Grace Hopper")));
+
+    this.index.reload();
+
+    assertEquals(Set.of("u1", "u2"), this.index.idsWithPrefix(""));
+    assertEquals(Set.of("u1"), this.index.idsNamed("ada king"));
+    assertTrue(this.index.idsNamed("ada lovelace").isEmpty());
+  }
+
+  @Test
+  public void testProfileUpdateRenamesAndAnnouncesTheChange() {
+    UserCache userCache = mock(UserCache.class);
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    UserService userService =
+        new UserService(this.userRepository, userCache, this.index, publisher);
+    this.index.put("u1", "Ada Lovelace");
+    when(userCache.get("u1")).thenReturn(Optional.of(user("u1", "Ada Lovelace")));
+    User renamed = user("u1", "Ada King");
+    when(this.userRepository.updateProfile(any(User.class))).thenReturn(Optional.of(renamed));
+
+    userService.updateUser(renamed).join();
+
+    assertEquals(Set.of("u1"), this.index.idsNamed("ada king"));
+    assertTrue(this.index.idsNamed("ada lovelace").isEmpty());
+    ArgumentCaptor<UserNameChangedEvent> event =
+        ArgumentCaptor.forClass(UserNameChangedEvent.class);
+    verify(publisher).publishEvent(event.capture());
+    assertEquals("u1", event.getValue().getUserId());
+    assertEquals("Ada King", event.getValue().getName());
+  }
+
+  @Test
+  public void testProfileUpdateKeepingTheNameAnnouncesNothing() {
+    UserCache userCache = mock(UserCache.class);
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    UserService userService =
+        new UserService(this.userRepository, userCache, this.index, publisher);
+    when(userCache.get("u1")).thenReturn(Optional.of(user("u1", "Ada Lovelace")));
+    when(this.userRepository.updateProfile(any(User.class)))
+        .thenReturn(Optional.of(user("u1", "Ada Lovelace")));
+
+    userService.updateUser(user("u1", "Ada Lovelace")).join();
+
+    verify(publisher, never()).publishEvent(any(Object.class));
+  }
+
+  @Test
+  public void testOnUserNameChangedRewritesPostersAndDrafts() {
+    PosterRepository posterRepository = mock(PosterRepository.class);
+    DraftRepository draftRepository = mock(DraftRepository.class);
+    PosterCache posterCache = mock(PosterCache.class);
+    CollectionVersions versions = mock(CollectionVersions.class);
+    PosterService posterService =
+        new PosterService(
+            posterRepository,
+            draftRepository,
+            null,
+            posterCache,
+            null,
+            null,
+            null,
+            null,
+            this.index,
+            versions);
+    Poster first = new Poster();
+    Poster second = new Poster();
+    when(posterRepository.findByUserId("u1", Sort.unsorted())).thenReturn(List.of(first, second));
+
+    posterService.onUserNameChanged(new UserNameChangedEvent("u1", "Ada King"));
+
+    verify(posterRepository).updateAuthorNameByUserId("u1", "Ada King");
+    verify(draftRepository).updateAuthorNameByUserId("u1", "Ada King");
+    verify(versions).bumpDrafts();
+    // the rewritten posters replace the cached ones, which still have the old name
+    verify(posterCache).put(first);
+    verify(posterCache).put(second);
+  }
+}
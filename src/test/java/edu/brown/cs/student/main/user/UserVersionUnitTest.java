@@ -0,0 +1,149 @@
+package edu.brown.cs.student.main.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.brown.cs.student.main.responses.ServiceResponse;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+class UserVersionUnitTest {
+  private static final String ID = "user-1";
+
+  private UserRepositoryCustomImpl repository;
+  private long storedVersion;
+
+  @BeforeEach
+  public void setUp() {
+    // a single stored user: findAndModify matches it if the query's version (if any) is the
+    // stored one, and applies the update's $inc to the version
+    MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    when(mongoTemplate.findAndModify(
+            any(Query.class),
+            any(UpdateDefinition.class),
+            any(FindAndModifyOptions.class),
+            eq(User.class)))
+        .thenAnswer(
+            invocation -> {
+              Document query = invocation.getArgument(0, Query.class).getQueryObject();
+              Document update = invocation.getArgument(1, UpdateDefinition.class).getUpdateObject();
+              Object expected = query.get(UserUpdates.VERSION);
+              if (expected != null && (Long) expected != this.storedVersion) {
+                return null;
+              }
+              Document inc = update.get("$inc", Document.class);
+              if (inc != null && inc.containsKey(UserUpdates.VERSION)) {
+                this.storedVersion += ((Number) inc.get(UserUpdates.VERSION)).longValue();
+              }
+              User user = new User();
+              user.setId(ID);
+              user.setVersion(this.storedVersion);
+              return user;
+            });
+    this.repository = new UserRepositoryCustomImpl(mongoTemplate);
+    this.storedVersion = 3L;
+  }
+
+  private static User profile(String name, Long version) {
+    User user = new User();
+    user.setId(ID);
+    user.setName(name);
+    user.setVersion(version);
+    return user;
+  }
+
+  @Test
+  public void testSaveThenUpdate() {
+    // the client read the user at version 3, then saved a poster and added an interest
+    this.repository.addPoster(ID, UserUpdates.SAVED_POSTERS, "poster-1");
+    this.repository.addInterests(ID, Set.of("music"));
+
+    Optional<User> updated = this.repository.updateProfile(profile("New name", 3L));
+
+    assertTrue(updated.isPresent());
+    assertEquals(4L, updated.get().getVersion());
+  }
+
+  @Test
+  public void testUpdateAfterAnotherProfileUpdateIsRefused() {
+    assertTrue(this.repository.updateProfile(profile("First", 3L)).isPresent());
+
+    assertFalse(this.repository.updateProfile(profile("Second", 3L)).isPresent());
+    assertEquals(4L, this.storedVersion);
+  }
+
+  @Test
+  public void testUpdateWithoutVersionIsNotChecked() {
+    this.storedVersion = 9L;
+
+    Optional<User> updated = this.repository.updateProfile(profile("New name", null));
+
+    assertTrue(updated.isPresent());
+    assertEquals(10L, updated.get().getVersion());
+  }
+
+  @Test
+  public void testListAndInterestUpdatesKeepVersion() {
+    for (UpdateDefinition update :
+        new UpdateDefinition[] {
+          UserUpdates.addPoster(UserUpdates.CREATED_POSTERS, "poster-1"),
+          UserUpdates.removePoster(UserUpdates.DRAFTS, "poster-1"),
+          UserUpdates.addInterests(Set.of("music")),
+          UserUpdates.removeInterests(Set.of("music"))
+        }) {
+      assertNull(update.getUpdateObject().get("$inc"), update.toString());
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testVersionOnlyComesFromIfMatch() {
+    UserService userService = mock(UserService.class);
+    User existing = profile("Old name", 5L);
+    when(userService.getUserById(ID))
+        .thenReturn(CompletableFuture.completedFuture(new ServiceResponse<>(existing, "found")));
+    when(userService.updateUser(any(User.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                new ServiceResponse<>(profile("New name", 6L), "User updated")));
+    UserController controller =
+        new UserController(
+            userService, null, null, mock(ObjectProvider.class), mock(ObjectProvider.class));
+    ArgumentCaptor<User> sent = ArgumentCaptor.forClass(User.class);
+
+    // a version echoed in the body isn't enforced
+    ResponseEntity<ServiceResponse<User>> unchecked =
+        controller.updateUser(ID, profile("New name", 5L), null).join();
+    verify(userService).updateUser(sent.capture());
+    assertNull(sent.getValue().getVersion());
+    assertEquals("\"6\"", unchecked.getHeaders().getETag());
+
+    controller.updateUser(ID, profile("New name", null), "\"5\"").join();
+    verify(userService, times(2)).updateUser(sent.capture());
+    assertEquals(5L, sent.getValue().getVersion());
+
+    ResponseEntity<ServiceResponse<User>> malformed =
+        controller.updateUser(ID, profile("New name", null), "\"five\"").join();
+    assertEquals(HttpStatus.BAD_REQUEST, malformed.getStatusCode());
+  }
+}